@@ -0,0 +1,45 @@
+#!/usr/bin/env bash
+# Сравнение пропускной способности с обычным логированием и в режиме prod
+# (асинхронный аппендер, выборочный Logbook с обрезкой тел, бизнес-логи только WARN).
+# Логи приложения пишутся в файл, чтобы учитывать реальную стоимость вывода; нагрузку дает hey.
+#
+#   mvn package -DskipTests && scripts/logging-benchmark.sh [duration] [concurrency]
+set -euo pipefail
+
+JAR=${JAR:-target/filmorate-0.0.1-SNAPSHOT.jar}
+PORT=${PORT:-18080}
+DURATION=${1:-15s}
+CONCURRENCY=${2:-8}
+SEED=${SEED:-1000}
+BASE_URL="http://localhost:${PORT}"
+LOG_DIR=${LOG_DIR:-target/logging-benchmark}
+
+command -v hey >/dev/null || { echo "Не найден hey: go install github.com/rakyll/hey@latest" >&2; exit 1; }
+mkdir -p "$LOG_DIR"
+
+run_mode() {
+  local mode=$1 profiles=$2
+  java -jar "$JAR" --server.port="$PORT" --spring.profiles.active="$profiles" >"$LOG_DIR/$mode.log" 2>&1 &
+  local pid=$!
+  trap 'kill $pid 2>/dev/null || true' RETURN
+
+  until curl -sf "${BASE_URL}/actuator/health" >/dev/null; do sleep 0.5; done
+  for i in $(seq 1 "$SEED"); do
+    curl -sf -X POST "${BASE_URL}/films" -H 'Content-Type: application/json' \
+      -d '{"name":"Фильм","description":"Описание","releaseDate":"2000-01-01","duration":120}' >/dev/null
+    curl -sf -X POST "${BASE_URL}/users" -H 'Content-Type: application/json' \
+      -d "{\"email\":\"u${i}@mail.com\",\"login\":\"u${i}\",\"birthday\":\"2000-01-01\"}" >/dev/null
+  done
+
+  for target in "GET /films/1" "PUT /films/1/like/1" "GET /films"; do
+    local method=${target%% *} path=${target#* } report
+    report=$(hey -z "$DURATION" -c "$CONCURRENCY" -m "$method" "${BASE_URL}${path}")
+    printf '%-8s %-22s rps=%-10s p99=%s\n' "$mode" "$target" \
+      "$(awk '/Requests\/sec/ {print $2}' <<<"$report")" \
+      "$(awk '/99% in/ {print $3 " " $4}' <<<"$report")"
+  done
+  printf '%-8s log size: %s bytes\n' "$mode" "$(wc -c <"$LOG_DIR/$mode.log")"
+}
+
+run_mode default default
+run_mode prod prod
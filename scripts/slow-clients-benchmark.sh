@@ -0,0 +1,200 @@
+#!/usr/bin/env bash
+# Сравнение Spring MVC (платформенные и виртуальные потоки) и WebFlux (профиль reactive) под медленными клиентами.
+# CONNECTIONS клиентов запрашивают весь список фильмов в NDJSON и читают его по SLOW_CHUNK байт раз в SLOW_INTERVAL секунд;
+# пока они висят, FAST_CONCURRENCY быстрых клиентов в течение DURATION секунд запрашивают /films/1.
+# Печатается прирост RSS сервера на одно медленное соединение, число потоков JVM, сколько данных за это время
+# действительно дошло до медленных клиентов и пропускная способность быстрых запросов.
+#
+#   mvn package -DskipTests && scripts/slow-clients-benchmark.sh [connections] [duration]
+set -euo pipefail
+
+JAR=${JAR:-target/filmorate-0.0.1-SNAPSHOT.jar}
+PORT=${PORT:-18080}
+CONNECTIONS=${1:-10000}
+DURATION=${2:-20}
+FILMS=${FILMS:-20000}
+FAST_CONCURRENCY=${FAST_CONCURRENCY:-50}
+SLOW_CHUNK=${SLOW_CHUNK:-1024}
+SLOW_INTERVAL=${SLOW_INTERVAL:-1}
+MODES=${MODES:-"mvc mvc-virtual reactive"}
+BASE_URL="http://localhost:${PORT}"
+
+ulimit -n 65536 2>/dev/null || ulimit -n "$(ulimit -Hn)"
+if (( $(ulimit -n) < CONNECTIONS + 1000 )); then
+  echo "Лимит файловых дескрипторов $(ulimit -n) меньше числа соединений ${CONNECTIONS}" >&2
+  exit 1
+fi
+
+rss_kb() {
+  awk '/VmRSS/ {print $2}' "/proc/$1/status"
+}
+
+live_threads() {
+  curl -sf --max-time 10 "${BASE_URL}/actuator/metrics/jvm.threads.live" | python3 -c 'import json,sys; print(int(json.load(sys.stdin)["measurements"][0]["value"]))'
+}
+
+seed_films() {
+  python3 - "$BASE_URL" "$FILMS" <<'EOF'
+import json, sys, urllib.request
+base, films = sys.argv[1], int(sys.argv[2])
+body = json.dumps({"name": "Фильм", "description": "Описание фильма для нагрузочного замера " * 4,
+                   "releaseDate": "2000-01-01", "duration": 120}).encode()
+for _ in range(films):
+    request = urllib.request.Request(base + "/films", data=body, headers={"Content-Type": "application/json"})
+    urllib.request.urlopen(request).read()
+EOF
+}
+
+# Медленные клиенты держат соединения до завершения быстрых запросов, затем все закрываются
+load() {
+  python3 - "$PORT" "$CONNECTIONS" "$DURATION" "$FAST_CONCURRENCY" "$SLOW_CHUNK" "$SLOW_INTERVAL" "$1" <<'EOF'
+import asyncio, os, socket, sys, time
+port, connections, duration, fast_concurrency, chunk, interval, ready_file = sys.argv[1:8]
+port, connections, duration, fast_concurrency = int(port), int(connections), float(duration), int(fast_concurrency)
+chunk, interval = int(chunk), float(interval)
+
+SLOW = (b"GET /films HTTP/1.1\r\nHost: localhost\r\nAccept: application/x-ndjson\r\n\r\n")
+FAST = b"GET /films/1 HTTP/1.1\r\nHost: localhost\r\nAccept: application/json\r\n\r\n"
+
+async def open_connection():
+    sock = socket.socket(socket.AF_INET, socket.SOCK_STREAM)
+    # Маленький буфер приема, чтобы ядро клиента не забирало весь ответ за медленного читателя
+    sock.setsockopt(socket.SOL_SOCKET, socket.SO_RCVBUF, 4096)
+    sock.setblocking(False)
+    await asyncio.get_running_loop().sock_connect(sock, ("127.0.0.1", port))
+    return await asyncio.open_connection(sock=sock, limit=chunk)
+
+async def slow_client(opened, received, measuring, stop):
+    try:
+        reader, writer = await open_connection()
+        writer.write(SLOW)
+        await writer.drain()
+        await reader.read(chunk)
+        opened.append(1)
+        while not stop.is_set():
+            await asyncio.sleep(interval)
+            data = await reader.read(chunk)
+            if not data:
+                break
+            if measuring.is_set():
+                received[0] += len(data)
+        writer.close()
+    except OSError:
+        pass
+
+async def read_response(reader):
+    headers = await reader.readuntil(b"\r\n\r\n")
+    length, chunked = 0, False
+    for line in headers.split(b"\r\n"):
+        name, _, value = line.partition(b":")
+        if name.lower() == b"content-length":
+            length = int(value)
+        elif name.lower() == b"transfer-encoding" and b"chunked" in value.lower():
+            chunked = True
+    if not chunked:
+        await reader.readexactly(length)
+    else:
+        while True:
+            size = int((await reader.readuntil(b"\r\n")).strip(), 16)
+            await reader.readexactly(size + 2)
+            if size == 0:
+                break
+    # Tomcat закрывает keep-alive соединение после maxKeepAliveRequests ответов
+    closing = b"connection: close" in headers.lower()
+    return headers.split(b" ", 2)[1] == b"200", closing
+
+async def fast_client(deadline, latencies, errors):
+    reader, writer = await open_connection()
+    while time.monotonic() < deadline:
+        started = time.monotonic()
+        writer.write(FAST)
+        try:
+            ok, closing = await asyncio.wait_for(read_response(reader), timeout=10)
+        except (asyncio.TimeoutError, asyncio.IncompleteReadError, OSError) as e:
+            errors.append(type(e).__name__)
+            writer.close()
+            reader, writer = await open_connection()
+            continue
+        if ok:
+            latencies.append(time.monotonic() - started)
+        else:
+            errors.append("status")
+        if closing:
+            writer.close()
+            reader, writer = await open_connection()
+    writer.close()
+
+async def main():
+    stop, measuring = asyncio.Event(), asyncio.Event()
+    opened, received = [], [0]
+    slow = [asyncio.create_task(slow_client(opened, received, measuring, stop)) for _ in range(connections)]
+    ramp_deadline = time.monotonic() + 60
+    while len(opened) < connections and time.monotonic() < ramp_deadline:
+        await asyncio.sleep(0.5)
+    with open(ready_file, "w") as ready:
+        ready.write(str(len(opened)))
+    await asyncio.sleep(2)
+    latencies, errors = [], []
+    deadline = time.monotonic() + duration
+    measuring.set()
+    await asyncio.gather(*(fast_client(deadline, latencies, errors) for _ in range(fast_concurrency)))
+    stop.set()
+    for task in slow:
+        task.cancel()
+    latencies.sort()
+    p99 = latencies[int(len(latencies) * 0.99)] * 1000 if latencies else float("nan")
+    print(f"{len(latencies) / duration:.0f} {p99:.1f} {len(errors)} {received[0] / duration / 1024:.0f}", flush=True)
+    if errors:
+        print({kind: errors.count(kind) for kind in set(errors)}, file=sys.stderr, flush=True)
+    os._exit(0)
+
+asyncio.run(main())
+EOF
+}
+
+run_mode() {
+  local mode=$1 args=()
+  case "$mode" in
+    mvc) args=(--spring.threads.virtual.enabled=false) ;;
+    mvc-virtual) args=(--spring.threads.virtual.enabled=true) ;;
+    reactive) args=(--spring.profiles.active=reactive) ;;
+  esac
+  java -jar "$JAR" --server.port="$PORT" "${args[@]}" \
+    --server.tomcat.max-connections=20000 \
+    --server.tomcat.accept-count=20000 \
+    --logging.level.ru.yandex.practicum.filmorate=WARN \
+    --logging.level.org.zalando.logbook=OFF >"${SERVER_LOG:-/dev/null}" 2>&1 &
+  local pid=$!
+  # RETURN-ловушка сработала бы уже на возврате из вспомогательных функций, поэтому сервер гасится явно
+  trap "kill $pid 2>/dev/null || true" EXIT
+
+  until curl -sf "${BASE_URL}/actuator/health" >/dev/null; do sleep 0.5; done
+  seed_films
+  curl -sf "${BASE_URL}/films/1" >/dev/null
+  local idle_rss idle_threads ready
+  idle_rss=$(rss_kb "$pid")
+  idle_threads=$(live_threads)
+  ready=$(mktemp)
+
+  load "$ready" >"${ready}.out" &
+  local load_pid=$!
+  until [[ -s "$ready" ]]; do sleep 0.5; done
+  sleep 2
+  local loaded_rss opened loaded_threads
+  loaded_rss=$(rss_kb "$pid")
+  opened=$(cat "$ready")
+  loaded_threads=$(live_threads || echo "?")
+  wait "$load_pid"
+  read -r rps p99 errors slow_kbps <"${ready}.out"
+  rm -f "$ready" "${ready}.out"
+
+  printf '%-12s slow=%-6s rss/conn=%-8s threads=%s->%-6s slow read=%-8s fast rps=%-6s p99=%sms errors=%s\n' \
+    "$mode" "$opened" "$(( (loaded_rss - idle_rss) / (opened > 0 ? opened : 1) ))KB" "$idle_threads" "$loaded_threads" \
+    "${slow_kbps}KB/s" "$rps" "$p99" "$errors"
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+}
+
+for mode in $MODES; do
+  run_mode "$mode"
+done
@@ -0,0 +1,86 @@
+#!/usr/bin/env bash
+# Время до готовности (первый успешный GET /films) и RSS процесса для разных режимов запуска.
+# Режимы: default — обычный java -jar; lazy — профиль fast-startup; cds — распакованный jar с архивом AppCDS;
+# aot — классы Spring AOT (jar собран с -Paot). Режимы комбинируются через «+», например cds+lazy+aot.
+#
+#   mvn -Paot package -DskipTests && scripts/startup-benchmark.sh [runs]
+set -euo pipefail
+
+JAR=${JAR:-target/filmorate-0.0.1-SNAPSHOT.jar}
+PORT=${PORT:-18080}
+RUNS=${1:-5}
+MODES=${MODES:-"default lazy cds cds+lazy cds+lazy+aot"}
+WORK_DIR=${WORK_DIR:-target/startup}
+MAIN_CLASS=ru.yandex.practicum.filmorate.FilmorateApplication
+BASE_URL="http://localhost:${PORT}"
+
+# AppCDS принимает только обычные jar-файлы: ни вложенные jar, ни непустые каталоги в classpath
+prepare_exploded() {
+  rm -rf "$WORK_DIR" && mkdir -p "$WORK_DIR/app"
+  unzip -q "$JAR" -d "$WORK_DIR/app"
+  jar --create --file "$WORK_DIR/application.jar" -C "$WORK_DIR/app/BOOT-INF/classes" .
+  CLASSPATH_FILES="$WORK_DIR/application.jar:$(find "$WORK_DIR/app/BOOT-INF/lib" -name '*.jar' | sort | paste -sd:)"
+}
+
+mode_options() {
+  local mode=$1
+  [[ $mode == *aot* ]] && echo -Dspring.aot.enabled=true
+  [[ $mode == *lazy* ]] && echo -Dspring.profiles.active=fast-startup
+  return 0
+}
+
+archive_path() {
+  echo "$WORK_DIR/${1//+/-}.jsa"
+}
+
+# Обучающий запуск: контекст поднимается и процесс завершается сразу после refresh, загруженные классы уходят в архив
+train_archive() {
+  local mode=$1 archive
+  archive=$(archive_path "$mode")
+  # shellcheck disable=SC2046
+  java $(mode_options "$mode") -XX:ArchiveClassesAtExit="$archive" -Dspring.context.exit=onRefresh \
+    -cp "$CLASSPATH_FILES" "$MAIN_CLASS" --server.port="$PORT" >/dev/null 2>&1 || true
+  [[ -f $archive ]] || { echo "Не удалось создать архив $archive" >&2; exit 1; }
+}
+
+java_command() {
+  local mode=$1
+  if [[ $mode == *cds* ]]; then
+    echo java $(mode_options "$mode") -XX:SharedArchiveFile="$(archive_path "$mode")" -cp "$CLASSPATH_FILES" "$MAIN_CLASS"
+  else
+    echo java $(mode_options "$mode") -jar "$JAR"
+  fi
+}
+
+measure() {
+  local mode=$1 command start pid ready rss
+  command=$(java_command "$mode")
+  start=$(date +%s%N)
+  $command --server.port="$PORT" --logging.level.ru.yandex.practicum.filmorate=WARN >/dev/null 2>&1 &
+  pid=$!
+  until curl -sf "${BASE_URL}/films" >/dev/null; do
+    kill -0 "$pid" 2>/dev/null || { echo "Режим $mode: процесс завершился до готовности" >&2; exit 1; }
+    sleep 0.02
+  done
+  ready=$(( ($(date +%s%N) - start) / 1000000 ))
+  rss=$(awk '/VmRSS/ {print int($2 / 1024)}' "/proc/$pid/status")
+  kill "$pid" && wait "$pid" 2>/dev/null || true
+  echo "$ready $rss"
+}
+
+median() {
+  sort -n | awk '{v[NR] = $1} END {print v[int((NR + 1) / 2)]}'
+}
+
+if [[ $MODES == *aot* ]] && ! unzip -Z1 "$JAR" | grep '__ApplicationContextInitializer' >/dev/null; then
+  echo "В $JAR нет классов Spring AOT: соберите его с -Paot" >&2
+  exit 1
+fi
+[[ $MODES == *cds* ]] && prepare_exploded
+
+printf '%-14s %12s %10s\n' mode ready_ms rss_mb
+for mode in $MODES; do
+  [[ $mode == *cds* ]] && train_archive "$mode"
+  results=$(for _ in $(seq "$RUNS"); do measure "$mode"; done)
+  printf '%-14s %12s %10s\n' "$mode" "$(cut -d' ' -f1 <<<"$results" | median)" "$(cut -d' ' -f2 <<<"$results" | median)"
+done
@@ -0,0 +1,44 @@
+#!/usr/bin/env bash
+# Сравнение пропускной способности и p99 на платформенных и виртуальных потоках.
+# Хранилище замедляется на filmorate.storage.simulated-latency, нагрузку дает hey (https://github.com/rakyll/hey).
+#
+#   mvn package -DskipTests && scripts/virtual-threads-benchmark.sh [latency] [duration]
+set -euo pipefail
+
+JAR=${JAR:-target/filmorate-0.0.1-SNAPSHOT.jar}
+PORT=${PORT:-18080}
+LATENCY=${1:-20ms}
+DURATION=${2:-30s}
+CONCURRENCY_LEVELS=${CONCURRENCY_LEVELS:-"1000 10000"}
+BASE_URL="http://localhost:${PORT}"
+
+command -v hey >/dev/null || { echo "Не найден hey: go install github.com/rakyll/hey@latest" >&2; exit 1; }
+ulimit -n 65536 2>/dev/null || echo "Не удалось поднять лимит файловых дескрипторов, 10k соединений может не хватить" >&2
+
+run_mode() {
+  local mode=$1 virtual=$2
+  java -jar "$JAR" --server.port="$PORT" \
+    --spring.threads.virtual.enabled="$virtual" \
+    --filmorate.storage.simulated-latency="$LATENCY" \
+    --server.tomcat.max-connections=20000 \
+    --server.tomcat.accept-count=20000 \
+    --logging.level.ru.yandex.practicum.filmorate=WARN \
+    --logging.level.org.zalando.logbook=OFF >/dev/null 2>&1 &
+  local pid=$!
+  trap 'kill $pid 2>/dev/null || true' RETURN
+
+  until curl -sf "${BASE_URL}/actuator/health" >/dev/null; do sleep 0.5; done
+  curl -sf -X POST "${BASE_URL}/films" -H 'Content-Type: application/json' \
+    -d '{"name":"Фильм","description":"Описание","releaseDate":"2000-01-01","duration":120}' >/dev/null
+
+  for concurrency in $CONCURRENCY_LEVELS; do
+    local report
+    report=$(hey -z "$DURATION" -c "$concurrency" "${BASE_URL}/films/1")
+    printf '%-9s c=%-6s rps=%-10s p99=%s\n' "$mode" "$concurrency" \
+      "$(awk '/Requests\/sec/ {print $2}' <<<"$report")" \
+      "$(awk '/99% in/ {print $3 " " $4}' <<<"$report")"
+  done
+}
+
+run_mode platform false
+run_mode virtual true
@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+// Генерация наборов данных для бенчмарков со смещённым (степенным) распределением лайков и друзей
+final class BenchmarkData {
+    private BenchmarkData() {
+    }
+
+    // skew = 1 — равномерное распределение; чем больше skew, тем сильнее выборка тяготеет к первым id
+    static long skewedId(SplittableRandom random, long size, double skew) {
+        return 1 + Math.min(size - 1, (long) (size * Math.pow(random.nextDouble(), skew)));
+    }
+
+    static InMemoryFilmStorage films(int films, long users, long likes, double skew, long seed) {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        for (int i = 0; i < films; i++) {
+            storage.create(film(i));
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        for (long i = 0; i < likes; i++) {
+            storage.addLike(skewedId(random, films, skew), 1 + random.nextLong(users));
+        }
+        return storage;
+    }
+
+    static InMemoryUserStorage users(int users, long friendships, double skew, long seed) {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        for (int i = 0; i < users; i++) {
+            storage.create(user(i));
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        for (long i = 0; i < friendships; i++) {
+            long userId = skewedId(random, users, skew);
+            long friendId = 1 + random.nextLong(users);
+            if (userId != friendId) {
+                storage.addFriend(userId, friendId);
+            }
+        }
+        return storage;
+    }
+
+    static Film film(int index) {
+        Film film = new Film();
+        film.setName("Фильм " + index);
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(1950 + index % 70, 1 + index % 12, 1));
+        film.setDuration(60 + index % 120);
+        return film;
+    }
+
+    static User user(int index) {
+        User user = new User();
+        user.setEmail("user" + index + "@mail.com");
+        user.setLogin("user" + index);
+        user.setName("user" + index);
+        user.setBirthday(LocalDate.of(1970 + index % 40, 1, 1));
+        return user;
+    }
+}
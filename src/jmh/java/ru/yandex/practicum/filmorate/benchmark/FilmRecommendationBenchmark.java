@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikeWriteBuffer;
+import ru.yandex.practicum.filmorate.service.SingleFlight;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Рекомендации фильмов по лайкам похожих пользователей на миллионе пользователей
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class FilmRecommendationBenchmark {
+    private static final int FILMS = 100_000;
+
+    @Param({"1000000"})
+    private int users;
+
+    @Param({"10"})
+    private int averageLikes;
+
+    @Param({"3"})
+    private double skew;
+
+    private FilmService filmService;
+    private LikeWriteBuffer likeWriteBuffer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryUserStorage userStorage = BenchmarkData.users(users, 0, 1, 42);
+        InMemoryFilmStorage filmStorage = BenchmarkData.films(FILMS, users, (long) users * averageLikes, skew, 42);
+        likeWriteBuffer = new LikeWriteBuffer(filmStorage, false, 1, Duration.ofSeconds(1));
+        filmService = new FilmService(filmStorage, userStorage, likeWriteBuffer,
+                new SingleFlight(false, Duration.ofSeconds(1)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        likeWriteBuffer.shutdown();
+    }
+
+    @Benchmark
+    public List<Film> getRecommendedFilms(ThreadState state) {
+        return filmService.getRecommendedFilms(1 + state.random.nextLong(users), 10);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final SplittableRandom random = new SplittableRandom();
+    }
+}
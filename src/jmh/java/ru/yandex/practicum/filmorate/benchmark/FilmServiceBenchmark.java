@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikeWriteBuffer;
+import ru.yandex.practicum.filmorate.service.SingleFlight;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class FilmServiceBenchmark {
+    private static final int USERS = 10_000;
+
+    @Param({"10000", "100000"})
+    private int films;
+
+    @Param({"3"})
+    private double skew;
+
+    private FilmService filmService;
+    private LikeWriteBuffer likeWriteBuffer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryUserStorage userStorage = BenchmarkData.users(USERS, 0, 1, 42);
+        InMemoryFilmStorage filmStorage = BenchmarkData.films(films, USERS, films * 5L, skew, 42);
+        likeWriteBuffer = new LikeWriteBuffer(filmStorage, false, 1, Duration.ofSeconds(1));
+        filmService = new FilmService(filmStorage, userStorage, likeWriteBuffer,
+                new SingleFlight(false, Duration.ofSeconds(1)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        likeWriteBuffer.shutdown();
+    }
+
+    @Benchmark
+    public List<Film> getPopular() {
+        return filmService.getPopular(10);
+    }
+
+    @Benchmark
+    public Film getById(ThreadState state) {
+        return filmService.getById(BenchmarkData.skewedId(state.random, films, skew));
+    }
+
+    @Benchmark
+    public void addAndRemoveLike(ThreadState state) {
+        long filmId = BenchmarkData.skewedId(state.random, films, skew);
+        long userId = 1 + state.random.nextLong(USERS);
+        filmService.addLike(filmId, userId);
+        filmService.removeLike(filmId, userId);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final SplittableRandom random = new SplittableRandom();
+    }
+}
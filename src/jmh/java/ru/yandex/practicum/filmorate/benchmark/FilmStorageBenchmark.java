@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.PopularFilter;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class FilmStorageBenchmark {
+    private static final long USERS = 1_000_000;
+    private static final PopularFilter YEAR = new PopularFilter(1999, null, null);
+    private static final PopularFilter SHORT = new PopularFilter(null, null, 89);
+
+    @Param({"10000", "100000", "1000000"})
+    private int films;
+
+    @Param({"1", "3"})
+    private double skew;
+
+    @Param({"10", "100"})
+    private int count;
+
+    private InMemoryFilmStorage storage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        storage = BenchmarkData.films(films, USERS, films * 5L, skew, 42);
+    }
+
+    @Benchmark
+    public List<Film> getPopular() {
+        return storage.getPopular(count);
+    }
+
+    @Benchmark
+    public List<Film> getPopularByYear() {
+        return storage.getPopular(count, YEAR);
+    }
+
+    @Benchmark
+    public List<Film> getPopularShort() {
+        return storage.getPopular(count, SHORT);
+    }
+
+    // Базовая линия для корзин: фильтрация и сортировка всего каталога на каждый запрос
+    @Benchmark
+    public List<Film> getPopularByYearScan() {
+        return storage.getAll().stream()
+                .filter(YEAR::matches)
+                .sorted(Comparator.comparingInt(Film::getLikesCount).reversed().thenComparing(Film::getId))
+                .limit(count)
+                .toList();
+    }
+
+    @Benchmark
+    public void addAndRemoveLike(ThreadState state) {
+        long filmId = BenchmarkData.skewedId(state.random, films, skew);
+        long userId = USERS + 1 + state.random.nextLong(USERS);
+        storage.addLike(filmId, userId);
+        storage.removeLike(filmId, userId);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final SplittableRandom random = new SplittableRandom();
+    }
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.util.unit.DataSize;
+import ru.yandex.practicum.filmorate.controller.JsonFragmentCache;
+import ru.yandex.practicum.filmorate.controller.JsonFragmentHttpMessageConverter;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Сериализация ответа со 100 фильмами: общий конвертер Jackson против склейки закэшированных JSON-фрагментов.
+// Аллокации на запрос смотреть с -prof gc (gc.alloc.rate.norm)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonResponseBenchmark {
+    private static final int FILMS = 10_000;
+    private static final int RESPONSE_SIZE = 100;
+    private static final Type FILM_LIST = new ParameterizedTypeReference<List<Film>>() {
+    }.getType();
+
+    @Param({"jackson", "fragments"})
+    private String converter;
+
+    // popular — самые лайкнутые фильмы (сотни лайков у каждого), page — страница из хвоста каталога
+    @Param({"popular", "page"})
+    private String response;
+
+    private GenericHttpMessageConverter<Object> writer;
+    private List<Film> films;
+    private final BufferedOutputMessage output = new BufferedOutputMessage();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryFilmStorage storage = BenchmarkData.films(FILMS, 100_000, FILMS * 20L, 3, 42);
+        films = "popular".equals(response) ? storage.getPopular(RESPONSE_SIZE) : storage.getPage(FILMS - RESPONSE_SIZE, RESPONSE_SIZE);
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = "fragments".equals(converter)
+                ? new JsonFragmentHttpMessageConverter(new JsonFragmentCache(objectMapper, true, DataSize.ofMegabytes(64),
+                        new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class)))
+                : new MappingJackson2HttpMessageConverter(objectMapper);
+    }
+
+    @Benchmark
+    public int write() throws IOException {
+        output.reset();
+        writer.write(films, FILM_LIST, MediaType.APPLICATION_JSON, output);
+        return output.body.size();
+    }
+
+    // Переиспользуемый буфер вместо ответа сервлета: в замер попадает только сериализация
+    private static final class BufferedOutputMessage implements HttpOutputMessage {
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(1 << 20);
+        private HttpHeaders headers = new HttpHeaders();
+
+        void reset() {
+            body.reset();
+            headers = new HttpHeaders();
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
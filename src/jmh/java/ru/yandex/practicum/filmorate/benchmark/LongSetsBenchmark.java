@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+import ru.yandex.practicum.filmorate.util.LongSets;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Пересечение множеств друзей при разном перекосе размеров в сравнении с HashSet.retainAll
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LongSetsBenchmark {
+
+    @Param({"100", "1000"})
+    private int smallSize;
+
+    @Param({"1", "8", "64", "500"})
+    private int ratio;
+
+    private LongHashSet small;
+    private LongHashSet large;
+    private Set<Long> boxedSmall;
+    private Set<Long> boxedLarge;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        int largeSize = smallSize * ratio;
+        long universe = largeSize * 4L;
+        small = new LongHashSet();
+        large = new LongHashSet();
+        while (small.size() < smallSize) {
+            small.add(1 + random.nextLong(universe));
+        }
+        while (large.size() < largeSize) {
+            large.add(1 + random.nextLong(universe));
+        }
+        boxedSmall = new HashSet<>(small);
+        boxedLarge = new HashSet<>(large);
+    }
+
+    @Benchmark
+    public long[] intersect() {
+        return LongSets.intersect(small, large);
+    }
+
+    @Benchmark
+    public Set<Long> hashSetRetainAll() {
+        Set<Long> common = new HashSet<>(boxedSmall);
+        common.retainAll(boxedLarge);
+        return common;
+    }
+}
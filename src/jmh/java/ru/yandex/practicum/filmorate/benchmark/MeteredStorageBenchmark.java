@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.MeteredFilmStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Цена инструментирования: одно и то же хранилище без метрик и за MeteredFilmStorage, измеряющим
+// каждый вызов или, как по умолчанию в приложении, каждый 64-й
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeteredStorageBenchmark {
+    private static final int FILMS = 100_000;
+
+    @Param({"none", "simple", "prometheus", "prometheus-sampled"})
+    private String registry;
+
+    private FilmStorage storage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryFilmStorage films = BenchmarkData.films(FILMS, 100_000, FILMS * 5L, 3, 42);
+        storage = switch (registry) {
+            case "simple" -> new MeteredFilmStorage(films, new SimpleMeterRegistry());
+            case "prometheus" -> new MeteredFilmStorage(films, new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+            case "prometheus-sampled" -> new MeteredFilmStorage(films,
+                    new PrometheusMeterRegistry(PrometheusConfig.DEFAULT), 64);
+            default -> films;
+        };
+    }
+
+    @Benchmark
+    public Optional<Film> getById(ThreadState state) {
+        return storage.getById(1 + state.random.nextLong(FILMS));
+    }
+
+    @Benchmark
+    public List<Film> getPopular() {
+        return storage.getPopular(10);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final SplittableRandom random = new SplittableRandom();
+    }
+}
@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.SingleFlight;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Конкурентные одинаковые запросы друзей «знаменитости» (первые id при skew = 4 собирают большую часть дружб)
+// со схлопыванием и без. На одном ядре пропускная способность обратно пропорциональна CPU на запрос
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class SingleFlightBenchmark {
+    private static final int USERS = 100_000;
+    private static final ThreadLocal<boolean[]> LOADED = ThreadLocal.withInitial(() -> new boolean[1]);
+
+    @Param({"false", "true"})
+    private boolean singleFlight;
+
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryUserStorage storage = BenchmarkData.users(USERS, 1_000_000, 4, 42);
+        // Отмечает в потоке, вычислил ли запрос результат сам или получил общий
+        SingleFlight flights = new SingleFlight(singleFlight, Duration.ofSeconds(2)) {
+            @Override
+            public <T> T execute(String operation, Object key, Supplier<T> loader) {
+                boolean[] loaded = LOADED.get();
+                loaded[0] = false;
+                return super.execute(operation, key, () -> {
+                    loaded[0] = true;
+                    return loader.get();
+                });
+            }
+        };
+        userService = new UserService(storage, flights);
+    }
+
+    @Benchmark
+    public List<User> getFriends(Flights counters) {
+        List<User> friends = userService.getFriends(1L);
+        counters.record();
+        return friends;
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends(Flights counters) {
+        List<User> common = userService.getCommonFriends(1L, 2L);
+        counters.record();
+        return common;
+    }
+
+    // Счетчики попадают в отчет JMH рядом с пропускной способностью: сколько запросов вычислили результат сами
+    // и сколько получили его от параллельного запроса
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Flights {
+        public long loaded;
+        public long coalesced;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            loaded = 0;
+            coalesced = 0;
+        }
+
+        void record() {
+            if (LOADED.get()[0]) {
+                loaded++;
+            } else {
+                coalesced++;
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.SingleFlight;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class UserServiceBenchmark {
+
+    @Param({"10000", "100000"})
+    private int users;
+
+    @Param({"20", "200"})
+    private int averageFriends;
+
+    @Param({"1", "4"})
+    private double skew;
+
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryUserStorage storage = BenchmarkData.users(users, (long) users * averageFriends / 2, skew, 42);
+        userService = new UserService(storage, new SingleFlight(false, Duration.ofSeconds(1)));
+    }
+
+    @Benchmark
+    public List<User> getFriends(ThreadState state) {
+        return userService.getFriends(BenchmarkData.skewedId(state.random, users, skew));
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends(ThreadState state) {
+        long userId = BenchmarkData.skewedId(state.random, users, skew);
+        long otherId = BenchmarkData.skewedId(state.random, users, skew);
+        return userService.getCommonFriends(userId, otherId);
+    }
+
+    @Benchmark
+    public List<FriendRecommendation> getRecommendations(ThreadState state) {
+        return userService.getRecommendations(BenchmarkData.skewedId(state.random, users, skew), 10);
+    }
+
+    @Benchmark
+    public void addAndRemoveFriend(ThreadState state) {
+        long userId = BenchmarkData.skewedId(state.random, users, skew);
+        long friendId = 1 + state.random.nextLong(users);
+        if (userId == friendId) {
+            return;
+        }
+        userService.addFriend(userId, friendId);
+        userService.removeFriend(userId, friendId);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final SplittableRandom random = new SplittableRandom();
+    }
+}
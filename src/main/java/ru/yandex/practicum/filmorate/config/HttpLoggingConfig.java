@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+@Configuration
+public class HttpLoggingConfig {
+
+    // Заменяет условие Logbook по умолчанию: решение принимается до буферизации тела,
+    // поэтому невыбранные запросы не копируются в память и не форматируются.
+    // Потоки массового импорта не логируются никогда: их тело может занимать сотни мегабайт
+    @Bean
+    public Predicate<HttpRequest> requestCondition(
+            @Value("${filmorate.logging.http.sample-rate:1.0}") double sampleRate) {
+        Predicate<HttpRequest> loggable = request -> !request.getPath().startsWith("/actuator")
+                && !request.getPath().endsWith("/import");
+        if (sampleRate >= 1.0) {
+            return loggable;
+        }
+        if (sampleRate <= 0.0) {
+            return request -> false;
+        }
+        return loggable.and(request -> ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+}
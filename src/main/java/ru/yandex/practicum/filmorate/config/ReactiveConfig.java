@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Profile;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+
+    // Хранилища и сервисы синхронные (мониторы, JDBC), поэтому в реактивном профиле их вызовы уходят
+    // с потоков событий Netty на ограниченный эластичный пул
+    @Bean
+    public Scheduler storageScheduler() {
+        return Schedulers.boundedElastic();
+    }
+
+    // Tomcat остается в classpath ради профиля по умолчанию, и без явной фабрики Spring Boot запустил бы WebFlux
+    // поверх сервлетного адаптера Tomcat. Netty держит соединения без потока на каждое
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.controller.ErrorHandler;
+import ru.yandex.practicum.filmorate.controller.FilmController;
+import ru.yandex.practicum.filmorate.controller.UserController;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikeWriteBuffer;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.journal.JournalFactory;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+@Configuration
+public class StartupConfig {
+
+    // При spring.main.lazy-initialization=true (профиль fast-startup) бины пути запроса всё равно создаются
+    // при старте: первый запрос после масштабирования не должен платить за их создание и восстановление журнала
+    @Bean
+    public static LazyInitializationExcludeFilter requestPathBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(FilmController.class, UserController.class,
+                ErrorHandler.class, FilmService.class, UserService.class, LikeWriteBuffer.class,
+                FilmStorage.class, UserStorage.class, JournalFactory.class);
+    }
+}
@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.yandex.practicum.filmorate.controller.JsonFragmentCache;
+import ru.yandex.practicum.filmorate.controller.JsonFragmentHttpMessageConverter;
+
+import java.util.List;
+
+@Configuration
+@Profile("!reactive")
+public class WebConfig implements WebMvcConfigurer {
+    private final JsonFragmentCache fragments;
+
+    public WebConfig(JsonFragmentCache fragments) {
+        this.fragments = fragments;
+    }
+
+    // Конвертер фрагментов ставится первым: фильмы и пользователи не доходят до общего конвертера Jackson,
+    // остальные ответы (ошибки, отчеты импорта, рекомендации) сериализуются как раньше
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new JsonFragmentHttpMessageConverter(fragments));
+    }
+}
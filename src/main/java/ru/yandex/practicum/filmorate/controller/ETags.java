@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import ru.yandex.practicum.filmorate.model.PopularFilter;
+
+// Сильные ETag из версий хранилищ: ответ не меняется, пока не изменилась версия, по которой он построен.
+// Версия читается до выборки и сериализации, поэтому при гонке с записью клиент лишь получит тело повторно
+final class ETags {
+    private ETags() {
+    }
+
+    // Метка списка: в неё входят параметры запроса, чтобы метка одного списка не подошла к другому
+    static String of(String list, long version) {
+        return "\"" + list + "-" + Long.toHexString(version) + "\"";
+    }
+
+    static String popular(int count, PopularFilter filter, long version) {
+        return of("popular-" + count + "-" + filter.year() + "-" + filter.minDuration() + "-"
+                + filter.maxDuration(), version);
+    }
+
+    static String of(Long id, long version) {
+        return "\"" + id + "-" + Long.toHexString(version) + "\"";
+    }
+}
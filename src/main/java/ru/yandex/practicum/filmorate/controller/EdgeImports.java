@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.MediaType;
+import ru.yandex.practicum.filmorate.model.EdgeFormat;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+// Прием потоков связей для массового импорта лайков и дружбы в NDJSON или CSV
+final class EdgeImports {
+    static final String CSV_MEDIA_TYPE = "text/csv";
+
+    private EdgeImports() {
+    }
+
+    static EdgeFormat format(String contentType) {
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        return mediaType.isCompatibleWith(MediaType.parseMediaType(CSV_MEDIA_TYPE)) ? EdgeFormat.CSV : EdgeFormat.NDJSON;
+    }
+
+    static Reader reader(InputStream body) {
+        return new InputStreamReader(body, StandardCharsets.UTF_8);
+    }
+}
@@ -2,72 +2,153 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.ImportReport;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.PopularFilter;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import jakarta.validation.Valid;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.OptionalLong;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/films")
 @Slf4j
 public class FilmController {
+    private static final int DEFAULT_PAGE_SIZE = 100;
     private final FilmService filmService;
+    private final JsonFragmentCache fragments;
 
     @Autowired
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, JsonFragmentCache fragments) {
         this.filmService = filmService;
+        this.fragments = fragments;
     }
 
     @PostMapping
     public ResponseEntity<Film> create(@Valid @RequestBody Film film) {
-        log.info("POST /films - создание фильма: {}", film.getName());
+        if (log.isDebugEnabled()) {
+            log.debug("POST /films - создание фильма: {}", film.getName());
+        }
         Film createdFilm = filmService.create(film);
         return ResponseEntity.status(HttpStatus.CREATED).body(createdFilm);
     }
 
     @PutMapping
     public ResponseEntity<Film> update(@Valid @RequestBody Film film) {
-        log.info("PUT /films - обновление фильма с ID: {}", film.getId());
+        if (log.isDebugEnabled()) {
+            log.debug("PUT /films - обновление фильма с ID: {}", film.getId());
+        }
         Film updatedFilm = filmService.update(film);
         return ResponseEntity.ok(updatedFilm);
     }
 
     @GetMapping
-    public ResponseEntity<List<Film>> getAll() {
-        log.info("GET /films - получение всех фильмов");
-        List<Film> films = filmService.getAll();
-        return ResponseEntity.ok(films);
+    public ResponseEntity<List<Film>> getAll(@RequestParam(required = false) Long after,
+                                            @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            log.debug("GET /films - получение всех фильмов");
+            List<Film> films = filmService.getAll();
+            return ResponseEntity.ok(films);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("GET /films?after={}&limit={} - получение страницы фильмов", after, limit);
+        }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        List<Film> films = filmService.getPage(after == null ? 0 : after, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (films.size() == pageSize) {
+            response.header(NdjsonResponses.NEXT_CURSOR_HEADER, String.valueOf(films.getLast().getId()));
+        }
+        return response.body(films);
+    }
+
+    @GetMapping(produces = NdjsonResponses.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> stream() {
+        log.debug("GET /films - потоковая выдача фильмов в NDJSON");
+        StreamingResponseBody body = NdjsonResponses.stream(fragments,
+                afterId -> filmService.getPage(afterId, NdjsonResponses.STREAM_PAGE_SIZE), Film::getId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NdjsonResponses.MEDIA_TYPE))
+                .body(body);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Film> getById(@PathVariable Long id) {
-        log.info("GET /films/{} - получение фильма по ID", id);
+    public ResponseEntity<Film> getById(@PathVariable Long id, WebRequest request) {
+        if (log.isDebugEnabled()) {
+            log.debug("GET /films/{} - получение фильма по ID", id);
+        }
         Film film = filmService.getById(id);
+        if (filmService.getVersion().isPresent() && request.checkNotModified(ETags.of(id, film.getVersion()))) {
+            return null;
+        }
         return ResponseEntity.ok(film);
     }
 
     @PutMapping("/{id}/like/{userId}")
     public ResponseEntity<Void> addLike(@PathVariable Long id, @PathVariable Long userId) {
-        log.info("PUT /films/{}/like/{} - добавление лайка", id, userId);
+        if (log.isDebugEnabled()) {
+            log.debug("PUT /films/{}/like/{} - добавление лайка", id, userId);
+        }
         filmService.addLike(id, userId);
         return ResponseEntity.ok().build();
     }
 
     @DeleteMapping("/{id}/like/{userId}")
     public ResponseEntity<Void> removeLike(@PathVariable Long id, @PathVariable Long userId) {
-        log.info("DELETE /films/{}/like/{} - удаление лайка", id, userId);
+        if (log.isDebugEnabled()) {
+            log.debug("DELETE /films/{}/like/{} - удаление лайка", id, userId);
+        }
         filmService.removeLike(id, userId);
         return ResponseEntity.ok().build();
     }
 
     @GetMapping("/popular")
-    public ResponseEntity<List<Film>> getPopular(@RequestParam(defaultValue = "10") int count) {
-        log.info("GET /films/popular?count={} - получение популярных фильмов", count);
-        List<Film> films = filmService.getPopular(count);
+    public ResponseEntity<List<Film>> getPopular(@RequestParam(defaultValue = "10") int count,
+                                                 @RequestParam(required = false) Integer year,
+                                                 @RequestParam(required = false) Integer minDuration,
+                                                 @RequestParam(required = false) Integer maxDuration,
+                                                 WebRequest request) {
+        if (log.isDebugEnabled()) {
+            log.debug("GET /films/popular?count={}&year={}&minDuration={}&maxDuration={} - получение популярных фильмов",
+                    count, year, minDuration, maxDuration);
+        }
+        // Совпавший ETag отвечается 304 после проверки параметров, но до выборки из индекса популярности
+        PopularFilter filter = new PopularFilter(year, minDuration, maxDuration);
+        OptionalLong version = filmService.getPopularVersion(count, filter);
+        if (version.isPresent() && request.checkNotModified(ETags.popular(count, filter, version.getAsLong()))) {
+            return null;
+        }
+        List<Film> films = filmService.getPopular(count, filter);
         return ResponseEntity.ok(films);
     }
-}
\ No newline at end of file
+
+    // Без ETag: список меняется со сдвигом окна, даже когда в хранилище ничего не записывалось
+    @GetMapping("/trending")
+    public ResponseEntity<List<Film>> getTrending(@RequestParam(defaultValue = "24h") String window,
+                                                  @RequestParam(defaultValue = "10") int count) {
+        if (log.isDebugEnabled()) {
+            log.debug("GET /films/trending?window={}&count={} - получение фильмов в тренде", window, count);
+        }
+        return ResponseEntity.ok(filmService.getTrending(count, TrendingWindow.parse(window)));
+    }
+
+    @PostMapping(value = "/likes/import", consumes = {NdjsonResponses.MEDIA_TYPE, EdgeImports.CSV_MEDIA_TYPE})
+    public ResponseEntity<ImportReport> importLikes(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                    InputStream body) {
+        log.debug("POST /films/likes/import - массовый импорт лайков");
+        ImportReport report = filmService.importLikes(EdgeImports.reader(body), EdgeImports.format(contentType));
+        return ResponseEntity.ok(report);
+    }
+}
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+// Кэш готового UTF-8 JSON фильмов и пользователей: сущность сериализуется один раз и отдается байтами,
+// пока не изменится. Ключ — сам экземпляр (по ссылке, слабо): обновление в хранилище подменяет объект,
+// а лайки и дружба увеличивают его версию, поэтому устаревший фрагмент никогда не попадает в ответ
+@Component
+@Slf4j
+public class JsonFragmentCache {
+    private final ObjectWriter writer;
+    private final Cache<Object, Fragment> cache;
+
+    public JsonFragmentCache(ObjectMapper objectMapper,
+                             @Value("${filmorate.json.fragment-cache.enabled:true}") boolean enabled,
+                             @Value("${filmorate.json.fragment-cache.max-size:64MB}") DataSize maxSize,
+                             ObjectProvider<MeterRegistry> meterRegistry) {
+        this.writer = objectMapper.writer();
+        if (!enabled) {
+            this.cache = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .weakKeys()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Object entity, Fragment fragment) -> fragment.json().length)
+                .recordStats()
+                .build();
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, "json-fragments"));
+        log.info("Включен кэш JSON-фрагментов: до {}", maxSize);
+    }
+
+    static boolean supports(Class<?> type) {
+        return Film.class == type || User.class == type;
+    }
+
+    // Возвращает общий массив из кэша: вызывающий код только пишет его в ответ и не изменяет
+    public byte[] get(Object entity) {
+        if (cache == null) {
+            return encode(entity);
+        }
+        long version = version(entity);
+        Fragment fragment = cache.getIfPresent(entity);
+        if (fragment != null && fragment.version() == version) {
+            return fragment.json();
+        }
+        // Версия читается до сериализации: если сущность изменится по ходу записи,
+        // фрагмент останется с прежней версией и будет пересобран при следующем чтении
+        byte[] json = encode(entity);
+        cache.put(entity, new Fragment(version, json));
+        return json;
+    }
+
+    private byte[] encode(Object entity) {
+        try {
+            return writer.writeValueAsBytes(entity);
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotWritableException("Не удалось сериализовать " + entity.getClass().getSimpleName(), e);
+        }
+    }
+
+    private static long version(Object entity) {
+        if (entity instanceof Film film) {
+            return film.getVersion();
+        }
+        if (entity instanceof User user) {
+            return user.getVersion();
+        }
+        throw new IllegalArgumentException("Кэш JSON-фрагментов не поддерживает " + entity.getClass().getName());
+    }
+
+    private record Fragment(long version, byte[] json) {
+    }
+}
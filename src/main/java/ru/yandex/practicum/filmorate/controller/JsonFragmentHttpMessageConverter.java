@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+// Пишет фильмы, пользователей и их коллекции из кэша JSON-фрагментов: список собирается склейкой
+// готовых байтов прямо в выходной буфер, без повторного прохода Jackson по лайкам и друзьям.
+// Чтение тела запроса остается за стандартным конвертером Jackson
+public class JsonFragmentHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+    private final JsonFragmentCache fragments;
+
+    public JsonFragmentHttpMessageConverter(JsonFragmentCache fragments) {
+        super(MediaType.APPLICATION_JSON);
+        this.fragments = fragments;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return JsonFragmentCache.supports(clazz);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+        if (JsonFragmentCache.supports(clazz)) {
+            return true;
+        }
+        // Коллекция подходит, только если объявленный тип элементов — Film или User
+        if (type == null || !Collection.class.isAssignableFrom(clazz)) {
+            return false;
+        }
+        ResolvableType declared = ResolvableType.forType(type);
+        return Collection.class.isAssignableFrom(declared.toClass())
+                && JsonFragmentCache.supports(declared.asCollection().resolveGeneric(0));
+    }
+
+    @Override
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        OutputStream body = outputMessage.getBody();
+        if (!(value instanceof Collection<?> entities)) {
+            body.write(fragments.get(value));
+            return;
+        }
+        body.write('[');
+        boolean first = true;
+        for (Object entity : entities) {
+            if (!first) {
+                body.write(',');
+            }
+            body.write(entity == null ? NULL : fragments.get(entity));
+            first = false;
+        }
+        body.write(']');
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Конвертер JSON-фрагментов не читает тела запросов", inputMessage);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Конвертер JSON-фрагментов не читает тела запросов", inputMessage);
+    }
+}
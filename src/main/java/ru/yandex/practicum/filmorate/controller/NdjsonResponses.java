@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+// Потоковая выдача коллекций в формате NDJSON: сущности пишутся в ответ постранично, без сборки полного списка
+final class NdjsonResponses {
+    static final String MEDIA_TYPE = "application/x-ndjson";
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int STREAM_PAGE_SIZE = 500;
+
+    private NdjsonResponses() {
+    }
+
+    static <T> StreamingResponseBody stream(JsonFragmentCache fragments, LongFunction<List<T>> pageLoader,
+                                            Function<T, Long> idGetter) {
+        return outputStream -> {
+            long afterId = 0;
+            List<T> page = pageLoader.apply(afterId);
+            while (!page.isEmpty()) {
+                for (T entity : page) {
+                    outputStream.write(fragments.get(entity));
+                    outputStream.write('\n');
+                }
+                outputStream.flush();
+                afterId = idGetter.apply(page.getLast());
+                page = pageLoader.apply(afterId);
+            }
+        };
+    }
+}
@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.model.PopularFilter;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import ru.yandex.practicum.filmorate.service.ReactiveFilmService;
+
+import java.util.List;
+
+// Те же маршруты /films, что у FilmController, на WebFlux (профиль reactive)
+@RestController
+@RequestMapping("/films")
+@Profile("reactive")
+@Slf4j
+public class ReactiveFilmController {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private final ReactiveFilmService filmService;
+
+    public ReactiveFilmController(ReactiveFilmService filmService) {
+        this.filmService = filmService;
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<Film>> create(@Valid @RequestBody Film film) {
+        if (log.isDebugEnabled()) {
+            log.debug("POST /films - создание фильма: {}", film.getName());
+        }
+        return filmService.create(film).map(created -> ResponseEntity.status(HttpStatus.CREATED).body(created));
+    }
+
+    @PutMapping
+    public Mono<ResponseEntity<Film>> update(@Valid @RequestBody Film film) {
+        if (log.isDebugEnabled()) {
+            log.debug("PUT /films - обновление фильма с ID: {}", film.getId());
+        }
+        return filmService.update(film).map(ResponseEntity::ok);
+    }
+
+    // Без параметров страницы весь список отдается потоком (JSON-массивом или NDJSON) по мере спроса клиента:
+    // следующая порция читается из хранилища, только когда Netty отправил предыдущую
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, NdjsonResponses.MEDIA_TYPE})
+    public Mono<ResponseEntity<Flux<Film>>> getAll(@RequestParam(required = false) Long after,
+                                                   @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            log.debug("GET /films - потоковая выдача всех фильмов");
+            return Mono.just(ResponseEntity.ok(filmService.getAll()));
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("GET /films?after={}&limit={} - получение страницы фильмов", after, limit);
+        }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        return filmService.getPage(after == null ? 0 : after, pageSize).map(films -> {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (films.size() == pageSize) {
+                response.header(NdjsonResponses.NEXT_CURSOR_HEADER, String.valueOf(films.getLast().getId()));
+            }
+            return response.body(Flux.fromIterable(films));
+        });
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Film>> getById(@PathVariable Long id, ServerWebExchange exchange) {
+        if (log.isDebugEnabled()) {
+            log.debug("GET /films/{} - получение фильма по ID", id);
+        }
+        return filmService.getById(id).zipWith(filmService.getVersion()).flatMap(filmAndVersion -> {
+            Film film = filmAndVersion.getT1();
+            if (filmAndVersion.getT2().isPresent() && exchange.checkNotModified(ETags.of(id, film.getVersion()))) {
+                return Mono.empty();
+            }
+            return Mono.just(ResponseEntity.ok(film));
+        });
+    }
+
+    @PutMapping("/{id}/like/{userId}")
+    public Mono<ResponseEntity<Void>> addLike(@PathVariable Long id, @PathVariable Long userId) {
+        if (log.isDebugEnabled()) {
+            log.debug("PUT /films/{}/like/{} - добавление лайка", id, userId);
+        }
+        return filmService.addLike(id, userId).then(Mono.just(ResponseEntity.ok().build()));
+    }
+
+    @DeleteMapping("/{id}/like/{userId}")
+    public Mono<ResponseEntity<Void>> removeLike(@PathVariable Long id, @PathVariable Long userId) {
+        if (log.isDebugEnabled()) {
+            log.debug("DELETE /films/{}/like/{} - удаление лайка", id, userId);
+        }
+        return filmService.removeLike(id, userId).then(Mono.just(ResponseEntity.ok().build()));
+    }
+
+    @GetMapping("/popular")
+    public Mono<ResponseEntity<List<Film>>> getPopular(@RequestParam(defaultValue = "10") int count,
+                                                       @RequestParam(required = false) Integer year,
+                                                       @RequestParam(required = false) Integer minDuration,
+                                                       @RequestParam(required = false) Integer maxDuration,
+                                                       ServerWebExchange exchange) {
+        if (log.isDebugEnabled()) {
+            log.debug("GET /films/popular?count={}&year={}&minDuration={}&maxDuration={} - получение популярных фильмов",
+                    count, year, minDuration, maxDuration);
+        }
+        PopularFilter filter = new PopularFilter(year, minDuration, maxDuration);
+        return filmService.getPopularVersion(count, filter).flatMap(version -> {
+            if (version.isPresent() && exchange.checkNotModified(ETags.popular(count, filter, version.getAsLong()))) {
+                return Mono.empty();
+            }
+            return filmService.getPopular(count, filter).map(ResponseEntity::ok);
+        });
+    }
+
+    @GetMapping("/trending")
+    public Mono<ResponseEntity<List<Film>>> getTrending(@RequestParam(defaultValue = "24h") String window,
+                                                        @RequestParam(defaultValue = "10") int count) {
+        if (log.isDebugEnabled()) {
+            log.debug("GET /films/trending?window={}&count={} - получение фильмов в тренде", window, count);
+        }
+        return filmService.getTrending(count, TrendingWindow.parse(window)).map(ResponseEntity::ok);
+    }
+
+    @PostMapping(value = "/likes/import", consumes = {NdjsonResponses.MEDIA_TYPE, EdgeImports.CSV_MEDIA_TYPE})
+    public Mono<ResponseEntity<ImportReport>> importLikes(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                          @RequestBody Flux<String> lines) {
+        log.debug("POST /films/likes/import - массовый импорт лайков");
+        // WebFlux отдает тело строками по мере чтения из сети, файл целиком в памяти не собирается
+        return filmService.importLikes(lines, EdgeImports.format(contentType)).map(ResponseEntity::ok);
+    }
+}
@@ -0,0 +1,166 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.ReactiveFilmService;
+import ru.yandex.practicum.filmorate.service.ReactiveUserService;
+
+import java.util.List;
+import java.util.OptionalLong;
+
+// Те же маршруты /users, что у UserController, на WebFlux (профиль reactive)
+@RestController
+@RequestMapping("/users")
+@Profile("reactive")
+@Slf4j
+public class ReactiveUserController {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private final ReactiveUserService userService;
+    private final ReactiveFilmService filmService;
+
+    public ReactiveUserController(ReactiveUserService userService, ReactiveFilmService filmService) {
+        this.userService = userService;
+        this.filmService = filmService;
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<User>> create(@Valid @RequestBody User user) {
+        log.debug("POST /users - создание пользователя");
+        return userService.create(user).map(created -> ResponseEntity.status(HttpStatus.CREATED).body(created));
+    }
+
+    @PutMapping
+    public Mono<ResponseEntity<User>> update(@Valid @RequestBody User user) {
+        if (log.isDebugEnabled()) {
+            log.debug("PUT /users - обновление пользователя с ID: {}", user.getId());
+        }
+        return userService.update(user).map(ResponseEntity::ok);
+    }
+
+    // Без параметров страницы весь список отдается потоком (JSON-массивом или NDJSON) по мере спроса клиента:
+    // следующая порция читается из хранилища, только когда Netty отправил предыдущую
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, NdjsonResponses.MEDIA_TYPE})
+    public Mono<ResponseEntity<Flux<User>>> getAll(@RequestParam(required = false) Long after,
+                                                   @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            log.debug("GET /users - потоковая выдача всех пользователей");
+            return Mono.just(ResponseEntity.ok(userService.getAll()));
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("GET /users?after={}&limit={} - получение страницы пользователей", after, limit);
+        }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        return userService.getPage(after == null ? 0 : after, pageSize).map(users -> {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (users.size() == pageSize) {
+                response.header(NdjsonResponses.NEXT_CURSOR_HEADER, String.valueOf(users.getLast().getId()));
+            }
+            return response.body(Flux.fromIterable(users));
+        });
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<User>> getById(@PathVariable Long id, ServerWebExchange exchange) {
+        if (log.isDebugEnabled()) {
+            log.debug("GET /users/{} - получение пользователя по ID", id);
+        }
+        return userService.getById(id).zipWith(userService.getVersion()).flatMap(userAndVersion -> {
+            User user = userAndVersion.getT1();
+            if (userAndVersion.getT2().isPresent() && exchange.checkNotModified(ETags.of(id, user.getVersion()))) {
+                return Mono.empty();
+            }
+            return Mono.just(ResponseEntity.ok(user));
+        });
+    }
+
+    @PutMapping("/{id}/friends/{friendId}")
+    public Mono<ResponseEntity<Void>> addFriend(@PathVariable Long id, @PathVariable Long friendId) {
+        if (log.isDebugEnabled()) {
+            log.debug("PUT /users/{}/friends/{} - добавление друга", id, friendId);
+        }
+        return userService.addFriend(id, friendId).then(Mono.just(ResponseEntity.ok().build()));
+    }
+
+    @DeleteMapping("/{id}/friends/{friendId}")
+    public Mono<ResponseEntity<Void>> removeFriend(@PathVariable Long id, @PathVariable Long friendId) {
+        if (log.isDebugEnabled()) {
+            log.debug("DELETE /users/{}/friends/{} - удаление друга", id, friendId);
+        }
+        return userService.removeFriend(id, friendId).then(Mono.just(ResponseEntity.ok().build()));
+    }
+
+    @GetMapping("/{id}/friends")
+    public Mono<ResponseEntity<List<User>>> getFriends(@PathVariable Long id, ServerWebExchange exchange) {
+        if (log.isDebugEnabled()) {
+            log.debug("GET /users/{}/friends - получение друзей пользователя", id);
+        }
+        return userService.getFriendsVersion(id).flatMap(version -> notModified("friends-" + id, version, exchange)
+                ? Mono.empty()
+                : userService.getFriends(id).map(ResponseEntity::ok));
+    }
+
+    @GetMapping("/{id}/friends/common/{otherId}")
+    public Mono<ResponseEntity<List<User>>> getCommonFriends(@PathVariable Long id, @PathVariable Long otherId,
+                                                             ServerWebExchange exchange) {
+        if (log.isDebugEnabled()) {
+            log.debug("GET /users/{}/friends/common/{} - получение общих друзей", id, otherId);
+        }
+        return userService.getCommonFriendsVersion(id, otherId).flatMap(version ->
+                notModified("common-" + id + "-" + otherId, version, exchange)
+                        ? Mono.empty()
+                        : userService.getCommonFriends(id, otherId).map(ResponseEntity::ok));
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public Mono<ResponseEntity<List<FriendRecommendation>>> getRecommendations(@PathVariable Long id,
+                                                                               @RequestParam(defaultValue = "10")
+                                                                               int count) {
+        if (log.isDebugEnabled()) {
+            log.debug("GET /users/{}/recommendations?count={} - подбор кандидатов в друзья", id, count);
+        }
+        return userService.getRecommendations(id, count).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/{id}/liked-films")
+    public Mono<ResponseEntity<List<Film>>> getLikedFilms(@PathVariable Long id) {
+        if (log.isDebugEnabled()) {
+            log.debug("GET /users/{}/liked-films - получение лайкнутых фильмов", id);
+        }
+        return filmService.getLikedFilms(id).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/{id}/recommended-films")
+    public Mono<ResponseEntity<List<Film>>> getRecommendedFilms(@PathVariable Long id,
+                                                                @RequestParam(defaultValue = "10") int count) {
+        if (log.isDebugEnabled()) {
+            log.debug("GET /users/{}/recommended-films?count={} - подбор фильмов по лайкам похожих пользователей",
+                    id, count);
+        }
+        return filmService.getRecommendedFilms(id, count).map(ResponseEntity::ok);
+    }
+
+    @PostMapping(value = "/friends/import", consumes = {NdjsonResponses.MEDIA_TYPE, EdgeImports.CSV_MEDIA_TYPE})
+    public Mono<ResponseEntity<ImportReport>> importFriends(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                            @RequestBody Flux<String> lines) {
+        log.debug("POST /users/friends/import - массовый импорт дружбы");
+        // WebFlux отдает тело строками по мере чтения из сети, файл целиком в памяти не собирается
+        return userService.importFriends(lines, EdgeImports.format(contentType)).map(ResponseEntity::ok);
+    }
+
+    private static boolean notModified(String list, OptionalLong version, ServerWebExchange exchange) {
+        return version.isPresent() && exchange.checkNotModified(ETags.of(list, version.getAsLong()));
+    }
+}
@@ -2,79 +2,183 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+import ru.yandex.practicum.filmorate.model.ImportReport;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 import jakarta.validation.Valid;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.OptionalLong;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/users")
 @Slf4j
 public class UserController {
+    private static final int DEFAULT_PAGE_SIZE = 100;
     private final UserService userService;
+    private final FilmService filmService;
+    private final JsonFragmentCache fragments;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, FilmService filmService, JsonFragmentCache fragments) {
         this.userService = userService;
+        this.filmService = filmService;
+        this.fragments = fragments;
     }
 
     @PostMapping
     public ResponseEntity<User> create(@Valid @RequestBody User user) {
-        log.info("POST /users - создание пользователя");
+        log.debug("POST /users - создание пользователя");
         User createdUser = userService.create(user);
         return ResponseEntity.status(HttpStatus.CREATED).body(createdUser);
     }
 
     @PutMapping
     public ResponseEntity<User> update(@Valid @RequestBody User user) {
-        log.info("PUT /users - обновление пользователя с ID: {}", user.getId());
+        if (log.isDebugEnabled()) {
+            log.debug("PUT /users - обновление пользователя с ID: {}", user.getId());
+        }
         User updatedUser = userService.update(user);
         return ResponseEntity.ok(updatedUser);
     }
 
     @GetMapping
-    public ResponseEntity<List<User>> getAll() {
-        log.info("GET /users - получение всех пользователей");
-        List<User> users = userService.getAll();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<List<User>> getAll(@RequestParam(required = false) Long after,
+                                            @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            log.debug("GET /users - получение всех пользователей");
+            List<User> users = userService.getAll();
+            return ResponseEntity.ok(users);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("GET /users?after={}&limit={} - получение страницы пользователей", after, limit);
+        }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        List<User> users = userService.getPage(after == null ? 0 : after, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (users.size() == pageSize) {
+            response.header(NdjsonResponses.NEXT_CURSOR_HEADER, String.valueOf(users.getLast().getId()));
+        }
+        return response.body(users);
+    }
+
+    @GetMapping(produces = NdjsonResponses.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> stream() {
+        log.debug("GET /users - потоковая выдача пользователей в NDJSON");
+        StreamingResponseBody body = NdjsonResponses.stream(fragments,
+                afterId -> userService.getPage(afterId, NdjsonResponses.STREAM_PAGE_SIZE), User::getId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NdjsonResponses.MEDIA_TYPE))
+                .body(body);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<User> getById(@PathVariable Long id) {
-        log.info("GET /users/{} - получение пользователя по ID", id);
+    public ResponseEntity<User> getById(@PathVariable Long id, WebRequest request) {
+        if (log.isDebugEnabled()) {
+            log.debug("GET /users/{} - получение пользователя по ID", id);
+        }
         User user = userService.getById(id);
+        if (userService.getVersion().isPresent() && request.checkNotModified(ETags.of(id, user.getVersion()))) {
+            return null;
+        }
         return ResponseEntity.ok(user);
     }
 
     @PutMapping("/{id}/friends/{friendId}")
     public ResponseEntity<Void> addFriend(@PathVariable Long id, @PathVariable Long friendId) {
-        log.info("PUT /users/{}/friends/{} - добавление друга", id, friendId);
+        if (log.isDebugEnabled()) {
+            log.debug("PUT /users/{}/friends/{} - добавление друга", id, friendId);
+        }
         userService.addFriend(id, friendId);
         return ResponseEntity.ok().build();
     }
 
     @DeleteMapping("/{id}/friends/{friendId}")
     public ResponseEntity<Void> removeFriend(@PathVariable Long id, @PathVariable Long friendId) {
-        log.info("DELETE /users/{}/friends/{} - удаление друга", id, friendId);
+        if (log.isDebugEnabled()) {
+            log.debug("DELETE /users/{}/friends/{} - удаление друга", id, friendId);
+        }
         userService.removeFriend(id, friendId);
         return ResponseEntity.ok().build();
     }
 
     @GetMapping("/{id}/friends")
-    public ResponseEntity<List<User>> getFriends(@PathVariable Long id) {
-        log.info("GET /users/{}/friends - получение друзей пользователя", id);
+    public ResponseEntity<List<User>> getFriends(@PathVariable Long id, WebRequest request) {
+        if (log.isDebugEnabled()) {
+            log.debug("GET /users/{}/friends - получение друзей пользователя", id);
+        }
+        // Список зависит и от самих друзей, поэтому ETag строится по версии всего хранилища
+        OptionalLong version = userService.getFriendsVersion(id);
+        if (version.isPresent() && request.checkNotModified(ETags.of("friends-" + id, version.getAsLong()))) {
+            return null;
+        }
         List<User> friends = userService.getFriends(id);
         return ResponseEntity.ok(friends);
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
-    public ResponseEntity<List<User>> getCommonFriends(@PathVariable Long id, @PathVariable Long otherId) {
-        log.info("GET /users/{}/friends/common/{} - получение общих друзей", id, otherId);
+    public ResponseEntity<List<User>> getCommonFriends(@PathVariable Long id, @PathVariable Long otherId,
+                                                       WebRequest request) {
+        if (log.isDebugEnabled()) {
+            log.debug("GET /users/{}/friends/common/{} - получение общих друзей", id, otherId);
+        }
+        OptionalLong version = userService.getCommonFriendsVersion(id, otherId);
+        if (version.isPresent()
+                && request.checkNotModified(ETags.of("common-" + id + "-" + otherId, version.getAsLong()))) {
+            return null;
+        }
         List<User> commonFriends = userService.getCommonFriends(id, otherId);
         return ResponseEntity.ok(commonFriends);
     }
-}
\ No newline at end of file
+
+    @GetMapping("/{id}/recommendations")
+    public ResponseEntity<List<FriendRecommendation>> getRecommendations(@PathVariable Long id,
+                                                                         @RequestParam(defaultValue = "10") int count) {
+        if (log.isDebugEnabled()) {
+            log.debug("GET /users/{}/recommendations?count={} - подбор кандидатов в друзья", id, count);
+        }
+        List<FriendRecommendation> recommendations = userService.getRecommendations(id, count);
+        return ResponseEntity.ok(recommendations);
+    }
+
+    @GetMapping("/{id}/liked-films")
+    public ResponseEntity<List<Film>> getLikedFilms(@PathVariable Long id) {
+        if (log.isDebugEnabled()) {
+            log.debug("GET /users/{}/liked-films - получение лайкнутых фильмов", id);
+        }
+        List<Film> films = filmService.getLikedFilms(id);
+        return ResponseEntity.ok(films);
+    }
+
+    @GetMapping("/{id}/recommended-films")
+    public ResponseEntity<List<Film>> getRecommendedFilms(@PathVariable Long id,
+                                                          @RequestParam(defaultValue = "10") int count) {
+        if (log.isDebugEnabled()) {
+            log.debug("GET /users/{}/recommended-films?count={} - подбор фильмов по лайкам похожих пользователей",
+                    id, count);
+        }
+        List<Film> films = filmService.getRecommendedFilms(id, count);
+        return ResponseEntity.ok(films);
+    }
+
+    @PostMapping(value = "/friends/import", consumes = {NdjsonResponses.MEDIA_TYPE, EdgeImports.CSV_MEDIA_TYPE})
+    public ResponseEntity<ImportReport> importFriends(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                      InputStream body) {
+        log.debug("POST /users/friends/import - массовый импорт дружбы");
+        ImportReport report = userService.importFriends(EdgeImports.reader(body), EdgeImports.format(contentType));
+        return ResponseEntity.ok(report);
+    }
+}
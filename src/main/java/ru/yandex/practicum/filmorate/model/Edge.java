@@ -0,0 +1,5 @@
+package ru.yandex.practicum.filmorate.model;
+
+// Связь между двумя сущностями при массовом импорте: фильм–пользователь для лайков, пользователь–друг для дружбы
+public record Edge(long from, long to) {
+}
@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.model;
+
+// Формат потока связей при массовом импорте
+public enum EdgeFormat {
+    // Объект на строку: {"filmId": 1, "userId": 2}
+    NDJSON,
+    // Два id через запятую на строку, необязательная строка заголовка
+    CSV
+}
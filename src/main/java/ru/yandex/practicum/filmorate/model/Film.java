@@ -1,16 +1,21 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import jakarta.validation.constraints.*;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
 
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 @Getter
 @Setter
 public class Film {
+    private static final AtomicLongFieldUpdater<Film> VERSION =
+            AtomicLongFieldUpdater.newUpdater(Film.class, "version");
+
     private Long id;
 
     @NotBlank(message = "Название не может быть пустым")
@@ -25,14 +30,35 @@ public class Film {
     @Positive(message = "Продолжительность должна быть положительным числом")
     private Integer duration;
 
-    private Set<Long> likes = new HashSet<>();
+    private final LongHashSet likes = new LongHashSet();
+
+    // Версия экземпляра: растёт после правки лайков, по ней сверяются закэшированные JSON-фрагменты и ETag.
+    // Хранилища с версиями проставляют её из общего счётчика, чтобы значение не повторялось и после замены экземпляра.
+    // Поле вместо AtomicLong, чтобы не добавлять по объекту на каждую сущность
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile long version;
 
     public void addLike(Long userId) {
-        likes.add(userId);
+        if (likes.add(userId)) {
+            VERSION.incrementAndGet(this);
+        }
     }
 
     public void removeLike(Long userId) {
-        likes.remove(userId);
+        if (likes.remove(userId)) {
+            VERSION.incrementAndGet(this);
+        }
+    }
+
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
+    @JsonIgnore
+    public void setVersion(long version) {
+        this.version = version;
     }
 
     public int getLikesCount() {
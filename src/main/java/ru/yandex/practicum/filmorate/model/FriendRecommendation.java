@@ -0,0 +1,5 @@
+package ru.yandex.practicum.filmorate.model;
+
+// Кандидат в друзья: пользователь на расстоянии двух шагов и число общих с ним друзей
+public record FriendRecommendation(User user, int mutualFriends) {
+}
@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.List;
+
+// Итог массового импорта: число принятых и отклоненных строк и причины отказа с номерами строк.
+// Список ошибок ограничен, при его переполнении rejected продолжает считать все отклоненные строки
+public record ImportReport(long accepted, long rejected, List<LineError> errors) {
+
+    public record LineError(long line, String message) {
+    }
+}
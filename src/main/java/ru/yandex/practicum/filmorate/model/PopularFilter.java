@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.model;
+
+// Фильтр популярных фильмов: год выхода и диапазон продолжительности в минутах, границы включительно.
+// null в любом поле означает отсутствие ограничения
+public record PopularFilter(Integer year, Integer minDuration, Integer maxDuration) {
+    public static final PopularFilter NONE = new PopularFilter(null, null, null);
+
+    public boolean hasDuration() {
+        return minDuration != null || maxDuration != null;
+    }
+
+    public int durationFrom() {
+        return minDuration == null ? 0 : minDuration;
+    }
+
+    public int durationTo() {
+        return maxDuration == null ? Integer.MAX_VALUE : maxDuration;
+    }
+
+    public boolean matches(Film film) {
+        if (year != null && (film.getReleaseDate() == null || film.getReleaseDate().getYear() != year)) {
+            return false;
+        }
+        if (hasDuration()) {
+            Integer duration = film.getDuration();
+            return duration != null && duration >= durationFrom() && duration <= durationTo();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.model;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.time.Duration;
+
+// Окно подсчёта лайков для трендовых фильмов. Окно отсчитывается целыми корзинами: минутными для часа,
+// часовыми для суток и недели, поэтому его граница сдвигается шагами в одну корзину
+public enum TrendingWindow {
+    HOUR("1h", Duration.ofHours(1)),
+    DAY("24h", Duration.ofDays(1)),
+    WEEK("7d", Duration.ofDays(7));
+
+    private final String code;
+    private final Duration length;
+
+    TrendingWindow(String code, Duration length) {
+        this.code = code;
+        this.length = length;
+    }
+
+    public String code() {
+        return code;
+    }
+
+    public Duration length() {
+        return length;
+    }
+
+    public static TrendingWindow parse(String code) {
+        for (TrendingWindow window : values()) {
+            if (window.code.equals(code)) {
+                return window;
+            }
+        }
+        throw new ValidationException("Параметр window должен быть одним из: 1h, 24h, 7d");
+    }
+}
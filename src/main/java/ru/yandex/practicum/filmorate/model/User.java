@@ -1,16 +1,21 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import jakarta.validation.constraints.*;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
 
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 @Getter
 @Setter
 public class User {
+    private static final AtomicLongFieldUpdater<User> VERSION =
+            AtomicLongFieldUpdater.newUpdater(User.class, "version");
+
     private Long id;
 
     @NotBlank(message = "Электронная почта не может быть пустой")
@@ -26,13 +31,34 @@ public class User {
     @PastOrPresent(message = "Дата рождения не может быть в будущем")
     private LocalDate birthday;
 
-    private Set<Long> friends = new HashSet<>();
+    private final LongHashSet friends = new LongHashSet();
+
+    // Версия экземпляра: растёт после правки друзей, по ней сверяются закэшированные JSON-фрагменты и ETag.
+    // Хранилища с версиями проставляют её из общего счётчика, чтобы значение не повторялось и после замены экземпляра.
+    // Поле вместо AtomicLong, чтобы не добавлять по объекту на каждую сущность
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile long version;
 
     public void addFriend(Long friendId) {
-        friends.add(friendId);
+        if (friends.add(friendId)) {
+            VERSION.incrementAndGet(this);
+        }
     }
 
     public void removeFriend(Long friendId) {
-        friends.remove(friendId);
+        if (friends.remove(friendId)) {
+            VERSION.incrementAndGet(this);
+        }
+    }
+
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
+    @JsonIgnore
+    public void setVersion(long version) {
+        this.version = version;
     }
 }
\ No newline at end of file
@@ -0,0 +1,257 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import ru.yandex.practicum.filmorate.model.Edge;
+import ru.yandex.practicum.filmorate.model.EdgeFormat;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+import ru.yandex.practicum.filmorate.util.LongSets;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Построчный разбор потока связей для массового импорта. Строки копятся пачками по {@link #CHUNK_SIZE}:
+ * для каждой пачки обработчик один раз проверяет существование всех упомянутых id и отклоняет
+ * неподходящие строки, после чего оставшиеся связи записываются в хранилище одним вызовом.
+ */
+final class EdgeImporter {
+    static final int CHUNK_SIZE = 10_000;
+    static final int MAX_REPORTED_ERRORS = 1_000;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final EdgeFormat format;
+    private final String fromField;
+    private final String toField;
+    private final ChunkHandler handler;
+    private final Chunk chunk = new Chunk();
+    private final List<ImportReport.LineError> errors = new ArrayList<>();
+    private long lineNumber;
+    private boolean headerChecked;
+    private long accepted;
+    private long rejected;
+
+    EdgeImporter(EdgeFormat format, String fromField, String toField, ChunkHandler handler) {
+        this.format = format;
+        this.fromField = fromField;
+        this.toField = toField;
+        this.handler = handler;
+    }
+
+    ImportReport run(Reader reader) {
+        BufferedReader lines = new BufferedReader(reader, 64 * 1024);
+        try {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                accept(line);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return finish();
+    }
+
+    // Очередная строка потока; вызывается из одного потока за раз, пачка записывается по заполнении
+    void accept(String line) {
+        lineNumber++;
+        if (line.isBlank()) {
+            return;
+        }
+        if (!headerChecked) {
+            headerChecked = true;
+            if (format == EdgeFormat.CSV && isCsvHeader(line)) {
+                return;
+            }
+        }
+        parse(line, lineNumber, chunk);
+        if (chunk.size == CHUNK_SIZE) {
+            process(chunk);
+        }
+    }
+
+    // Записывает неполную последнюю пачку и собирает отчет
+    ImportReport finish() {
+        if (chunk.size > 0) {
+            process(chunk);
+        }
+        // Ошибки разбора фиксируются сразу, а ошибки проверки - по завершении пачки
+        errors.sort(Comparator.comparingLong(ImportReport.LineError::line));
+        ImportReport report = new ImportReport(accepted, rejected, List.copyOf(errors));
+        handler.finished(report);
+        return report;
+    }
+
+    private void parse(String line, long lineNumber, Chunk chunk) {
+        if (format == EdgeFormat.CSV) {
+            parseCsv(line, lineNumber, chunk);
+        } else {
+            parseJson(line, lineNumber, chunk);
+        }
+    }
+
+    // Заголовком считается только строка с именами колонок; строки вида "-1,5" разбираются и отклоняются как данные
+    private boolean isCsvHeader(String line) {
+        int comma = line.indexOf(',');
+        return comma >= 0
+                && line.substring(0, comma).strip().equalsIgnoreCase(fromField)
+                && line.substring(comma + 1).strip().equalsIgnoreCase(toField);
+    }
+
+    private void parseCsv(String line, long lineNumber, Chunk chunk) {
+        int comma = line.indexOf(',');
+        if (comma < 0) {
+            reject(lineNumber, "Ожидалась строка вида " + fromField + "," + toField);
+            return;
+        }
+        try {
+            chunk.add(lineNumber, Long.parseLong(line.substring(0, comma).strip()),
+                    Long.parseLong(line.substring(comma + 1).strip()));
+        } catch (NumberFormatException e) {
+            reject(lineNumber, "Идентификаторы должны быть целыми числами");
+        }
+    }
+
+    private void parseJson(String line, long lineNumber, Chunk chunk) {
+        long from = 0;
+        long to = 0;
+        boolean hasFrom = false;
+        boolean hasTo = false;
+        try (JsonParser parser = JSON_FACTORY.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                reject(lineNumber, "Ожидался JSON-объект");
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals(fromField) || field.equals(toField)) {
+                    if (value != JsonToken.VALUE_NUMBER_INT) {
+                        reject(lineNumber, "Поле " + field + " должно быть целым числом");
+                        return;
+                    }
+                    if (field.equals(fromField)) {
+                        from = parser.getLongValue();
+                        hasFrom = true;
+                    } else {
+                        to = parser.getLongValue();
+                        hasTo = true;
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            reject(lineNumber, "Некорректный JSON: " + e.getOriginalMessage());
+            return;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!hasFrom || !hasTo) {
+            reject(lineNumber, "Отсутствует поле " + (hasFrom ? toField : fromField));
+            return;
+        }
+        chunk.add(lineNumber, from, to);
+    }
+
+    private void process(Chunk chunk) {
+        handler.validate(chunk);
+        List<Edge> edges = new ArrayList<>(chunk.size);
+        for (int i = 0; i < chunk.size; i++) {
+            if (chunk.rejections[i] == null) {
+                edges.add(new Edge(chunk.from[i], chunk.to[i]));
+            } else {
+                reject(chunk.lines[i], chunk.rejections[i]);
+            }
+        }
+        if (!edges.isEmpty()) {
+            handler.apply(edges);
+            accepted += edges.size();
+        }
+        chunk.clear();
+    }
+
+    private void reject(long lineNumber, String message) {
+        rejected++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new ImportReport.LineError(lineNumber, message));
+        }
+    }
+
+    interface ChunkHandler {
+        // Отклоняет строки пачки через Chunk.reject; непомеченные строки считаются принятыми
+        void validate(Chunk chunk);
+
+        void apply(List<Edge> edges);
+
+        default void finished(ImportReport report) {
+        }
+    }
+
+    static final class Chunk {
+        private final long[] lines = new long[CHUNK_SIZE];
+        private final long[] from = new long[CHUNK_SIZE];
+        private final long[] to = new long[CHUNK_SIZE];
+        private final String[] rejections = new String[CHUNK_SIZE];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        long from(int i) {
+            return from[i];
+        }
+
+        long to(int i) {
+            return to[i];
+        }
+
+        void reject(int i, String message) {
+            rejections[i] = message;
+        }
+
+        List<Long> distinctFrom() {
+            return distinct(from, null);
+        }
+
+        List<Long> distinctTo() {
+            return distinct(to, null);
+        }
+
+        List<Long> distinctAll() {
+            return distinct(from, to);
+        }
+
+        private List<Long> distinct(long[] first, long[] second) {
+            LongHashSet ids = new LongHashSet();
+            for (int i = 0; i < size; i++) {
+                ids.add(first[i]);
+                if (second != null) {
+                    ids.add(second[i]);
+                }
+            }
+            return LongSets.asList(ids.sortedView());
+        }
+
+        private void add(long lineNumber, long fromId, long toId) {
+            lines[size] = lineNumber;
+            from[size] = fromId;
+            to[size] = toId;
+            size++;
+        }
+
+        private void clear() {
+            Arrays.fill(rejections, 0, size, null);
+            size = 0;
+        }
+    }
+}
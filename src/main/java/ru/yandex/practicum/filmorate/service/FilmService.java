@@ -3,32 +3,61 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.Edge;
+import ru.yandex.practicum.filmorate.model.EdgeFormat;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.model.PopularFilter;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+import ru.yandex.practicum.filmorate.util.LongIntCounter;
+import ru.yandex.practicum.filmorate.util.LongSets;
 
+import java.io.Reader;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
 
 @Service
 @Slf4j
 public class FilmService {
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
+    private final LikeWriteBuffer likeWriteBuffer;
+    private final SingleFlight singleFlight;
     private static final LocalDate MIN_RELEASE_DATE = LocalDate.of(1895, 12, 28);
+    public static final int MAX_RECOMMENDATIONS = 100;
+    // Сколько лайкнувших берется у каждого фильма и сколько самых похожих пользователей учитывается в оценке
+    static final int MAX_FAN_OUT = 1000;
+    static final int MAX_NEIGHBOURS = 200;
+    private static final int PARALLEL_THRESHOLD = 32;
 
     @Autowired
-    public FilmService(FilmStorage filmStorage, UserStorage userStorage) {
+    public FilmService(FilmStorage filmStorage, UserStorage userStorage, LikeWriteBuffer likeWriteBuffer,
+                       SingleFlight singleFlight) {
         this.filmStorage = filmStorage;
         this.userStorage = userStorage;
+        this.likeWriteBuffer = likeWriteBuffer;
+        this.singleFlight = singleFlight;
     }
 
     public List<Film> getAll() {
+        likeWriteBuffer.flush();
         return filmStorage.getAll();
     }
 
+    public List<Film> getPage(long afterId, int limit) {
+        Pages.validate(afterId, limit);
+        likeWriteBuffer.flush();
+        return filmStorage.getPage(afterId, limit);
+    }
+
     public Film create(Film film) {
         validateFilm(film);
         return filmStorage.create(film);
@@ -40,6 +69,7 @@ public class FilmService {
     }
 
     public Film getById(Long id) {
+        likeWriteBuffer.flush();
         return filmStorage.getById(id)
                 .orElseThrow(() -> {
                     log.error("Фильм с ID {} не найден", id);
@@ -47,6 +77,14 @@ public class FilmService {
                 });
     }
 
+    // Версия данных фильмов для ETag; пусто, если хранилище версий не ведёт. Отложенные лайки записываются
+    // до чтения версии, иначе клиент получил бы 304 на список, в котором ещё нет его лайка
+    public OptionalLong getVersion() {
+        likeWriteBuffer.flush();
+        long version = filmStorage.getVersion();
+        return version == FilmStorage.UNVERSIONED ? OptionalLong.empty() : OptionalLong.of(version);
+    }
+
     public void addLike(Long filmId, Long userId) {
         // Проверяем, существует ли фильм
         filmStorage.getById(filmId)
@@ -62,7 +100,7 @@ public class FilmService {
                     return new NotFoundException("Пользователь с таким id не найден");
                 });
 
-        filmStorage.addLike(filmId, userId);
+        likeWriteBuffer.addLike(filmId, userId);
     }
 
     public void removeLike(Long filmId, Long userId) {
@@ -80,14 +118,149 @@ public class FilmService {
                     return new NotFoundException("Пользователь с таким id не найден");
                 });
 
-        filmStorage.removeLike(filmId, userId);
+        likeWriteBuffer.removeLike(filmId, userId);
+    }
+
+    // Массовый импорт лайков: id проверяются пачками через getByIds вместо двух getById на каждую строку
+    public ImportReport importLikes(Reader reader, EdgeFormat format) {
+        return likeImporter(format).run(reader);
+    }
+
+    // Импорт с построчной подачей: реактивный сервис передает строки тела запроса по мере поступления
+    EdgeImporter likeImporter(EdgeFormat format) {
+        return new EdgeImporter(format, "filmId", "userId",
+                new EdgeImporter.ChunkHandler() {
+                    @Override
+                    public void validate(EdgeImporter.Chunk chunk) {
+                        LongHashSet films = new LongHashSet();
+                        filmStorage.getByIds(chunk.distinctFrom()).forEach(film -> films.add(film.getId()));
+                        LongHashSet users = new LongHashSet();
+                        userStorage.getByIds(chunk.distinctTo()).forEach(user -> users.add(user.getId()));
+                        for (int i = 0; i < chunk.size(); i++) {
+                            if (!films.contains(chunk.from(i))) {
+                                chunk.reject(i, "Фильм с id " + chunk.from(i) + " не найден");
+                            } else if (!users.contains(chunk.to(i))) {
+                                chunk.reject(i, "Пользователь с id " + chunk.to(i) + " не найден");
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void apply(List<Edge> likes) {
+                        // Отложенные одиночные лайки применяются раньше импортируемых
+                        likeWriteBuffer.flush();
+                        filmStorage.addLikes(likes);
+                    }
+
+                    @Override
+                    public void finished(ImportReport report) {
+                        log.info("Импорт лайков: принято {}, отклонено {}", report.accepted(), report.rejected());
+                    }
+                });
     }
 
     public List<Film> getPopular(int count) {
+        return getPopular(count, PopularFilter.NONE);
+    }
+
+    // Версия для ETag списка популярных фильмов. Параметры проверяются раньше, чтобы неверный запрос
+    // получил 400, а не 304
+    public OptionalLong getPopularVersion(int count, PopularFilter filter) {
+        validatePopular(count, filter);
+        return getVersion();
+    }
+
+    public List<Film> getPopular(int count, PopularFilter filter) {
+        validatePopular(count, filter);
+        likeWriteBuffer.flush();
+        // Одинаковые параллельные запросы при неизменной версии хранилища получают один общий список.
+        // Без версии (JDBC) ключ не отличает чтение до записи от чтения после нее, и схлопывания нет
+        long version = filmStorage.getVersion();
+        if (version == FilmStorage.UNVERSIONED) {
+            return filmStorage.getPopular(count, filter);
+        }
+        return singleFlight.execute("getPopular", List.of(count, filter, version),
+                () -> filmStorage.getPopular(count, filter));
+    }
+
+    public List<Film> getTrending(int count, TrendingWindow window) {
         if (count <= 0) {
             throw new ValidationException("Параметр count должен быть положительным");
         }
-        return filmStorage.getPopular(count);
+        likeWriteBuffer.flush();
+        // Окна сдвигаются и без записей, поэтому в ключ входит текущая минута, а не только версия хранилища
+        long version = filmStorage.getVersion();
+        if (version == FilmStorage.UNVERSIONED) {
+            return filmStorage.getTrending(count, window);
+        }
+        long minute = System.currentTimeMillis() / 60_000;
+        return singleFlight.execute("getTrending", List.of(count, window, version, minute),
+                () -> filmStorage.getTrending(count, window));
+    }
+
+    // Фильмы, лайкнутые пользователем, по обратному индексу лайков вместо перебора всех фильмов
+    public List<Film> getLikedFilms(Long userId) {
+        userStorage.getById(userId)
+                .orElseThrow(() -> {
+                    log.error("Пользователь с ID {} не найден при получении лайкнутых фильмов", userId);
+                    return new NotFoundException("Пользователь с таким id не найден");
+                });
+        likeWriteBuffer.flush();
+        return filmStorage.getByIds(LongSets.asList(filmStorage.getLikedFilmIds(userId)));
+    }
+
+    /**
+     * Коллаборативная фильтрация по матрице лайков. Похожие пользователи — те, кто лайкнул те же фильмы;
+     * вес соседа равен числу общих лайков. Оценка фильма — сумма весов соседей, которые его лайкнули;
+     * уже лайкнутые пользователем фильмы исключаются. Данные читаются из хранилища заранее, а оба прохода
+     * считаются порциями в fork-join пуле только по уже загруженным массивам.
+     */
+    public List<Film> getRecommendedFilms(Long userId, int count) {
+        if (count <= 0 || count > MAX_RECOMMENDATIONS) {
+            throw new ValidationException("Параметр count должен быть от 1 до " + MAX_RECOMMENDATIONS);
+        }
+        userStorage.getById(userId)
+                .orElseThrow(() -> {
+                    log.error("Пользователь с ID {} не найден при подборе фильмов", userId);
+                    return new NotFoundException("Пользователь с таким id не найден");
+                });
+        likeWriteBuffer.flush();
+
+        long[] likedFilmIds = filmStorage.getLikedFilmIds(userId);
+        List<Film> likedFilms = filmStorage.getByIds(LongSets.asList(LongSets.sample(likedFilmIds, MAX_FAN_OUT)));
+        LongIntCounter overlap = LongIntCounter.countInParallel(likedFilms.size(), PARALLEL_THRESHOLD,
+                (counter, i) -> counter.incrementAll(likedFilms.get(i).getLikes(), MAX_FAN_OUT));
+        long[] neighbours = overlap.topK(MAX_NEIGHBOURS, id -> id == userId);
+        int[] weights = new int[neighbours.length];
+        for (int i = 0; i < neighbours.length; i++) {
+            weights[i] = overlap.get(neighbours[i]);
+        }
+
+        // Лайки всех соседей читаются из хранилища одним обращением в вызывающем потоке: в общем fork-join пуле
+        // нельзя ждать JDBC. У каждого соседа берется не больше MAX_FAN_OUT фильмов, иначе пользователь,
+        // лайкнувший весь каталог, тянет в оценку каждый фильм
+        Map<Long, long[]> likedByNeighbour = filmStorage.getLikedFilmIds(LongSets.asList(neighbours));
+        long[][] neighbourLikes = new long[neighbours.length][];
+        for (int i = 0; i < neighbours.length; i++) {
+            neighbourLikes[i] = LongSets.sample(likedByNeighbour.get(neighbours[i]), MAX_FAN_OUT);
+        }
+        LongIntCounter scores = LongIntCounter.countInParallel(neighbours.length, PARALLEL_THRESHOLD,
+                (counter, i) -> {
+                    for (long filmId : neighbourLikes[i]) {
+                        counter.add(filmId, weights[i]);
+                    }
+                });
+        long[] recommended = scores.topK(count, filmId -> Arrays.binarySearch(likedFilmIds, filmId) >= 0);
+        return filmStorage.getByIds(LongSets.asList(recommended));
+    }
+
+    private static void validatePopular(int count, PopularFilter filter) {
+        if (count <= 0) {
+            throw new ValidationException("Параметр count должен быть положительным");
+        }
+        if (filter.durationFrom() < 0 || filter.durationFrom() > filter.durationTo()) {
+            throw new ValidationException("Диапазон продолжительности задан неверно");
+        }
     }
 
     private void validateFilm(Film film) {
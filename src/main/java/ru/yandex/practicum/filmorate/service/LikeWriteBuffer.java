@@ -0,0 +1,199 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Edge;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Отложенная запись лайков. Запросы только добавляют изменение в неблокирующую очередь; разбирает её один поток
+ * за раз — фоновый по таймеру, вызывающий при переполнении буфера или читающий перед чтением. Разобранные изменения
+ * схлопываются до последнего по каждой паре фильм–пользователь, группируются по фильмам и уходят в хранилище
+ * двумя пачками: {@link FilmStorage#addLikes} и {@link FilmStorage#removeLikes}.
+ * <p>
+ * Пользователь, поставивший лайк, видит его в любом следующем чтении: чтения фильмов перед обращением к хранилищу
+ * вызывают {@link #flush()}, который при пустой очереди сводится к чтению счётчика. Пачка, которую хранилище
+ * не приняло, остаётся в буфере и повторяется при следующем сбросе, а новые изменения до успешной записи
+ * отклоняются, чтобы клиент не получил ответ 200 на лайк, который может не дойти до хранилища.
+ */
+@Component
+@Slf4j
+public class LikeWriteBuffer implements MeterBinder {
+    private static final Comparator<Edge> BY_FILM = Comparator.comparingLong(Edge::from);
+
+    private final FilmStorage filmStorage;
+    private final boolean enabled;
+    private final int capacity;
+    private final Duration flushInterval;
+    // Очередь многих производителей и одного потребителя: потребителем в каждый момент является держатель drainLock
+    private final Queue<Change> queue = new ConcurrentLinkedQueue<>();
+    // Принятые и ещё не записанные изменения, включая пачку, ожидающую повтора
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ReentrantLock drainLock = new ReentrantLock();
+    // Пачка, не принятая хранилищем, и число изменений в ней до схлопывания. Меняются только под drainLock
+    private Map<Edge, Boolean> failed = Map.of();
+    private int failedCount;
+    // Ошибка последней записи; сбрасывается первой успешной записью
+    private volatile RuntimeException failure;
+    private ScheduledExecutorService flusher;
+
+    @Autowired
+    public LikeWriteBuffer(FilmStorage filmStorage,
+                           @Value("${filmorate.likes.write-behind.enabled:false}") boolean enabled,
+                           @Value("${filmorate.likes.write-behind.capacity:10000}") int capacity,
+                           @Value("${filmorate.likes.write-behind.flush-interval:50ms}") Duration flushInterval) {
+        this.filmStorage = filmStorage;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.flushInterval = flushInterval;
+    }
+
+    // Фоновый сброс запускается после создания бина, а не в конструкторе
+    @PostConstruct
+    public void start() {
+        if (!enabled || flusher != null) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("like-write-behind")
+                .daemon()
+                .factory());
+        long intervalMillis = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Включена отложенная запись лайков: емкость {}, интервал {}", capacity, flushInterval);
+    }
+
+    public void addLike(Long filmId, Long userId) {
+        submit(filmId, userId, true);
+    }
+
+    public void removeLike(Long filmId, Long userId) {
+        submit(filmId, userId, false);
+    }
+
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("filmorate.likes.pending", pending, AtomicInteger::get)
+                .description("Количество изменений лайков, ожидающих записи в хранилище")
+                .register(registry);
+    }
+
+    // Записывает все изменения, принятые до вызова. Если запись уже идёт в другом потоке, ждёт её окончания
+    public void flush() {
+        if (pending.get() == 0) {
+            return;
+        }
+        drainLock.lock();
+        try {
+            drain();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        flushSafely();
+    }
+
+    private void submit(Long filmId, Long userId, boolean added) {
+        if (!enabled) {
+            if (added) {
+                filmStorage.addLike(filmId, userId);
+            } else {
+                filmStorage.removeLike(filmId, userId);
+            }
+            return;
+        }
+        RuntimeException error = failure;
+        if (error != null) {
+            throw new IllegalStateException("Отложенные лайки не удаётся записать в хранилище", error);
+        }
+        queue.offer(new Change(new Edge(filmId, userId), added));
+        // Противодавление: при переполненном буфере запись выполняет вызывающий поток
+        if (pending.incrementAndGet() >= capacity) {
+            flush();
+        }
+    }
+
+    // Вызывается под drainLock
+    private void drain() {
+        Map<Edge, Boolean> changes = new LinkedHashMap<>(failed);
+        int count = failedCount;
+        // Разбирается не больше изменений, чем было принято к началу сброса: поток лайков не задерживает сброс
+        Change change;
+        for (int limit = pending.get() - failedCount; limit > 0 && (change = queue.poll()) != null; limit--) {
+            changes.put(change.like(), change.added());
+            count++;
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<Edge> additions = new ArrayList<>();
+        List<Edge> removals = new ArrayList<>();
+        changes.forEach((like, added) -> (added ? additions : removals).add(like));
+        additions.sort(BY_FILM);
+        removals.sort(BY_FILM);
+        try {
+            // Пачки идемпотентны, поэтому после частичной записи пачка повторяется целиком
+            if (!additions.isEmpty()) {
+                filmStorage.addLikes(additions);
+            }
+            if (!removals.isEmpty()) {
+                filmStorage.removeLikes(removals);
+            }
+        } catch (RuntimeException e) {
+            failed = changes;
+            failedCount = count;
+            failure = e;
+            throw e;
+        }
+        failed = Map.of();
+        failedCount = 0;
+        failure = null;
+        pending.addAndGet(-count);
+        if (log.isDebugEnabled()) {
+            log.debug("Записаны отложенные лайки: {} изменений, добавлено {}, снято {}",
+                    count, additions.size(), removals.size());
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Ошибка при записи отложенных лайков: {}", e.getMessage(), e);
+        }
+    }
+
+    private record Change(Edge like, boolean added) {
+    }
+}
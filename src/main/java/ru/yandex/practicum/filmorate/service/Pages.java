@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+// Проверка параметров постраничной выдачи по курсору, общая для фильмов и пользователей
+final class Pages {
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private Pages() {
+    }
+
+    static void validate(long afterId, int limit) {
+        if (afterId < 0) {
+            throw new ValidationException("Параметр after не может быть отрицательным");
+        }
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Параметр limit должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import ru.yandex.practicum.filmorate.model.EdgeFormat;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.model.PopularFilter;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import ru.yandex.practicum.filmorate.storage.film.ReactiveFilmStorage;
+
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.Callable;
+
+// Реактивный контракт сервиса фильмов. Правила (валидация, отложенные лайки, схлопывание запросов)
+// остаются в FilmService и выполняются на storageScheduler; полный список читается потоком из ReactiveFilmStorage
+@Service
+@Profile("reactive")
+public class ReactiveFilmService {
+    private final FilmService filmService;
+    private final ReactiveFilmStorage filmStorage;
+    private final Scheduler scheduler;
+
+    public ReactiveFilmService(FilmService filmService, ReactiveFilmStorage filmStorage, Scheduler storageScheduler) {
+        this.filmService = filmService;
+        this.filmStorage = filmStorage;
+        this.scheduler = storageScheduler;
+    }
+
+    public Flux<Film> getAll() {
+        return filmStorage.getAll();
+    }
+
+    public Mono<List<Film>> getPage(long afterId, int limit) {
+        return call(() -> filmService.getPage(afterId, limit));
+    }
+
+    public Mono<Film> create(Film film) {
+        return call(() -> filmService.create(film));
+    }
+
+    public Mono<Film> update(Film film) {
+        return call(() -> filmService.update(film));
+    }
+
+    public Mono<Film> getById(Long id) {
+        return call(() -> filmService.getById(id));
+    }
+
+    public Mono<OptionalLong> getVersion() {
+        return call(filmService::getVersion);
+    }
+
+    public Mono<OptionalLong> getPopularVersion(int count, PopularFilter filter) {
+        return call(() -> filmService.getPopularVersion(count, filter));
+    }
+
+    public Mono<Void> addLike(Long filmId, Long userId) {
+        return run(() -> filmService.addLike(filmId, userId));
+    }
+
+    public Mono<Void> removeLike(Long filmId, Long userId) {
+        return run(() -> filmService.removeLike(filmId, userId));
+    }
+
+    public Mono<ImportReport> importLikes(Flux<String> lines, EdgeFormat format) {
+        return Mono.defer(() -> {
+            EdgeImporter importer = filmService.likeImporter(format);
+            // Строки разбираются по мере поступления в одном потоке пула хранилища; пока пачка пишется,
+            // publishOn не запрашивает новые строки, и сеть притормаживается без промежуточного канала
+            return lines.publishOn(scheduler)
+                    .doOnNext(importer::accept)
+                    .then(Mono.fromCallable(importer::finish));
+        });
+    }
+
+    public Mono<List<Film>> getPopular(int count, PopularFilter filter) {
+        return call(() -> filmService.getPopular(count, filter));
+    }
+
+    public Mono<List<Film>> getTrending(int count, TrendingWindow window) {
+        return call(() -> filmService.getTrending(count, window));
+    }
+
+    public Mono<List<Film>> getLikedFilms(Long userId) {
+        return call(() -> filmService.getLikedFilms(userId));
+    }
+
+    public Mono<List<Film>> getRecommendedFilms(Long userId, int count) {
+        return call(() -> filmService.getRecommendedFilms(userId, count));
+    }
+
+    private <T> Mono<T> call(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(scheduler);
+    }
+
+    private Mono<Void> run(Runnable action) {
+        return Mono.fromRunnable(action).subscribeOn(scheduler).then();
+    }
+}
@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import ru.yandex.practicum.filmorate.model.EdgeFormat;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.ReactiveUserStorage;
+
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.Callable;
+
+// Реактивный контракт сервиса пользователей, устроен так же, как ReactiveFilmService
+@Service
+@Profile("reactive")
+public class ReactiveUserService {
+    private final UserService userService;
+    private final ReactiveUserStorage userStorage;
+    private final Scheduler scheduler;
+
+    public ReactiveUserService(UserService userService, ReactiveUserStorage userStorage, Scheduler storageScheduler) {
+        this.userService = userService;
+        this.userStorage = userStorage;
+        this.scheduler = storageScheduler;
+    }
+
+    public Flux<User> getAll() {
+        return userStorage.getAll();
+    }
+
+    public Mono<List<User>> getPage(long afterId, int limit) {
+        return call(() -> userService.getPage(afterId, limit));
+    }
+
+    public Mono<User> create(User user) {
+        return call(() -> userService.create(user));
+    }
+
+    public Mono<User> update(User user) {
+        return call(() -> userService.update(user));
+    }
+
+    public Mono<User> getById(Long id) {
+        return call(() -> userService.getById(id));
+    }
+
+    public Mono<OptionalLong> getVersion() {
+        return call(userService::getVersion);
+    }
+
+    public Mono<OptionalLong> getFriendsVersion(Long userId) {
+        return call(() -> userService.getFriendsVersion(userId));
+    }
+
+    public Mono<OptionalLong> getCommonFriendsVersion(Long userId, Long otherId) {
+        return call(() -> userService.getCommonFriendsVersion(userId, otherId));
+    }
+
+    public Mono<Void> addFriend(Long userId, Long friendId) {
+        return run(() -> userService.addFriend(userId, friendId));
+    }
+
+    public Mono<Void> removeFriend(Long userId, Long friendId) {
+        return run(() -> userService.removeFriend(userId, friendId));
+    }
+
+    public Mono<ImportReport> importFriends(Flux<String> lines, EdgeFormat format) {
+        return Mono.defer(() -> {
+            EdgeImporter importer = userService.friendImporter(format);
+            return lines.publishOn(scheduler)
+                    .doOnNext(importer::accept)
+                    .then(Mono.fromCallable(importer::finish));
+        });
+    }
+
+    public Mono<List<User>> getFriends(Long userId) {
+        return call(() -> userService.getFriends(userId));
+    }
+
+    public Mono<List<User>> getCommonFriends(Long userId, Long otherId) {
+        return call(() -> userService.getCommonFriends(userId, otherId));
+    }
+
+    public Mono<List<FriendRecommendation>> getRecommendations(Long userId, int count) {
+        return call(() -> userService.getRecommendations(userId, count));
+    }
+
+    private <T> Mono<T> call(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(scheduler);
+    }
+
+    private Mono<Void> run(Runnable action) {
+        return Mono.fromRunnable(action).subscribeOn(scheduler).then();
+    }
+}
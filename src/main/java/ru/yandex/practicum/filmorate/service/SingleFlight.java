@@ -0,0 +1,142 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Схлопывание одинаковых параллельных чтений: первый запрос с данным ключом вычисляет результат,
+ * остальные, пришедшие до его завершения, ждут и получают тот же объект. Ожидание ограничено:
+ * по истечении maxWait запрос вычисляет результат сам. Ключ включает версию хранилища, поэтому
+ * к вычислению, начатому до записи, запросы после этой записи не присоединяются.
+ * Результат общий для всех ожидавших и не должен изменяться вызывающим кодом.
+ */
+@Component
+@Slf4j
+public class SingleFlight implements MeterBinder {
+    private final boolean enabled;
+    private final long maxWaitNanos;
+    private final ConcurrentMap<FlightKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Stats> stats = new ConcurrentHashMap<>();
+    private volatile MeterRegistry registry;
+
+    @Autowired
+    public SingleFlight(@Value("${filmorate.single-flight.enabled:true}") boolean enabled,
+                        @Value("${filmorate.single-flight.max-wait:2s}") Duration maxWait) {
+        this.enabled = enabled;
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Object key, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        FlightKey flightKey = new FlightKey(operation, key);
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(flightKey, own);
+        Stats operationStats = stats(operation);
+        if (running == null) {
+            operationStats.executed.increment();
+            T result;
+            try {
+                result = loader.get();
+            } catch (RuntimeException | Error e) {
+                inFlight.remove(flightKey, own);
+                own.completeExceptionally(e);
+                throw e;
+            }
+            // Ключ убирается до публикации результата: присоединиться можно только к идущему вычислению,
+            // готовый результат не переиспользуется следующими запросами как кэш
+            inFlight.remove(flightKey, own);
+            own.complete(result);
+            return result;
+        }
+        try {
+            T result = (T) running.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+            operationStats.coalesced.increment();
+            return result;
+        } catch (TimeoutException e) {
+            operationStats.timedOut.increment();
+            if (log.isDebugEnabled()) {
+                log.debug("Не дождались общего результата {} по ключу {}, вычисляем сами", operation, key);
+            }
+            return loader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return loader.get();
+        } catch (ExecutionException e) {
+            // Ошибка первого запроса (например, NotFoundException) отдается всем ожидавшим как есть
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public long getCoalescedCount(String operation) {
+        Stats operationStats = stats.get(operation);
+        return operationStats == null ? 0 : operationStats.coalesced.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        stats.values().forEach(operationStats -> operationStats.register(registry));
+    }
+
+    private Stats stats(String operation) {
+        Stats operationStats = stats.get(operation);
+        if (operationStats != null) {
+            return operationStats;
+        }
+        return stats.computeIfAbsent(operation, name -> {
+            Stats created = new Stats(name);
+            MeterRegistry current = registry;
+            if (current != null) {
+                created.register(current);
+            }
+            return created;
+        });
+    }
+
+    private record FlightKey(String operation, Object key) {
+    }
+
+    private record Stats(String operation, LongAdder executed, LongAdder coalesced, LongAdder timedOut) {
+        Stats(String operation) {
+            this(operation, new LongAdder(), new LongAdder(), new LongAdder());
+        }
+
+        void register(MeterRegistry registry) {
+            counter(registry, "executed", executed, "Вычислено запросом-лидером");
+            counter(registry, "coalesced", coalesced, "Получено из общего вычисления");
+            counter(registry, "timeout", timedOut, "Вычислено самостоятельно после истечения ожидания");
+        }
+
+        private void counter(MeterRegistry registry, String result, LongAdder value, String description) {
+            FunctionCounter.builder("filmorate.single-flight.calls", value, LongAdder::sum)
+                    .tag("operation", operation)
+                    .tag("result", result)
+                    .description(description)
+                    .register(registry);
+        }
+    }
+}
@@ -3,28 +3,50 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.Edge;
+import ru.yandex.practicum.filmorate.model.EdgeFormat;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+import ru.yandex.practicum.filmorate.model.ImportReport;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+import ru.yandex.practicum.filmorate.util.LongIntCounter;
+import ru.yandex.practicum.filmorate.util.LongSets;
 
+import java.io.Reader;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.Supplier;
 
 @Service
 @Slf4j
 public class UserService {
+    public static final int MAX_RECOMMENDATIONS = 100;
+    // Сколько друзей раскрывается на каждом шаге обхода: у пользователей с тысячами друзей берется выборка
+    static final int MAX_FAN_OUT = 1000;
+    private static final int PARALLEL_THRESHOLD = 64;
     private final UserStorage userStorage;
+    private final SingleFlight singleFlight;
 
     @Autowired
-    public UserService(UserStorage userStorage) {
+    public UserService(UserStorage userStorage, SingleFlight singleFlight) {
         this.userStorage = userStorage;
+        this.singleFlight = singleFlight;
     }
 
     public List<User> getAll() {
         return userStorage.getAll();
     }
 
+    public List<User> getPage(long afterId, int limit) {
+        Pages.validate(afterId, limit);
+        return userStorage.getPage(afterId, limit);
+    }
+
     public User create(User user) {
         validateUser(user);
         if (user.getName() == null || user.getName().isBlank()) {
@@ -49,6 +71,27 @@ public class UserService {
                 });
     }
 
+    // Версия данных пользователей для ETag; пусто, если хранилище версий не ведёт
+    public OptionalLong getVersion() {
+        long version = userStorage.getVersion();
+        return version == UserStorage.UNVERSIONED ? OptionalLong.empty() : OptionalLong.of(version);
+    }
+
+    // Версии для ETag списков друзей. Пользователи проверяются до сравнения версии, чтобы на запрос
+    // о несуществующем пользователе ушёл 404, а не 304
+    public OptionalLong getFriendsVersion(Long userId) {
+        OptionalLong version = getVersion();
+        getById(userId);
+        return version;
+    }
+
+    public OptionalLong getCommonFriendsVersion(Long userId, Long otherId) {
+        OptionalLong version = getVersion();
+        getById(userId);
+        getById(otherId);
+        return version;
+    }
+
     public void addFriend(Long userId, Long friendId) {
         if (userId.equals(friendId)) {
             throw new ValidationException("Нельзя добавить себя в друзья");
@@ -89,33 +132,112 @@ public class UserService {
         userStorage.removeFriend(userId, friendId);
     }
 
+    // Массовый импорт дружбы: id проверяются пачками через getByIds вместо двух getById на каждую строку
+    public ImportReport importFriends(Reader reader, EdgeFormat format) {
+        return friendImporter(format).run(reader);
+    }
+
+    // Импорт с построчной подачей для реактивного сервиса, как FilmService.likeImporter
+    EdgeImporter friendImporter(EdgeFormat format) {
+        return new EdgeImporter(format, "userId", "friendId",
+                new EdgeImporter.ChunkHandler() {
+                    @Override
+                    public void validate(EdgeImporter.Chunk chunk) {
+                        LongHashSet users = new LongHashSet();
+                        userStorage.getByIds(chunk.distinctAll()).forEach(user -> users.add(user.getId()));
+                        for (int i = 0; i < chunk.size(); i++) {
+                            if (chunk.from(i) == chunk.to(i)) {
+                                chunk.reject(i, "Нельзя добавить себя в друзья");
+                            } else if (!users.contains(chunk.from(i))) {
+                                chunk.reject(i, "Пользователь с id " + chunk.from(i) + " не найден");
+                            } else if (!users.contains(chunk.to(i))) {
+                                chunk.reject(i, "Пользователь с id " + chunk.to(i) + " не найден");
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void apply(List<Edge> friendships) {
+                        userStorage.addFriends(friendships);
+                    }
+
+                    @Override
+                    public void finished(ImportReport report) {
+                        log.info("Импорт дружбы: принято {}, отклонено {}", report.accepted(), report.rejected());
+                    }
+                });
+    }
+
     public List<User> getFriends(Long userId) {
+        // Версия читается до пользователя: общий результат не может оказаться старше версии в ключе
+        long version = userStorage.getVersion();
         // Проверяем, существует ли пользователь
-        userStorage.getById(userId)
+        User user = userStorage.getById(userId)
                 .orElseThrow(() -> {
                     log.error("Пользователь с ID {} не найден при получении списка друзей", userId);
                     return new NotFoundException("Пользователь с таким id не найден");
                 });
 
-        return userStorage.getFriends(userId);
+        // Без версии хранилища (JDBC) ключ не отличает чтение до записи от чтения после нее,
+        // поэтому такие запросы выполняются без схлопывания
+        if (version == UserStorage.UNVERSIONED) {
+            return userStorage.getByIds(user.getFriends());
+        }
+        return singleFlight.execute("getFriends", List.of(userId, version),
+                () -> userStorage.getByIds(user.getFriends()));
     }
 
     public List<User> getCommonFriends(Long userId, Long otherId) {
+        long version = userStorage.getVersion();
         // Проверяем, существует ли первый пользователь
-        userStorage.getById(userId)
+        User user = userStorage.getById(userId)
                 .orElseThrow(() -> {
                     log.error("Пользователь с ID {} не найден при поиске общих друзей", userId);
                     return new NotFoundException("Пользователь с таким id не найден");
                 });
 
         // Проверяем, существует ли второй пользователь
-        userStorage.getById(otherId)
+        User other = userStorage.getById(otherId)
                 .orElseThrow(() -> {
                     log.error("Пользователь с ID {} не найден при поиске общих друзей", otherId);
                     return new NotFoundException("Пользователь с таким id не найден");
                 });
 
-        return userStorage.getCommonFriends(userId, otherId);
+        // Общие друзья симметричны, поэтому запросы (a, b) и (b, a) схлопываются в одно вычисление
+        Supplier<List<User>> loader = () -> {
+            long[] commonFriendIds = LongSets.intersect(user.getFriends(), other.getFriends());
+            return userStorage.getByIds(LongSets.asList(commonFriendIds));
+        };
+        if (version == UserStorage.UNVERSIONED) {
+            return loader.get();
+        }
+        List<Long> key = List.of(Math.min(userId, otherId), Math.max(userId, otherId), version);
+        return singleFlight.execute("getCommonFriends", key, loader);
+    }
+
+    // Друзья друзей, ранжированные по числу общих друзей. Друзья пользователя раскрываются параллельно порциями,
+    // у каждой порции свой примитивный счетчик; от каждого узла берется не больше MAX_FAN_OUT соседей
+    public List<FriendRecommendation> getRecommendations(Long userId, int count) {
+        if (count <= 0 || count > MAX_RECOMMENDATIONS) {
+            throw new ValidationException("Параметр count должен быть от 1 до " + MAX_RECOMMENDATIONS);
+        }
+        User user = userStorage.getById(userId)
+                .orElseThrow(() -> {
+                    log.error("Пользователь с ID {} не найден при подборе рекомендаций", userId);
+                    return new NotFoundException("Пользователь с таким id не найден");
+                });
+
+        LongHashSet friendIds = user.getFriends();
+        List<User> friends = userStorage.getByIds(LongSets.asList(LongSets.sample(friendIds, MAX_FAN_OUT)));
+        LongIntCounter mutualFriends = LongIntCounter.countInParallel(friends.size(), PARALLEL_THRESHOLD,
+                (counter, i) -> counter.incrementAll(friends.get(i).getFriends(), MAX_FAN_OUT));
+        long[] candidateIds = mutualFriends.topK(count, id -> id == userId || friendIds.contains(id));
+
+        List<FriendRecommendation> result = new ArrayList<>(candidateIds.length);
+        for (User candidate : userStorage.getByIds(LongSets.asList(candidateIds))) {
+            result.add(new FriendRecommendation(candidate, mutualFriends.get(candidate.getId())));
+        }
+        return result;
     }
 
     private void validateUser(User user) {
@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+// Кэш сущностей по id для кэширующих хранилищ. Одиночный промах грузится через Cache.get: загрузка идёт
+// под блокировкой ключа, и invalidate дожидается её. Пакетные промахи грузятся одним запросом, а в кэш
+// кладутся, только если с начала загрузки не было инвалидаций этого ключа: иначе сущность, прочитанная
+// до записи, вернулась бы в кэш уже после invalidate этой записи. Поколения инвалидаций ведутся по полосам
+// ключей, так что запись одной сущности не мешает кэшировать остальные. Проверка идёт внутри compute по ключу,
+// поэтому invalidate, выполненный после неё, удалит положенное значение
+public final class EntityCache<V> {
+    // Число полос поколений: ключи одной полосы изредка мешают друг другу, зато память не растёт с кэшем
+    private static final int STRIPES = 1 << 12;
+
+    private final Cache<Long, V> cache;
+    private final Function<V, Long> idOf;
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    public EntityCache(Cache<Long, V> cache, Function<V, Long> idOf) {
+        this.cache = cache;
+        this.idOf = idOf;
+    }
+
+    public Optional<V> get(Long id, Function<Long, Optional<V>> loader) {
+        return Optional.ofNullable(cache.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    // Сущности в порядке ids, отсутствующие в хранилище пропускаются
+    public List<V> getAll(Collection<Long> ids, Function<List<Long>, List<V>> loader) {
+        Map<Long, V> found = new HashMap<>(cache.getAllPresent(ids));
+        Set<Long> missing = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (!found.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<Long, Long> observed = new HashMap<>(missing.size() * 2);
+            for (Long id : missing) {
+                observed.put(id, generations.get(stripe(id)));
+            }
+            for (V value : loader.apply(new ArrayList<>(missing))) {
+                Long id = idOf.apply(value);
+                found.put(id, value);
+                Long generation = observed.get(id);
+                cache.asMap().compute(id, (key, current) -> current != null || generation == null
+                        || generations.get(stripe(key)) != generation ? current : value);
+            }
+        }
+        List<V> result = new ArrayList<>(found.size());
+        for (Long id : ids) {
+            V value = found.get(id);
+            if (value != null) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    public void invalidate(Long id) {
+        generations.incrementAndGet(stripe(id));
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll(Iterable<Long> ids) {
+        for (Long id : ids) {
+            generations.incrementAndGet(stripe(id));
+        }
+        cache.invalidateAll(ids);
+    }
+
+    private static int stripe(Long id) {
+        return Long.hashCode(id * 0x9E3779B97F4A7C15L) & (STRIPES - 1);
+    }
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+
+// Искусственная задержка каждого вызова хранилища (filmorate.storage.simulated-latency) для нагрузочных замеров
+@Slf4j
+public class SimulatedLatencyPostProcessor implements BeanPostProcessor, Ordered {
+    public static final String PROPERTY = "filmorate.storage.simulated-latency";
+
+    private final Duration latency;
+
+    public SimulatedLatencyPostProcessor(Environment environment) {
+        this.latency = environment.getProperty(PROPERTY, Duration.class, Duration.ZERO);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (latency.isZero()) {
+            return bean;
+        }
+        if (bean instanceof FilmStorage) {
+            return withLatency(bean, FilmStorage.class);
+        }
+        if (bean instanceof UserStorage) {
+            return withLatency(bean, UserStorage.class);
+        }
+        return bean;
+    }
+
+    @Override
+    public int getOrder() {
+        // Задержка оборачивается первой, чтобы кэш поверх неё экономил «сетевые» вызовы
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    private Object withLatency(Object target, Class<?> storageType) {
+        log.warn("Вызовы {} задерживаются на {}", storageType.getSimpleName(), latency);
+        return Proxy.newProxyInstance(storageType.getClassLoader(), new Class<?>[]{storageType},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() != Object.class) {
+                        Thread.sleep(latency);
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
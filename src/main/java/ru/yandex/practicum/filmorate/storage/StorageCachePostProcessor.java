@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.CachingUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+// Оборачивает бины хранилищ в кэширующие декораторы, если кэш включен в настройках
+@Slf4j
+public class StorageCachePostProcessor implements BeanPostProcessor, Ordered {
+    private final StorageCacheProperties properties;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public StorageCachePostProcessor(Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.properties = Binder.get(environment)
+                .bind(StorageCacheProperties.PREFIX, StorageCacheProperties.class)
+                .orElse(StorageCacheProperties.disabled());
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!properties.enabled()) {
+            return bean;
+        }
+        if (bean instanceof FilmStorage filmStorage) {
+            log.info("Включен кэш фильмов: размер {}, ttl {}", properties.maxSize(), properties.ttl());
+            return new CachingFilmStorage(filmStorage, this.<Film>buildCache("films"));
+        }
+        if (bean instanceof UserStorage userStorage) {
+            log.info("Включен кэш пользователей: размер {}, ttl {}", properties.maxSize(), properties.ttl());
+            return new CachingUserStorage(userStorage, this.<User>buildCache("users"));
+        }
+        return bean;
+    }
+
+    @Override
+    public int getOrder() {
+        // Кэш располагается под метриками: таймеры учитывают и попадания, и промахи
+        return Ordered.LOWEST_PRECEDENCE - 10;
+    }
+
+    private <T> Cache<Long, T> buildCache(String name) {
+        Cache<Long, T> cache = Caffeine.newBuilder()
+                .maximumSize(properties.maxSize())
+                .expireAfterWrite(properties.ttl())
+                .recordStats()
+                .build();
+        // Реестр метрик запрашивается лениво: пост-процессор создаётся раньше остальных бинов
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, name));
+        return cache;
+    }
+}
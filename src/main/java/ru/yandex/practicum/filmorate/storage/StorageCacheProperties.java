@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.time.Duration;
+
+// Настройки кэша чтения перед хранилищами (filmorate.storage.cache.*)
+public record StorageCacheProperties(boolean enabled, long maxSize, Duration ttl) {
+    public static final String PREFIX = "filmorate.storage.cache";
+
+    public StorageCacheProperties {
+        if (maxSize <= 0) {
+            maxSize = 100_000;
+        }
+        if (ttl == null) {
+            ttl = Duration.ofMinutes(5);
+        }
+    }
+
+    public static StorageCacheProperties disabled() {
+        return new StorageCacheProperties(false, 0, null);
+    }
+}
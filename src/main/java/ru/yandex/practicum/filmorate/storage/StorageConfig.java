@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+public class StorageConfig {
+
+    @Bean
+    public static StorageCachePostProcessor storageCachePostProcessor(Environment environment,
+                                                                      ObjectProvider<MeterRegistry> meterRegistry) {
+        return new StorageCachePostProcessor(environment, meterRegistry);
+    }
+
+    @Bean
+    public static StorageMetricsPostProcessor storageMetricsPostProcessor(Environment environment,
+                                                                          ObjectProvider<MeterRegistry> meterRegistry) {
+        return new StorageMetricsPostProcessor(environment, meterRegistry);
+    }
+
+    @Bean
+    public static SimulatedLatencyPostProcessor simulatedLatencyPostProcessor(Environment environment) {
+        return new SimulatedLatencyPostProcessor(environment);
+    }
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Общие имена и теги метрик хранилищ; метры создаются один раз при обёртке бина, а не на каждый вызов
+public final class StorageMeters {
+    public static final String CALLS = "filmorate.storage.calls";
+    public static final String INVOCATIONS = "filmorate.storage.invocations";
+    public static final String RESULT_SIZE = "filmorate.storage.result.size";
+    public static final String RELATION_SIZE = "filmorate.storage.relation.size";
+
+    private StorageMeters() {
+    }
+
+    public static Timer timer(MeterRegistry registry, String storage, String method) {
+        return Timer.builder(CALLS)
+                .description("Время выполнения методов хранилища")
+                .tag("storage", storage)
+                .tag("method", method)
+                .register(registry);
+    }
+
+    public static Operation operation(MeterRegistry registry, String storage, String method, int sampleEvery) {
+        Counter invocations = Counter.builder(INVOCATIONS)
+                .description("Число вызовов методов хранилища")
+                .tag("storage", storage)
+                .tag("method", method)
+                .register(registry);
+        return new Operation(invocations, timer(registry, storage, method), sampleEvery);
+    }
+
+    public static DistributionSummary resultSize(MeterRegistry registry, String storage, String method) {
+        return DistributionSummary.builder(RESULT_SIZE)
+                .description("Количество сущностей в ответе хранилища")
+                .tag("storage", storage)
+                .tag("method", method)
+                .register(registry);
+    }
+
+    public static DistributionSummary relationSize(MeterRegistry registry, String storage, String relation) {
+        return DistributionSummary.builder(RELATION_SIZE)
+                .description("Размер множества связей сущности после записи")
+                .tag("storage", storage)
+                .tag("relation", relation)
+                .register(registry);
+    }
+
+    // Метры одного метода: точный счётчик вызовов и таймер по выборке из каждых sampleEvery вызовов.
+    // Счётчик стоит единицы наносекунд, а таймер с двумя System.nanoTime() и окном максимума — сотни,
+    // поэтому на чтениях из памяти время измеряется выборочно
+    public static final class Operation {
+        private static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+        private final Counter invocations;
+        private final Timer timer;
+        private final int sampleMask;
+
+        private Operation(Counter invocations, Timer timer, int sampleEvery) {
+            this.invocations = invocations;
+            this.timer = timer;
+            // Округление вверх до степени двойки, чтобы выборка была одной маской
+            this.sampleMask = Integer.highestOneBit(Math.max(1, sampleEvery) * 2 - 1) - 1;
+        }
+
+        // Время начала вызова или NOT_SAMPLED, если вызов не попал в выборку
+        public long start() {
+            invocations.increment();
+            if (sampleMask != 0 && (ThreadLocalRandom.current().nextInt() & sampleMask) != 0) {
+                return NOT_SAMPLED;
+            }
+            return System.nanoTime();
+        }
+
+        public boolean sampled(long start) {
+            return start != NOT_SAMPLED;
+        }
+
+        public void stop(long start) {
+            if (start != NOT_SAMPLED) {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.MeteredFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.MeteredUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+// Оборачивает бины хранилищ в декораторы с метриками (filmorate.storage.metrics.enabled). Вызовы считаются
+// все, а время и размеры записываются у каждого sample-every-го вызова: таймер на каждом вызове в разы
+// удорожает чтения из памяти. sample-every=1 измеряет все вызовы, для диагностики
+public class StorageMetricsPostProcessor implements BeanPostProcessor, Ordered {
+    private final boolean enabled;
+    private final int sampleEvery;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public StorageMetricsPostProcessor(Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.enabled = environment.getProperty("filmorate.storage.metrics.enabled", Boolean.class, true);
+        this.sampleEvery = environment.getProperty("filmorate.storage.metrics.sample-every", Integer.class, 64);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!enabled || !(bean instanceof FilmStorage || bean instanceof UserStorage)) {
+            return bean;
+        }
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return bean;
+        }
+        if (bean instanceof FilmStorage filmStorage) {
+            return new MeteredFilmStorage(filmStorage, registry, sampleEvery);
+        }
+        return new MeteredUserStorage((UserStorage) bean, registry, sampleEvery);
+    }
+
+    @Override
+    public int getOrder() {
+        // Метрики — внешний слой, они измеряют хранилище так, как его видят сервисы
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import ru.yandex.practicum.filmorate.model.Edge;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.PopularFilter;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+// Реактивный фасад над синхронным хранилищем фильмов (со всеми его декораторами): каждый вызов
+// выполняется на пуле storageScheduler, а полный список отдается страницами по запросу подписчика
+@Component
+@Profile("reactive")
+public class BlockingReactiveFilmStorage implements ReactiveFilmStorage {
+    static final int PAGE_SIZE = 500;
+
+    private final FilmStorage delegate;
+    private final Scheduler scheduler;
+
+    public BlockingReactiveFilmStorage(FilmStorage delegate, Scheduler storageScheduler) {
+        this.delegate = delegate;
+        this.scheduler = storageScheduler;
+    }
+
+    @Override
+    public Flux<Film> getAll() {
+        // generate выдает следующую страницу только на новый запрос, поэтому медленный клиент
+        // держит в памяти не больше одной страницы
+        return Flux.<List<Film>, Long>generate(() -> 0L, (afterId, sink) -> {
+                    List<Film> page = delegate.getPage(afterId, PAGE_SIZE);
+                    if (page.isEmpty()) {
+                        sink.complete();
+                        return afterId;
+                    }
+                    sink.next(page);
+                    return page.getLast().getId();
+                })
+                .subscribeOn(scheduler)
+                .flatMapIterable(page -> page, 1);
+    }
+
+    @Override
+    public Mono<List<Film>> getPage(long afterId, int limit) {
+        return call(() -> delegate.getPage(afterId, limit));
+    }
+
+    @Override
+    public Mono<Film> create(Film film) {
+        return call(() -> delegate.create(film));
+    }
+
+    @Override
+    public Mono<Film> update(Film film) {
+        return call(() -> delegate.update(film));
+    }
+
+    @Override
+    public Mono<Film> getById(Long id) {
+        return Mono.fromCallable(() -> delegate.getById(id).orElse(null)).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Flux<Film> getByIds(Collection<Long> ids) {
+        return call(() -> delegate.getByIds(ids)).flatMapIterable(films -> films);
+    }
+
+    @Override
+    public Mono<Void> addLike(Long filmId, Long userId) {
+        return run(() -> delegate.addLike(filmId, userId));
+    }
+
+    @Override
+    public Mono<Void> removeLike(Long filmId, Long userId) {
+        return run(() -> delegate.removeLike(filmId, userId));
+    }
+
+    @Override
+    public Mono<Void> addLikes(Collection<Edge> likes) {
+        return run(() -> delegate.addLikes(likes));
+    }
+
+    @Override
+    public Flux<Film> getPopular(int count, PopularFilter filter) {
+        return call(() -> delegate.getPopular(count, filter)).flatMapIterable(films -> films);
+    }
+
+    @Override
+    public Flux<Film> getTrending(int count, TrendingWindow window) {
+        return call(() -> delegate.getTrending(count, window)).flatMapIterable(films -> films);
+    }
+
+    @Override
+    public Mono<long[]> getLikedFilmIds(Long userId) {
+        return call(() -> delegate.getLikedFilmIds(userId));
+    }
+
+    @Override
+    public Mono<Long> getVersion() {
+        return Mono.fromSupplier(delegate::getVersion);
+    }
+
+    private <T> Mono<T> call(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(scheduler);
+    }
+
+    private Mono<Void> run(Runnable action) {
+        return Mono.fromRunnable(action).subscribeOn(scheduler).then();
+    }
+}
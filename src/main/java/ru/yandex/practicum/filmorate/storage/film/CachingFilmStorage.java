@@ -0,0 +1,124 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import ru.yandex.practicum.filmorate.model.Edge;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.PopularFilter;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import ru.yandex.practicum.filmorate.storage.EntityCache;
+
+import java.util.*;
+
+// Кэш чтения перед хранилищем фильмов: getById и getByIds обращаются к хранилищу только при промахе
+public class CachingFilmStorage implements FilmStorage {
+    private final FilmStorage delegate;
+    private final EntityCache<Film> cache;
+
+    public CachingFilmStorage(FilmStorage delegate, Cache<Long, Film> cache) {
+        this.delegate = delegate;
+        this.cache = new EntityCache<>(cache, Film::getId);
+    }
+
+    @Override
+    public List<Film> getAll() {
+        return delegate.getAll();
+    }
+
+    @Override
+    public List<Film> getPage(long afterId, int limit) {
+        return delegate.getPage(afterId, limit);
+    }
+
+    @Override
+    public Film create(Film film) {
+        return delegate.create(film);
+    }
+
+    @Override
+    public Film update(Film film) {
+        try {
+            return delegate.update(film);
+        } finally {
+            cache.invalidate(film.getId());
+        }
+    }
+
+    @Override
+    public Optional<Film> getById(Long id) {
+        return cache.get(id, delegate::getById);
+    }
+
+    @Override
+    public List<Film> getByIds(Collection<Long> ids) {
+        return cache.getAll(ids, delegate::getByIds);
+    }
+
+    @Override
+    public void addLike(Long filmId, Long userId) {
+        try {
+            delegate.addLike(filmId, userId);
+        } finally {
+            cache.invalidate(filmId);
+        }
+    }
+
+    @Override
+    public void removeLike(Long filmId, Long userId) {
+        try {
+            delegate.removeLike(filmId, userId);
+        } finally {
+            cache.invalidate(filmId);
+        }
+    }
+
+    @Override
+    public void addLikes(Collection<Edge> likes) {
+        try {
+            delegate.addLikes(likes);
+        } finally {
+            invalidateFilms(likes);
+        }
+    }
+
+    @Override
+    public void removeLikes(Collection<Edge> likes) {
+        try {
+            delegate.removeLikes(likes);
+        } finally {
+            invalidateFilms(likes);
+        }
+    }
+
+    @Override
+    public List<Film> getPopular(int count, PopularFilter filter) {
+        return delegate.getPopular(count, filter);
+    }
+
+    @Override
+    public List<Film> getTrending(int count, TrendingWindow window) {
+        return delegate.getTrending(count, window);
+    }
+
+    @Override
+    public long[] getLikedFilmIds(Long userId) {
+        return delegate.getLikedFilmIds(userId);
+    }
+
+    @Override
+    public Map<Long, long[]> getLikedFilmIds(Collection<Long> userIds) {
+        return delegate.getLikedFilmIds(userIds);
+    }
+
+    @Override
+    public long getVersion() {
+        return delegate.getVersion();
+    }
+
+    private void invalidateFilms(Collection<Edge> likes) {
+        Set<Long> filmIds = new HashSet<>();
+        for (Edge like : likes) {
+            filmIds.add(like.from());
+        }
+        cache.invalidateAll(filmIds);
+    }
+}
@@ -1,23 +1,58 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import ru.yandex.practicum.filmorate.model.Edge;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.PopularFilter;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface FilmStorage {
+    // Значение getVersion у хранилищ, которые не ведут версий: условные GET тогда не обрабатываются
+    long UNVERSIONED = 0;
 
     List<Film> getAll();
 
+    List<Film> getPage(long afterId, int limit);
+
     Film create(Film film);
 
     Film update(Film film);
 
     Optional<Film> getById(Long id);
 
+    List<Film> getByIds(Collection<Long> ids);
+
     void addLike(Long filmId, Long userId);
 
     void removeLike(Long filmId, Long userId);
 
-    List<Film> getPopular(int count);
+    // Пакетная запись лайков: from - id фильма, to - id пользователя. Существование id проверяет вызывающий
+    void addLikes(Collection<Edge> likes);
+
+    // Пакетное снятие лайков в том же формате
+    void removeLikes(Collection<Edge> likes);
+
+    default List<Film> getPopular(int count) {
+        return getPopular(count, PopularFilter.NONE);
+    }
+
+    List<Film> getPopular(int count, PopularFilter filter);
+
+    // Фильмы по числу лайков, поставленных за последнее окно времени, без фильмов с нулём лайков в окне
+    List<Film> getTrending(int count, TrendingWindow window);
+
+    // Id фильмов, лайкнутых пользователем, по возрастанию. Массив может быть общим снимком хранилища
+    // и не изменяется вызывающим кодом
+    long[] getLikedFilmIds(Long userId);
+
+    // То же для нескольких пользователей за одно обращение: ключи — все запрошенные id,
+    // у пользователей без лайков пустой массив
+    Map<Long, long[]> getLikedFilmIds(Collection<Long> userIds);
+
+    // Версия данных хранилища: растёт после каждой записи, когда изменение уже видно читателям
+    long getVersion();
 }
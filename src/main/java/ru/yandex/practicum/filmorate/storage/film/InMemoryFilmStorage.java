@@ -1,42 +1,184 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Edge;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.PopularFilter;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.storage.journal.Journal;
+import ru.yandex.practicum.filmorate.storage.journal.JournalFactory;
+import ru.yandex.practicum.filmorate.storage.journal.RecordBuffer;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
 
+import java.nio.ByteBuffer;
+import java.time.Clock;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @Component
+@Profile("!jdbc")
 @Slf4j
 public class InMemoryFilmStorage implements FilmStorage {
-    private final Map<Long, Film> films = new HashMap<>();
-    private long filmId = 1L;
+    // По убыванию лайков, затем по id. Сравнение записано явно, а не цепочкой comparingInt().reversed()
+    // .thenComparingLong(): при восстановлении индексы строятся десятками миллионов сравнений
+    private static final Comparator<PopularityKey> POPULARITY_ORDER = (left, right) -> left.likes() != right.likes()
+            ? Integer.compare(right.likes(), left.likes())
+            : Long.compare(left.filmId(), right.filmId());
+    // Ширина полосы продолжительности в индексе популярности, минут
+    private static final int DURATION_BAND = 30;
+    // Типы записей журнала фильмов
+    private static final byte FILM_PUT = 1;
+    private static final byte LIKE_ADD = 2;
+    private static final byte LIKE_REMOVE = 3;
+    // Лайки со временем для окон трендов и состояние окон фильма в снимке. Записи без времени
+    // из журналов прежних версий по-прежнему читаются и на тренды не влияют
+    private static final byte LIKE_ADD_AT = 4;
+    private static final byte LIKE_REMOVE_AT = 5;
+    private static final byte TREND = 6;
+    // Состояние окон в снимке без пустых корзин; TREND с полным кольцом читается из снимков прежних версий
+    private static final byte TREND_SPARSE = 7;
+
+    private final ConcurrentMap<Long, Film> films = new ConcurrentHashMap<>();
+    // Индекс популярности: фильмы, упорядоченные по убыванию числа лайков
+    private final NavigableSet<PopularityKey> popularity = new ConcurrentSkipListSet<>(POPULARITY_ORDER);
+    // Корзины того же индекса по году выхода и по полосам продолжительности; меняются вместе с popularity
+    private final ConcurrentMap<Integer, NavigableSet<PopularityKey>> popularityByYear = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, NavigableSet<PopularityKey>> popularityByDuration = new ConcurrentHashMap<>();
+    // Обратный индекс лайков: пользователь -> лайкнутые фильмы. Меняется под монитором фильма вместе с Film.likes
+    private final ConcurrentMap<Long, LongHashSet> likedFilms = new ConcurrentHashMap<>();
+    // Лайки за последние час, сутки и неделю по фильмам и индексы трендов по каждому окну в порядке popularity.
+    // Без новых лайков счётчики фильма со временем только убывают, поэтому число в индексе — оценка сверху:
+    // getTrending уточняет её у встреченных фильмов и переставляет их в индексе вместо пересчёта всех фильмов
+    private final ConcurrentMap<Long, LikeTrend> trends = new ConcurrentHashMap<>();
+    private final Map<TrendingWindow, NavigableSet<PopularityKey>> trending = new EnumMap<>(TrendingWindow.class);
+    private final AtomicLong filmId = new AtomicLong(1L);
+    // Версия хранилища. Отсчёт от времени запуска (по 65536 значений на миллисекунду), чтобы ETag,
+    // выданные до перезапуска, не совпали с версиями восстановленных из журнала данных
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis() << 16);
+    private final Journal journal;
+    private final Clock clock;
+
+    public InMemoryFilmStorage() {
+        this(Clock.systemUTC());
+    }
+
+    InMemoryFilmStorage(Clock clock) {
+        this(clock, Journal.DISABLED);
+    }
+
+    InMemoryFilmStorage(Clock clock, Journal journal) {
+        this.clock = clock;
+        initTrending();
+        this.journal = journal;
+    }
+
+    @Autowired
+    public InMemoryFilmStorage(JournalFactory journals) {
+        clock = Clock.systemUTC();
+        initTrending();
+        journal = journals.open("films", this::replay, this::writeSnapshot);
+        restoreIndexes();
+    }
 
     @Override
     public List<Film> getAll() {
-        log.info("Получен запрос на получение всех фильмов. Количество: {}", films.size());
+        if (log.isDebugEnabled()) {
+            log.debug("Получен запрос на получение всех фильмов. Количество: {}", films.size());
+        }
         return new ArrayList<>(films.values());
     }
 
+    @Override
+    public List<Film> getPage(long afterId, int limit) {
+        // id выдаются подряд, поэтому страница собирается прямым перебором ключей без сортировки
+        long lastId = filmId.get();
+        // Курсор за последним выданным id: afterId + 1 при afterId = Long.MAX_VALUE переполнился бы
+        if (afterId >= lastId - 1) {
+            return new ArrayList<>();
+        }
+        List<Film> result = new ArrayList<>(limit);
+        for (long id = afterId + 1; id < lastId && result.size() < limit; id++) {
+            Film film = films.get(id);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
     @Override
     public Film create(Film film) {
-        film.setId(filmId++);
-        films.put(film.getId(), film);
-        log.info("Добавлен фильм: {} с ID: {}", film.getName(), film.getId());
+        film.setId(filmId.getAndIncrement());
+        synchronized (film) {
+            // Запись журнала идёт до публикации: отказавший журнал не оставит в памяти незаписанного фильма.
+            // Версия фильма проставляется до публикации, версия хранилища растёт после неё
+            journal.append(FILM_PUT, out -> writeFilm(out, film));
+            film.setVersion(version.incrementAndGet());
+            films.put(film.getId(), film);
+            indexPopularity(film, PopularityKey.of(film));
+            for (long userId : film.getLikes().sortedView()) {
+                indexLike(userId, film.getId());
+            }
+            version.incrementAndGet();
+        }
+        journal.commit();
+        if (log.isInfoEnabled()) {
+            log.info("Добавлен фильм: {} с ID: {}", film.getName(), film.getId());
+        }
         return film;
     }
 
     @Override
     public Film update(Film film) {
-        if (!films.containsKey(film.getId())) {
-            log.error("Фильм с ID {} не найден", film.getId());
-            throw new NotFoundException("Фильм с таким id не найден");
+        long now = clock.millis();
+        while (true) {
+            Film oldFilm = films.get(film.getId());
+            if (oldFilm == null) {
+                log.error("Фильм с ID {} не найден", film.getId());
+                throw new NotFoundException("Фильм с таким id не найден");
+            }
+            boolean replaced = false;
+            // Блокируем заменяемый экземпляр, чтобы параллельный лайк не попал в индекс после замены
+            synchronized (oldFilm) {
+                synchronized (film) {
+                    // Экземпляр заменяется только под его монитором, поэтому проверка остаётся верной до замены
+                    if (films.get(film.getId()) == oldFilm) {
+                        // Записи журнала добавляются до изменения состояния: при отказе журнала фильм остаётся прежним.
+                        // Лайки, пришедшие или снятые вместе с обновлением, попадают в тренды как поставленные
+                        // или снятые сейчас. Время лайков в FILM_PUT не пишется, поэтому они журналируются
+                        // отдельными записями перед ним и при восстановлении применяются к прежнему фильму
+                        journalLikeChanges(film.getId(), oldFilm.getLikes(), film.getLikes(), now);
+                        journal.append(FILM_PUT, out -> writeFilm(out, film));
+                        film.setVersion(version.incrementAndGet());
+                        films.put(film.getId(), film);
+                        try {
+                            unindexPopularity(oldFilm, PopularityKey.of(oldFilm));
+                            indexPopularity(film, PopularityKey.of(film));
+                            reindexLikes(film.getId(), oldFilm.getLikes(), film.getLikes());
+                            retrendLikes(film.getId(), oldFilm.getLikes(), film.getLikes(), now);
+                        } finally {
+                            version.incrementAndGet();
+                        }
+                        replaced = true;
+                    }
+                }
+            }
+            if (replaced) {
+                journal.commit();
+                if (log.isInfoEnabled()) {
+                    log.info("Обновлен фильм с ID: {}", film.getId());
+                }
+                return film;
+            }
         }
-        films.put(film.getId(), film);
-        log.info("Обновлен фильм с ID: {}", film.getId());
-        return film;
     }
 
     @Override
@@ -44,26 +186,537 @@ public class InMemoryFilmStorage implements FilmStorage {
         return Optional.ofNullable(films.get(id));
     }
 
+    @Override
+    public List<Film> getByIds(Collection<Long> ids) {
+        List<Film> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Film film = films.get(id);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
     @Override
     public void addLike(Long filmId, Long userId) {
-        Film film = getFilm(filmId);
-        film.addLike(userId);
-        log.info("Пользователь {} поставил лайк фильму {}", userId, filmId);
+        long now = clock.millis();
+        updateLikes(filmId, now, film -> {
+            journal.append(LIKE_ADD_AT, out -> writeLike(out, filmId, userId, now));
+            if (!film.getLikes().contains(userId)) {
+                trendLike(filmId, userId, now);
+            }
+            film.addLike(userId);
+            indexLike(userId, filmId);
+        });
+        journal.commit();
+        if (log.isDebugEnabled()) {
+            log.debug("Пользователь {} поставил лайк фильму {}", userId, filmId);
+        }
     }
 
     @Override
     public void removeLike(Long filmId, Long userId) {
-        Film film = getFilm(filmId);
-        film.removeLike(userId);
-        log.info("Пользователь {} удалил лайк с фильма {}", userId, filmId);
+        long now = clock.millis();
+        updateLikes(filmId, now, film -> {
+            journal.append(LIKE_REMOVE_AT, out -> writeLike(out, filmId, userId, now));
+            if (film.getLikes().contains(userId)) {
+                trendUnlike(filmId, userId, now);
+            }
+            film.removeLike(userId);
+            unindexLike(userId, filmId);
+        });
+        journal.commit();
+        if (log.isDebugEnabled()) {
+            log.debug("Пользователь {} удалил лайк с фильма {}", userId, filmId);
+        }
+    }
+
+    @Override
+    public void addLikes(Collection<Edge> likes) {
+        updateLikes(likes, true);
+        if (log.isDebugEnabled()) {
+            log.debug("Импортировано {} лайков", likes.size());
+        }
+    }
+
+    @Override
+    public void removeLikes(Collection<Edge> likes) {
+        updateLikes(likes, false);
+        if (log.isDebugEnabled()) {
+            log.debug("Удалено {} лайков", likes.size());
+        }
+    }
+
+    // Лайки группируются по фильму: монитор берется и индекс популярности перестраивается один раз на фильм
+    private void updateLikes(Collection<Edge> likes, boolean added) {
+        long now = clock.millis();
+        Edge[] sorted = likes.toArray(new Edge[0]);
+        Arrays.sort(sorted, Comparator.comparingLong(Edge::from));
+        int start = 0;
+        while (start < sorted.length) {
+            long filmId = sorted[start].from();
+            int end = start;
+            while (end < sorted.length && sorted[end].from() == filmId) {
+                end++;
+            }
+            int from = start;
+            int to = end;
+            updateLikes(filmId, now, film -> {
+                for (int i = from; i < to; i++) {
+                    long userId = sorted[i].to();
+                    if (added) {
+                        journal.append(LIKE_ADD_AT, out -> writeLike(out, filmId, userId, now));
+                        if (!film.getLikes().contains(userId)) {
+                            trendLike(filmId, userId, now);
+                        }
+                        film.addLike(userId);
+                        indexLike(userId, filmId);
+                    } else {
+                        journal.append(LIKE_REMOVE_AT, out -> writeLike(out, filmId, userId, now));
+                        if (film.getLikes().contains(userId)) {
+                            trendUnlike(filmId, userId, now);
+                        }
+                        film.removeLike(userId);
+                        unindexLike(userId, filmId);
+                    }
+                }
+            });
+            start = end;
+        }
+        // Вся пачка фиксируется одним ожиданием записи журнала
+        journal.commit();
+    }
+
+    @Override
+    public long[] getLikedFilmIds(Long userId) {
+        LongHashSet liked = likedFilms.get(userId);
+        return liked == null ? new long[0] : liked.sortedView();
+    }
+
+    @Override
+    public Map<Long, long[]> getLikedFilmIds(Collection<Long> userIds) {
+        Map<Long, long[]> result = new HashMap<>(userIds.size() * 2);
+        for (Long userId : userIds) {
+            result.put(userId, getLikedFilmIds(userId));
+        }
+        return result;
+    }
+
+    @Override
+    public long getVersion() {
+        return version.get();
     }
 
     @Override
-    public List<Film> getPopular(int count) {
-        return films.values().stream()
-                .sorted((f1, f2) -> Integer.compare(f2.getLikesCount(), f1.getLikesCount()))
-                .limit(count)
-                .collect(Collectors.toList());
+    public List<Film> getPopular(int count, PopularFilter filter) {
+        // Год сужает выборку сильнее полос продолжительности, поэтому при обоих условиях читается корзина года,
+        // а продолжительность проверяется по фильму. Проверка нужна и для краевых полос диапазона
+        Iterator<PopularityKey> candidates;
+        if (filter.year() != null) {
+            candidates = popularityByYear.getOrDefault(filter.year(), Collections.emptyNavigableSet()).iterator();
+        } else if (filter.hasDuration()) {
+            candidates = durationCandidates(filter.durationFrom(), filter.durationTo());
+        } else {
+            candidates = popularity.iterator();
+        }
+        List<Film> result = new ArrayList<>(Math.min(count, 1024));
+        // Итерация по индексу слабо согласована: при параллельной переиндексации фильм может встретиться дважды
+        Set<Long> seen = new HashSet<>();
+        while (result.size() < count && candidates.hasNext()) {
+            PopularityKey key = candidates.next();
+            if (seen.add(key.filmId())) {
+                Film film = films.get(key.filmId());
+                if (film != null && filter.matches(film)) {
+                    result.add(film);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Film> getTrending(int count, TrendingWindow window) {
+        long now = clock.millis();
+        NavigableSet<PopularityKey> index = trending.get(window);
+        List<Film> result = new ArrayList<>(Math.min(count, 1024));
+        Set<Long> seen = new HashSet<>();
+        Iterator<PopularityKey> first = index.iterator();
+        PopularityKey key = first.hasNext() ? first.next() : null;
+        // Фильм принимается, когда его точное число лайков в окне совпало с числом в индексе: у всех следующих
+        // ключей оценка сверху не больше. Устаревшие ключи переставляются ниже и встретятся дальше по индексу
+        while (key != null && result.size() < count) {
+            Film film = films.get(key.filmId());
+            if (film != null && !seen.contains(key.filmId()) && refreshTrend(film, key, window, now)) {
+                seen.add(key.filmId());
+                result.add(film);
+            }
+            key = index.higher(key);
+        }
+        return result;
+    }
+
+    // Пересчитывает окна фильма на текущее время; true, если ключ из индекса остался точным
+    private boolean refreshTrend(Film film, PopularityKey key, TrendingWindow window, long now) {
+        synchronized (film) {
+            if (films.get(film.getId()) != film) {
+                return false;
+            }
+            LikeTrend trend = trends.get(film.getId());
+            if (trend == null || trend.indexed(window) != key.likes()) {
+                return false;
+            }
+            reindexTrend(film.getId(), trend, now);
+            return trend.indexed(window) == key.likes();
+        }
+    }
+
+    // Вызывается под монитором фильма или при однопоточном восстановлении; индекс трендов не трогает
+    private void trendLike(long filmId, long userId, long time) {
+        trends.computeIfAbsent(filmId, id -> new LikeTrend()).like(userId, time);
+    }
+
+    private void trendUnlike(long filmId, long userId, long time) {
+        LikeTrend trend = trends.get(filmId);
+        if (trend != null) {
+            trend.unlike(userId, time);
+        }
+    }
+
+    // Переносит в тренды разницу лайков при замене фильма
+    private void retrendLikes(long filmId, LongHashSet before, LongHashSet after, long now) {
+        for (long userId : before.sortedView()) {
+            if (!after.contains(userId)) {
+                trendUnlike(filmId, userId, now);
+            }
+        }
+        for (long userId : after.sortedView()) {
+            if (!before.contains(userId)) {
+                trendLike(filmId, userId, now);
+            }
+        }
+        LikeTrend trend = trends.get(filmId);
+        if (trend != null) {
+            reindexTrend(filmId, trend, now);
+        }
+    }
+
+    // Журналирует ту же разницу лайков записями со временем
+    private void journalLikeChanges(long filmId, LongHashSet before, LongHashSet after, long now) {
+        for (long userId : before.sortedView()) {
+            if (!after.contains(userId)) {
+                journal.append(LIKE_REMOVE_AT, out -> writeLike(out, filmId, userId, now));
+            }
+        }
+        for (long userId : after.sortedView()) {
+            if (!before.contains(userId)) {
+                journal.append(LIKE_ADD_AT, out -> writeLike(out, filmId, userId, now));
+            }
+        }
+    }
+
+    // Вызывается под монитором фильма или при однопоточном восстановлении
+    private void reindexTrend(long filmId, LikeTrend trend, long now) {
+        boolean empty = true;
+        for (TrendingWindow window : TrendingWindow.values()) {
+            int likes = trend.count(window, now);
+            int indexed = trend.indexed(window);
+            if (likes != indexed) {
+                NavigableSet<PopularityKey> index = trending.get(window);
+                if (indexed > 0) {
+                    index.remove(new PopularityKey(indexed, filmId));
+                }
+                if (likes > 0) {
+                    index.add(new PopularityKey(likes, filmId));
+                }
+                trend.setIndexed(window, likes);
+            }
+            empty &= likes == 0;
+        }
+        if (empty) {
+            trends.remove(filmId, trend);
+        }
+    }
+
+    private void initTrending() {
+        for (TrendingWindow window : TrendingWindow.values()) {
+            trending.put(window, newPopularitySet());
+        }
+    }
+
+    // Слияние отсортированных корзин полос, пересекающих диапазон, в один поток по убыванию популярности
+    private Iterator<PopularityKey> durationCandidates(int from, int to) {
+        int firstBand = durationBand(from);
+        int lastBand = durationBand(to);
+        List<Iterator<PopularityKey>> bands = new ArrayList<>();
+        popularityByDuration.forEach((band, keys) -> {
+            if (band >= firstBand && band <= lastBand) {
+                bands.add(keys.iterator());
+            }
+        });
+        return new MergingIterator(bands);
+    }
+
+    private void indexPopularity(Film film, PopularityKey key) {
+        popularity.add(key);
+        if (film.getReleaseDate() != null) {
+            popularityByYear.computeIfAbsent(film.getReleaseDate().getYear(), year -> newPopularitySet()).add(key);
+        }
+        if (film.getDuration() != null) {
+            popularityByDuration.computeIfAbsent(durationBand(film.getDuration()), band -> newPopularitySet()).add(key);
+        }
+    }
+
+    // Пустые корзины не удаляются по той же причине, что и множества обратного индекса лайков
+    private void unindexPopularity(Film film, PopularityKey key) {
+        popularity.remove(key);
+        if (film.getReleaseDate() != null) {
+            NavigableSet<PopularityKey> bucket = popularityByYear.get(film.getReleaseDate().getYear());
+            if (bucket != null) {
+                bucket.remove(key);
+            }
+        }
+        if (film.getDuration() != null) {
+            NavigableSet<PopularityKey> bucket = popularityByDuration.get(durationBand(film.getDuration()));
+            if (bucket != null) {
+                bucket.remove(key);
+            }
+        }
+    }
+
+    private static NavigableSet<PopularityKey> newPopularitySet() {
+        return new ConcurrentSkipListSet<>(POPULARITY_ORDER);
+    }
+
+    private static int durationBand(int duration) {
+        return Math.floorDiv(duration, DURATION_BAND);
+    }
+
+    private void updateLikes(Long id, long now, Consumer<Film> mutation) {
+        while (true) {
+            Film film = getFilm(id);
+            // Лайки одного фильма меняются под его монитором, разные фильмы не блокируют друг друга
+            synchronized (film) {
+                if (films.get(id) != film) {
+                    continue;
+                }
+                int likesBefore = film.getLikesCount();
+                // Каждый лайк журналируется до изменения. Если пачка прервалась отказом журнала на середине,
+                // уже применённая часть всё равно попадает в индексы
+                try {
+                    mutation.accept(film);
+                } finally {
+                    if (film.getLikesCount() != likesBefore) {
+                        unindexPopularity(film, new PopularityKey(likesBefore, id));
+                        indexPopularity(film, PopularityKey.of(film));
+                        LikeTrend trend = trends.get(id);
+                        if (trend != null) {
+                            reindexTrend(id, trend, now);
+                        }
+                        film.setVersion(version.incrementAndGet());
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    private void replay(byte type, ByteBuffer in) {
+        // Восстановление идет до публикации бина, поэтому мониторы и индексы не нужны. Записи снимка
+        // (FILM_PUT, TREND) могут применяться из нескольких потоков сразу и пишут только в concurrent-карты,
+        // записи лайков идут из хвоста журнала по порядку в одном потоке
+        switch (type) {
+            case FILM_PUT -> {
+                Film film = readFilm(in);
+                films.put(film.getId(), film);
+            }
+            case LIKE_ADD, LIKE_REMOVE, LIKE_ADD_AT, LIKE_REMOVE_AT -> {
+                Film film = films.get(in.getLong());
+                long userId = in.getLong();
+                if (film == null) {
+                    return;
+                }
+                int likesBefore = film.getLikesCount();
+                if (type == LIKE_ADD || type == LIKE_ADD_AT) {
+                    film.addLike(userId);
+                } else {
+                    film.removeLike(userId);
+                }
+                int delta = film.getLikesCount() - likesBefore;
+                if (delta != 0 && (type == LIKE_ADD_AT || type == LIKE_REMOVE_AT)) {
+                    long time = in.getLong();
+                    if (delta > 0) {
+                        trendLike(film.getId(), userId, time);
+                    } else {
+                        trendUnlike(film.getId(), userId, time);
+                    }
+                }
+            }
+            case TREND, TREND_SPARSE -> {
+                long filmId = in.getLong();
+                trends.put(filmId, LikeTrend.read(in, type == TREND_SPARSE));
+            }
+            default -> throw new IllegalStateException("Неизвестный тип записи журнала фильмов: " + type);
+        }
+    }
+
+    // Индексы популярности и лайков строятся один раз по итоговому состоянию, а не на каждую запись журнала
+    private void restoreIndexes() {
+        long maxId = 0;
+        long likeCount = 0;
+        PopularityKey[] keys = new PopularityKey[films.size()];
+        int position = 0;
+        for (Film film : films.values()) {
+            maxId = Math.max(maxId, film.getId());
+            likeCount += film.getLikesCount();
+            keys[position++] = PopularityKey.of(film);
+            film.setVersion(version.incrementAndGet());
+        }
+        filmId.set(maxId + 1);
+        // Вставка в порядке индекса проходит по уже прогретым узлам списка с пропусками
+        Arrays.parallelSort(keys, POPULARITY_ORDER);
+        long now = clock.millis();
+        long likes = likeCount;
+        // Индексы не пересекаются друг с другом, поэтому строятся одновременно, каждый в своем потоке
+        List.<Runnable>of(
+                () -> {
+                    for (PopularityKey key : keys) {
+                        popularity.add(key);
+                    }
+                },
+                () -> {
+                    for (PopularityKey key : keys) {
+                        Film film = films.get(key.filmId());
+                        if (film.getReleaseDate() != null) {
+                            popularityByYear.computeIfAbsent(film.getReleaseDate().getYear(),
+                                    year -> newPopularitySet()).add(key);
+                        }
+                        if (film.getDuration() != null) {
+                            popularityByDuration.computeIfAbsent(durationBand(film.getDuration()),
+                                    band -> newPopularitySet()).add(key);
+                        }
+                    }
+                },
+                () -> {
+                    for (Map.Entry<Long, LikeTrend> trend : List.copyOf(trends.entrySet())) {
+                        reindexTrend(trend.getKey(), trend.getValue(), now);
+                    }
+                },
+                () -> {
+                    if (likes > 0 && !restoreLikedFilmsByUser(likes)) {
+                        likedFilms.clear();
+                        for (Film film : films.values()) {
+                            film.getLikes().forEachValue(userId -> indexLike(userId, film.getId()));
+                        }
+                    }
+                }
+        ).parallelStream().forEach(Runnable::run);
+    }
+
+    // Сортировка подсчётом по id пользователя: множества собираются из непрерывных отрезков одного массива
+    // вместо случайной вставки на каждый лайк. id пользователей выдаются подряд, поэтому массив счётчиков
+    // соразмерен числу лайков; при разреженных id остаётся вставка по одному
+    private boolean restoreLikedFilmsByUser(long likeCount) {
+        long[] userIdRange = {0, 0};
+        for (Film film : films.values()) {
+            film.getLikes().forEachValue(userId -> {
+                userIdRange[0] = Math.min(userIdRange[0], userId);
+                userIdRange[1] = Math.max(userIdRange[1], userId);
+            });
+        }
+        if (userIdRange[0] < 0 || userIdRange[1] > 4 * likeCount + 1024 || likeCount > Integer.MAX_VALUE - 8) {
+            return false;
+        }
+        int[] offsets = new int[(int) userIdRange[1] + 2];
+        for (Film film : films.values()) {
+            film.getLikes().forEachValue(userId -> offsets[(int) userId + 1]++);
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+        long[] filmIds = new long[(int) likeCount];
+        int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+        for (Film film : films.values()) {
+            long id = film.getId();
+            film.getLikes().forEachValue(userId -> filmIds[next[(int) userId]++] = id);
+        }
+        for (int userId = 0; userId < offsets.length - 1; userId++) {
+            if (offsets[userId] < offsets[userId + 1]) {
+                LongHashSet liked = new LongHashSet();
+                liked.addAll(filmIds, offsets[userId], offsets[userId + 1]);
+                likedFilms.put((long) userId, liked);
+            }
+        }
+        return true;
+    }
+
+    private void writeSnapshot(Journal.RecordSink sink) {
+        for (Film film : films.values()) {
+            synchronized (film) {
+                sink.write(FILM_PUT, out -> writeFilm(out, film));
+                LikeTrend trend = trends.get(film.getId());
+                if (trend != null) {
+                    sink.write(TREND_SPARSE, out -> writeTrend(out, film.getId(), trend));
+                }
+            }
+        }
+    }
+
+    private static void writeFilm(RecordBuffer out, Film film) {
+        out.putLong(film.getId());
+        out.putString(film.getName());
+        out.putString(film.getDescription());
+        out.putDate(film.getReleaseDate());
+        out.putInteger(film.getDuration());
+        out.putLongs(film.getLikes());
+    }
+
+    private static void writeLike(RecordBuffer out, long filmId, long userId, long time) {
+        out.putLong(filmId);
+        out.putLong(userId);
+        out.putLong(time);
+    }
+
+    private static void writeTrend(RecordBuffer out, long filmId, LikeTrend trend) {
+        out.putLong(filmId);
+        trend.write(out);
+    }
+
+    private static Film readFilm(ByteBuffer in) {
+        Film film = new Film();
+        film.setId(in.getLong());
+        film.setName(RecordBuffer.getString(in));
+        film.setDescription(RecordBuffer.getString(in));
+        film.setReleaseDate(RecordBuffer.getDate(in));
+        film.setDuration(RecordBuffer.getInteger(in));
+        long[] likes = RecordBuffer.getLongs(in);
+        film.getLikes().addAll(likes, 0, likes.length);
+        return film;
+    }
+
+    private void indexLike(long userId, long filmId) {
+        likedFilms.computeIfAbsent(userId, id -> new LongHashSet()).add(filmId);
+    }
+
+    private void unindexLike(long userId, long filmId) {
+        // Пустые множества не удаляются из индекса, иначе удаление гонялось бы с параллельным indexLike
+        LongHashSet liked = likedFilms.get(userId);
+        if (liked != null) {
+            liked.remove(filmId);
+        }
+    }
+
+    private void reindexLikes(long filmId, LongHashSet before, LongHashSet after) {
+        for (long userId : before.sortedView()) {
+            if (!after.contains(userId)) {
+                unindexLike(userId, filmId);
+            }
+        }
+        for (long userId : after.sortedView()) {
+            if (!before.contains(userId)) {
+                indexLike(userId, filmId);
+            }
+        }
     }
 
     private Film getFilm(Long id) {
@@ -72,4 +725,43 @@ public class InMemoryFilmStorage implements FilmStorage {
             return new NotFoundException("Фильм с таким id не найден");
         });
     }
-}
\ No newline at end of file
+
+    private record PopularityKey(int likes, long filmId) {
+        static PopularityKey of(Film film) {
+            return new PopularityKey(film.getLikesCount(), film.getId());
+        }
+    }
+
+    private static final class MergingIterator implements Iterator<PopularityKey> {
+        private final PriorityQueue<Cursor> heads = new PriorityQueue<>(
+                Comparator.comparing(Cursor::head, POPULARITY_ORDER));
+
+        MergingIterator(List<Iterator<PopularityKey>> sources) {
+            for (Iterator<PopularityKey> source : sources) {
+                if (source.hasNext()) {
+                    heads.add(new Cursor(source.next(), source));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public PopularityKey next() {
+            Cursor cursor = heads.poll();
+            if (cursor == null) {
+                throw new NoSuchElementException();
+            }
+            if (cursor.rest().hasNext()) {
+                heads.add(new Cursor(cursor.rest().next(), cursor.rest()));
+            }
+            return cursor.head();
+        }
+
+        private record Cursor(PopularityKey head, Iterator<PopularityKey> rest) {
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Edge;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.PopularFilter;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+
+@Component
+@Profile("jdbc")
+@Slf4j
+public class JdbcFilmStorage implements FilmStorage {
+    private static final String SELECT_FILMS = "SELECT id, name, description, release_date, duration FROM films";
+    // MERGE, как у дружбы, но без обновления совпавшей строки: повторный лайк не сдвигает created_at,
+    // а число изменённых строк равно числу действительно вставленных лайков
+    private static final String MERGE_LIKE = "MERGE INTO likes l USING (VALUES (CAST(:filmId AS BIGINT), "
+            + "CAST(:userId AS BIGINT), CAST(:createdAt AS TIMESTAMP))) v (film_id, user_id, created_at) "
+            + "ON l.film_id = v.film_id AND l.user_id = v.user_id "
+            + "WHEN NOT MATCHED THEN INSERT (film_id, user_id, created_at) VALUES (v.film_id, v.user_id, v.created_at)";
+    private static final RowMapper<Film> FILM_MAPPER = JdbcFilmStorage::mapFilm;
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    @Autowired
+    public JdbcFilmStorage(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public List<Film> getAll() {
+        List<Film> films = jdbc.query(SELECT_FILMS + " ORDER BY id", FILM_MAPPER);
+        Map<Long, Film> filmsById = index(films);
+        jdbc.query("SELECT film_id, user_id FROM likes", rs -> {
+            Film film = filmsById.get(rs.getLong("film_id"));
+            if (film != null) {
+                film.addLike(rs.getLong("user_id"));
+            }
+        });
+        if (log.isDebugEnabled()) {
+            log.debug("Получен запрос на получение всех фильмов. Количество: {}", films.size());
+        }
+        return films;
+    }
+
+    @Override
+    public List<Film> getPage(long afterId, int limit) {
+        List<Film> films = jdbc.query(SELECT_FILMS + " WHERE id > :afterId ORDER BY id LIMIT :limit",
+                new MapSqlParameterSource()
+                        .addValue("afterId", afterId)
+                        .addValue("limit", limit),
+                FILM_MAPPER);
+        return loadLikes(films);
+    }
+
+    @Override
+    @Transactional
+    public Film create(Film film) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbc.update("INSERT INTO films (name, description, release_date, duration) "
+                        + "VALUES (:name, :description, :releaseDate, :duration)",
+                filmParameters(film), keyHolder, new String[]{"id"});
+        film.setId(Objects.requireNonNull(keyHolder.getKey()).longValue());
+        film.getLikes().clear();
+        if (log.isInfoEnabled()) {
+            log.info("Добавлен фильм: {} с ID: {}", film.getName(), film.getId());
+        }
+        return film;
+    }
+
+    @Override
+    @Transactional
+    public Film update(Film film) {
+        int updated = jdbc.update("UPDATE films SET name = :name, description = :description, "
+                        + "release_date = :releaseDate, duration = :duration WHERE id = :id",
+                filmParameters(film).addValue("id", film.getId()));
+        if (updated == 0) {
+            log.error("Фильм с ID {} не найден", film.getId());
+            throw new NotFoundException("Фильм с таким id не найден");
+        }
+        if (log.isInfoEnabled()) {
+            log.info("Обновлен фильм с ID: {}", film.getId());
+        }
+        return getById(film.getId()).orElseThrow();
+    }
+
+    @Override
+    public Optional<Film> getById(Long id) {
+        List<Film> films = jdbc.query(SELECT_FILMS + " WHERE id = :id", Map.of("id", id), FILM_MAPPER);
+        return films.stream().findFirst().map(film -> {
+            jdbc.query("SELECT user_id FROM likes WHERE film_id = :id", Map.of("id", id),
+                    rs -> {
+                        film.addLike(rs.getLong("user_id"));
+                    });
+            return film;
+        });
+    }
+
+    @Override
+    public List<Film> getByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // Один запрос с IN вместо отдельного запроса на каждый фильм
+        Map<Long, Film> filmsById = index(loadLikes(jdbc.query(SELECT_FILMS + " WHERE id IN (:ids)",
+                Map.of("ids", ids), FILM_MAPPER)));
+        List<Film> result = new ArrayList<>(filmsById.size());
+        for (Long id : ids) {
+            Film film = filmsById.get(id);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional
+    public void addLike(Long filmId, Long userId) {
+        requireFilm(filmId);
+        int inserted = mergeLike(filmId, userId);
+        if (inserted > 0) {
+            jdbc.update("UPDATE films SET likes_count = likes_count + 1 WHERE id = :filmId",
+                    likeParameters(filmId, userId));
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Пользователь {} поставил лайк фильму {}", userId, filmId);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void removeLike(Long filmId, Long userId) {
+        requireFilm(filmId);
+        int deleted = jdbc.update("DELETE FROM likes WHERE film_id = :filmId AND user_id = :userId",
+                likeParameters(filmId, userId));
+        if (deleted > 0) {
+            jdbc.update("UPDATE films SET likes_count = likes_count - 1 WHERE id = :filmId",
+                    likeParameters(filmId, userId));
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Пользователь {} удалил лайк с фильма {}", userId, filmId);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void addLikes(Collection<Edge> likes) {
+        if (likes.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = new SqlParameterSource[likes.size()];
+        Set<Long> filmIds = new HashSet<>();
+        int i = 0;
+        for (Edge like : likes) {
+            batch[i++] = likeParameters(like.from(), like.to());
+            filmIds.add(like.from());
+        }
+        try {
+            jdbc.batchUpdate(MERGE_LIKE, batch);
+        } catch (DuplicateKeyException e) {
+            // Параллельная транзакция вставила один из лайков пакета; повторный MERGE его уже видит
+            jdbc.batchUpdate(MERGE_LIKE, batch);
+        }
+        // Счетчики пересчитываются одним запросом на пачку: драйвер не обязан сообщать число вставок в пакете
+        jdbc.update("UPDATE films SET likes_count = (SELECT COUNT(*) FROM likes WHERE likes.film_id = films.id) "
+                + "WHERE id IN (:ids)", Map.of("ids", filmIds));
+        if (log.isDebugEnabled()) {
+            log.debug("Импортировано {} лайков", likes.size());
+        }
+    }
+
+    @Override
+    @Transactional
+    public void removeLikes(Collection<Edge> likes) {
+        if (likes.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = new SqlParameterSource[likes.size()];
+        Set<Long> filmIds = new HashSet<>();
+        int i = 0;
+        for (Edge like : likes) {
+            batch[i++] = likeParameters(like.from(), like.to());
+            filmIds.add(like.from());
+        }
+        jdbc.batchUpdate("DELETE FROM likes WHERE film_id = :filmId AND user_id = :userId", batch);
+        jdbc.update("UPDATE films SET likes_count = (SELECT COUNT(*) FROM likes WHERE likes.film_id = films.id) "
+                + "WHERE id IN (:ids)", Map.of("ids", filmIds));
+        if (log.isDebugEnabled()) {
+            log.debug("Удалено {} лайков", likes.size());
+        }
+    }
+
+    @Override
+    public List<Film> getPopular(int count, PopularFilter filter) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("count", count);
+        StringJoiner where = new StringJoiner(" AND ", " WHERE ", "").setEmptyValue("");
+        // Год задается диапазоном дат, а не EXTRACT(YEAR ...), чтобы условие читалось по индексу release_date
+        if (filter.year() != null) {
+            where.add("release_date BETWEEN :yearStart AND :yearEnd");
+            parameters.addValue("yearStart", Date.valueOf(LocalDate.of(filter.year(), 1, 1)));
+            parameters.addValue("yearEnd", Date.valueOf(LocalDate.of(filter.year(), 12, 31)));
+        }
+        if (filter.hasDuration()) {
+            where.add("duration BETWEEN :minDuration AND :maxDuration");
+            parameters.addValue("minDuration", filter.durationFrom());
+            parameters.addValue("maxDuration", filter.durationTo());
+        }
+        return loadLikes(jdbc.query(SELECT_FILMS + where + " ORDER BY likes_count DESC, id LIMIT :count",
+                parameters, FILM_MAPPER));
+    }
+
+    @Override
+    public List<Film> getTrending(int count, TrendingWindow window) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("count", count)
+                .addValue("since", Timestamp.from(Instant.now().minus(window.length())));
+        return loadLikes(jdbc.query("SELECT f.id, f.name, f.description, f.release_date, f.duration FROM films f "
+                        + "JOIN (SELECT film_id, COUNT(*) AS window_likes FROM likes WHERE created_at >= :since "
+                        + "GROUP BY film_id) w ON w.film_id = f.id "
+                        + "ORDER BY w.window_likes DESC, f.id LIMIT :count",
+                parameters, FILM_MAPPER));
+    }
+
+    @Override
+    public long[] getLikedFilmIds(Long userId) {
+        return jdbc.queryForList("SELECT film_id FROM likes WHERE user_id = :userId ORDER BY film_id",
+                        Map.of("userId", userId), Long.class)
+                .stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    @Override
+    public Map<Long, long[]> getLikedFilmIds(Collection<Long> userIds) {
+        Map<Long, long[]> result = new HashMap<>(userIds.size() * 2);
+        if (userIds.isEmpty()) {
+            return result;
+        }
+        // Один запрос с IN; строки упорядочены по пользователю, поэтому его лайки идут подряд
+        Map<Long, List<Long>> liked = new HashMap<>(userIds.size() * 2);
+        jdbc.query("SELECT user_id, film_id FROM likes WHERE user_id IN (:ids) ORDER BY user_id, film_id",
+                Map.of("ids", userIds),
+                rs -> {
+                    liked.computeIfAbsent(rs.getLong("user_id"), id -> new ArrayList<>()).add(rs.getLong("film_id"));
+                });
+        for (Long userId : userIds) {
+            List<Long> filmIds = liked.getOrDefault(userId, List.of());
+            result.put(userId, filmIds.stream().mapToLong(Long::longValue).toArray());
+        }
+        return result;
+    }
+
+    // Сквозного счётчика изменений в базе нет: условные GET для этого хранилища не обрабатываются
+    @Override
+    public long getVersion() {
+        return UNVERSIONED;
+    }
+
+    private List<Film> loadLikes(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        Map<Long, Film> filmsById = index(films);
+        jdbc.query("SELECT film_id, user_id FROM likes WHERE film_id IN (:ids)",
+                Map.of("ids", filmsById.keySet()),
+                rs -> {
+                    filmsById.get(rs.getLong("film_id")).addLike(rs.getLong("user_id"));
+                });
+        return films;
+    }
+
+    private int mergeLike(Long filmId, Long userId) {
+        try {
+            return jdbc.update(MERGE_LIKE, likeParameters(filmId, userId));
+        } catch (DuplicateKeyException e) {
+            // Тот же лайк одновременно вставила другая транзакция: для этого запроса он уже стоял
+            return 0;
+        }
+    }
+
+    private void requireFilm(Long filmId) {
+        Integer found = jdbc.queryForObject("SELECT COUNT(*) FROM films WHERE id = :id",
+                Map.of("id", filmId), Integer.class);
+        if (found == null || found == 0) {
+            log.error("Фильм с ID {} не найден", filmId);
+            throw new NotFoundException("Фильм с таким id не найден");
+        }
+    }
+
+    private static Map<Long, Film> index(List<Film> films) {
+        Map<Long, Film> filmsById = new HashMap<>();
+        for (Film film : films) {
+            filmsById.put(film.getId(), film);
+        }
+        return filmsById;
+    }
+
+    private static MapSqlParameterSource filmParameters(Film film) {
+        return new MapSqlParameterSource()
+                .addValue("name", film.getName())
+                .addValue("description", film.getDescription())
+                .addValue("releaseDate", film.getReleaseDate())
+                .addValue("duration", film.getDuration());
+    }
+
+    private static MapSqlParameterSource likeParameters(Long filmId, Long userId) {
+        return new MapSqlParameterSource()
+                .addValue("filmId", filmId)
+                .addValue("userId", userId)
+                .addValue("createdAt", Timestamp.from(Instant.now()));
+    }
+
+    private static Film mapFilm(ResultSet rs, int rowNum) throws SQLException {
+        Film film = new Film();
+        film.setId(rs.getLong("id"));
+        film.setName(rs.getString("name"));
+        film.setDescription(rs.getString("description"));
+        Date releaseDate = rs.getDate("release_date");
+        film.setReleaseDate(releaseDate == null ? null : releaseDate.toLocalDate());
+        int duration = rs.getInt("duration");
+        film.setDuration(rs.wasNull() ? null : duration);
+        return film;
+    }
+}
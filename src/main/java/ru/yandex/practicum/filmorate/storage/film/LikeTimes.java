@@ -0,0 +1,157 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import ru.yandex.practicum.filmorate.storage.journal.RecordBuffer;
+
+import java.nio.ByteBuffer;
+
+// Время недавних лайков фильма: пользователь -> минута лайка от начала эпохи. Открытая адресация на примитивных
+// массивах, 12-24 байта на лайк. Нужна, чтобы снятие лайка уменьшало только те окна, в которые лайк попал.
+// Меняется только под монитором фильма
+final class LikeTimes {
+    static final int ABSENT = Integer.MIN_VALUE;
+    private static final int MIN_CAPACITY = 8;
+    private static final long EMPTY = 0L;
+
+    private long[] keys = new long[MIN_CAPACITY];
+    private int[] minutes = new int[MIN_CAPACITY];
+    private int size;
+    private boolean hasZero;
+    private int zeroMinute;
+
+    int size() {
+        return hasZero ? size + 1 : size;
+    }
+
+    void put(long userId, int minute) {
+        if (userId == EMPTY) {
+            hasZero = true;
+            zeroMinute = minute;
+            return;
+        }
+        int mask = keys.length - 1;
+        int index = hash(userId) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == userId) {
+                minutes[index] = minute;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = userId;
+        minutes[index] = minute;
+        if (++size * 4 > keys.length * 3) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    // Минута лайка или ABSENT, если время лайка неизвестно
+    int remove(long userId) {
+        if (userId == EMPTY) {
+            if (!hasZero) {
+                return ABSENT;
+            }
+            hasZero = false;
+            return zeroMinute;
+        }
+        int mask = keys.length - 1;
+        int index = hash(userId) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == userId) {
+                int minute = minutes[index];
+                removeAt(index);
+                return minute;
+            }
+            index = (index + 1) & mask;
+        }
+        return ABSENT;
+    }
+
+    // Убирает лайки, поставленные раньше minMinute: они уже вне всех окон
+    void removeOlderThan(int minMinute) {
+        if (hasZero && zeroMinute < minMinute) {
+            hasZero = false;
+        }
+        long[] oldKeys = keys;
+        int[] oldMinutes = minutes;
+        int live = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY && oldMinutes[i] >= minMinute) {
+                live++;
+            }
+        }
+        keys = new long[capacityFor(live)];
+        minutes = new int[keys.length];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY && oldMinutes[i] >= minMinute) {
+                put(oldKeys[i], oldMinutes[i]);
+            }
+        }
+    }
+
+    void write(RecordBuffer out) {
+        out.putInt(size());
+        if (hasZero) {
+            out.putLong(EMPTY);
+            out.putInt(zeroMinute);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                out.putLong(keys[i]);
+                out.putInt(minutes[i]);
+            }
+        }
+    }
+
+    static LikeTimes read(ByteBuffer in) {
+        int count = in.getInt();
+        // Таблица сразу нужного размера, без перестроек по мере чтения
+        LikeTimes times = new LikeTimes();
+        times.keys = new long[capacityFor(count)];
+        times.minutes = new int[times.keys.length];
+        for (int i = 0; i < count; i++) {
+            times.put(in.getLong(), in.getInt());
+        }
+        return times;
+    }
+
+    // Линейное пробирование без надгробий: следующие элементы цепочки сдвигаются на освободившееся место
+    private void removeAt(int index) {
+        int mask = keys.length - 1;
+        int hole = index;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                minutes[hole] = minutes[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        size--;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldMinutes = minutes;
+        keys = new long[capacity];
+        minutes = new int[capacity];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldMinutes[i]);
+            }
+        }
+    }
+
+    private static int capacityFor(int size) {
+        return Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, size) * 4 / 3) << 1);
+    }
+
+    private static int hash(long value) {
+        long mixed = value * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
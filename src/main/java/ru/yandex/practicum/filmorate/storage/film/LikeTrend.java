@@ -0,0 +1,120 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import ru.yandex.practicum.filmorate.storage.journal.RecordBuffer;
+import ru.yandex.practicum.filmorate.util.SlidingWindowCounter;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// Лайки фильма по окнам трендов: час минутными корзинами, сутки и неделя часовыми. Около килобайта на фильм
+// плюс время каждого лайка за последнюю неделю; заводится при первом лайке и убирается, когда все окна опустели.
+// Снятие лайка уменьшает только окна, в которые попал сам лайк, как и подсчет по created_at в JDBC. Время лайков
+// старше недели не хранится, и время лайков, пришедших вместе с обновлением фильма, считается временем обновления.
+// Меняется только под монитором фильма
+final class LikeTrend {
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final int MAX_WINDOW_MINUTES = (int) Arrays.stream(TrendingWindow.values())
+            .mapToLong(window -> window.length().toMinutes())
+            .max()
+            .orElseThrow();
+    private static final int MIN_PRUNE_SIZE = 16;
+
+    private final SlidingWindowCounter[] counters = new SlidingWindowCounter[TrendingWindow.values().length];
+    // Число лайков, под которым фильм сейчас лежит в индексе трендов каждого окна
+    private final int[] indexed = new int[TrendingWindow.values().length];
+    private LikeTimes likedAt = new LikeTimes();
+    // Устаревшие времена вычищаются, когда их число удваивается с прошлой чистки
+    private int pruneAt = MIN_PRUNE_SIZE;
+
+    LikeTrend() {
+        for (TrendingWindow window : TrendingWindow.values()) {
+            long bucketMillis = window == TrendingWindow.HOUR ? MINUTE : HOUR;
+            counters[window.ordinal()] = new SlidingWindowCounter(
+                    (int) (window.length().toMillis() / bucketMillis), bucketMillis);
+        }
+    }
+
+    void like(long userId, long timeMillis) {
+        for (SlidingWindowCounter counter : counters) {
+            counter.add(timeMillis, 1);
+        }
+        int minute = (int) Math.floorDiv(timeMillis, MINUTE);
+        likedAt.put(userId, minute);
+        if (likedAt.size() >= pruneAt) {
+            likedAt.removeOlderThan(minute - MAX_WINDOW_MINUTES);
+            pruneAt = Math.max(MIN_PRUNE_SIZE, likedAt.size() * 2);
+        }
+    }
+
+    void unlike(long userId, long timeMillis) {
+        int minute = likedAt.remove(userId);
+        if (minute == LikeTimes.ABSENT) {
+            return;
+        }
+        for (SlidingWindowCounter counter : counters) {
+            counter.remove(timeMillis, minute * MINUTE, 1);
+        }
+    }
+
+    int count(TrendingWindow window, long timeMillis) {
+        return counters[window.ordinal()].sum(timeMillis);
+    }
+
+    int indexed(TrendingWindow window) {
+        return indexed[window.ordinal()];
+    }
+
+    void setIndexed(TrendingWindow window, int likes) {
+        indexed[window.ordinal()] = likes;
+    }
+
+    // Пишет только непустые корзины: у большинства фильмов лайки занимают несколько корзин из двухсот с лишним
+    void write(RecordBuffer out) {
+        for (SlidingWindowCounter counter : counters) {
+            int[] counts = counter.countsOldestFirst();
+            int filled = 0;
+            for (int count : counts) {
+                if (count != 0) {
+                    filled++;
+                }
+            }
+            out.putLong(counter.head());
+            out.putInt(counts.length);
+            out.putInt(filled);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    out.putInt(i);
+                    out.putInt(counts[i]);
+                }
+            }
+        }
+        likedAt.write(out);
+    }
+
+    // sparse — формат write(); в записях прежнего формата корзины перечислены все подряд
+    static LikeTrend read(ByteBuffer in, boolean sparse) {
+        LikeTrend trend = new LikeTrend();
+        for (SlidingWindowCounter counter : trend.counters) {
+            long head = in.getLong();
+            int[] counts = new int[in.getInt()];
+            if (sparse) {
+                int filled = in.getInt();
+                for (int i = 0; i < filled; i++) {
+                    counts[in.getInt()] = in.getInt();
+                }
+            } else {
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] = in.getInt();
+                }
+            }
+            counter.restore(head, counts);
+        }
+        // В записях прежнего формата времени лайков нет: их снятие окна не уменьшит
+        trend.likedAt = in.hasRemaining() ? LikeTimes.read(in) : new LikeTimes();
+        trend.pruneAt = Math.max(MIN_PRUNE_SIZE, trend.likedAt.size() * 2);
+        return trend;
+    }
+}
@@ -0,0 +1,242 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import ru.yandex.practicum.filmorate.model.Edge;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.PopularFilter;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import ru.yandex.practicum.filmorate.storage.StorageMeters;
+import ru.yandex.practicum.filmorate.storage.StorageMeters.Operation;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Счётчики вызовов каждого метода хранилища фильмов, таймеры и размеры списочных ответов по выборке вызовов.
+// Число лайков фильма записывается после попавшей в выборку записи лайка, а не на чтении: getById остаётся
+// самым частым вызовом, и лишний промах кэша на множестве лайков удваивал бы его цену
+public class MeteredFilmStorage implements FilmStorage {
+    private static final String STORAGE = "films";
+
+    private final FilmStorage delegate;
+    private final Operation getAll;
+    private final Operation getPage;
+    private final Operation create;
+    private final Operation update;
+    private final Operation getById;
+    private final Operation getByIds;
+    private final Operation addLike;
+    private final Operation removeLike;
+    private final Operation addLikes;
+    private final Operation removeLikes;
+    private final Operation getPopular;
+    private final Operation getTrending;
+    private final Operation getLikedFilmIds;
+    private final Operation getLikedFilmIdsBatch;
+    private final DistributionSummary getAllSize;
+    private final DistributionSummary getPageSize;
+    private final DistributionSummary getByIdsSize;
+    private final DistributionSummary getPopularSize;
+    private final DistributionSummary getTrendingSize;
+    private final DistributionSummary likesSize;
+
+    // Измеряет каждый вызов
+    public MeteredFilmStorage(FilmStorage delegate, MeterRegistry registry) {
+        this(delegate, registry, 1);
+    }
+
+    public MeteredFilmStorage(FilmStorage delegate, MeterRegistry registry, int sampleEvery) {
+        this.delegate = delegate;
+        getAll = StorageMeters.operation(registry, STORAGE, "getAll", sampleEvery);
+        getPage = StorageMeters.operation(registry, STORAGE, "getPage", sampleEvery);
+        create = StorageMeters.operation(registry, STORAGE, "create", sampleEvery);
+        update = StorageMeters.operation(registry, STORAGE, "update", sampleEvery);
+        getById = StorageMeters.operation(registry, STORAGE, "getById", sampleEvery);
+        getByIds = StorageMeters.operation(registry, STORAGE, "getByIds", sampleEvery);
+        addLike = StorageMeters.operation(registry, STORAGE, "addLike", sampleEvery);
+        removeLike = StorageMeters.operation(registry, STORAGE, "removeLike", sampleEvery);
+        addLikes = StorageMeters.operation(registry, STORAGE, "addLikes", sampleEvery);
+        removeLikes = StorageMeters.operation(registry, STORAGE, "removeLikes", sampleEvery);
+        getPopular = StorageMeters.operation(registry, STORAGE, "getPopular", sampleEvery);
+        getTrending = StorageMeters.operation(registry, STORAGE, "getTrending", sampleEvery);
+        getLikedFilmIds = StorageMeters.operation(registry, STORAGE, "getLikedFilmIds", sampleEvery);
+        getLikedFilmIdsBatch = StorageMeters.operation(registry, STORAGE, "getLikedFilmIdsBatch", sampleEvery);
+        getAllSize = StorageMeters.resultSize(registry, STORAGE, "getAll");
+        getPageSize = StorageMeters.resultSize(registry, STORAGE, "getPage");
+        getByIdsSize = StorageMeters.resultSize(registry, STORAGE, "getByIds");
+        getPopularSize = StorageMeters.resultSize(registry, STORAGE, "getPopular");
+        getTrendingSize = StorageMeters.resultSize(registry, STORAGE, "getTrending");
+        likesSize = StorageMeters.relationSize(registry, STORAGE, "likes");
+    }
+
+    @Override
+    public List<Film> getAll() {
+        long start = getAll.start();
+        try {
+            return recordSize(getAll, start, getAllSize, delegate.getAll());
+        } finally {
+            getAll.stop(start);
+        }
+    }
+
+    @Override
+    public List<Film> getPage(long afterId, int limit) {
+        long start = getPage.start();
+        try {
+            return recordSize(getPage, start, getPageSize, delegate.getPage(afterId, limit));
+        } finally {
+            getPage.stop(start);
+        }
+    }
+
+    @Override
+    public Film create(Film film) {
+        long start = create.start();
+        try {
+            return delegate.create(film);
+        } finally {
+            create.stop(start);
+        }
+    }
+
+    @Override
+    public Film update(Film film) {
+        long start = update.start();
+        try {
+            return delegate.update(film);
+        } finally {
+            update.stop(start);
+        }
+    }
+
+    @Override
+    public Optional<Film> getById(Long id) {
+        long start = getById.start();
+        try {
+            return delegate.getById(id);
+        } finally {
+            getById.stop(start);
+        }
+    }
+
+    @Override
+    public List<Film> getByIds(Collection<Long> ids) {
+        long start = getByIds.start();
+        try {
+            return recordSize(getByIds, start, getByIdsSize, delegate.getByIds(ids));
+        } finally {
+            getByIds.stop(start);
+        }
+    }
+
+    @Override
+    public void addLike(Long filmId, Long userId) {
+        long start = addLike.start();
+        try {
+            delegate.addLike(filmId, userId);
+        } finally {
+            addLike.stop(start);
+        }
+        recordLikes(addLike, start, filmId);
+    }
+
+    @Override
+    public void removeLike(Long filmId, Long userId) {
+        long start = removeLike.start();
+        try {
+            delegate.removeLike(filmId, userId);
+        } finally {
+            removeLike.stop(start);
+        }
+        recordLikes(removeLike, start, filmId);
+    }
+
+    @Override
+    public List<Film> getPopular(int count, PopularFilter filter) {
+        long start = getPopular.start();
+        try {
+            return recordSize(getPopular, start, getPopularSize, delegate.getPopular(count, filter));
+        } finally {
+            getPopular.stop(start);
+        }
+    }
+
+    @Override
+    public List<Film> getTrending(int count, TrendingWindow window) {
+        long start = getTrending.start();
+        try {
+            return recordSize(getTrending, start, getTrendingSize, delegate.getTrending(count, window));
+        } finally {
+            getTrending.stop(start);
+        }
+    }
+
+    // Пачки лайков идут от отложенной записи и импорта; из пачки в выборку попадает первый фильм
+    @Override
+    public void addLikes(Collection<Edge> likes) {
+        long start = addLikes.start();
+        try {
+            delegate.addLikes(likes);
+        } finally {
+            addLikes.stop(start);
+        }
+        if (!likes.isEmpty()) {
+            recordLikes(addLikes, start, likes.iterator().next().from());
+        }
+    }
+
+    @Override
+    public void removeLikes(Collection<Edge> likes) {
+        long start = removeLikes.start();
+        try {
+            delegate.removeLikes(likes);
+        } finally {
+            removeLikes.stop(start);
+        }
+        if (!likes.isEmpty()) {
+            recordLikes(removeLikes, start, likes.iterator().next().from());
+        }
+    }
+
+    @Override
+    public long[] getLikedFilmIds(Long userId) {
+        long start = getLikedFilmIds.start();
+        try {
+            return delegate.getLikedFilmIds(userId);
+        } finally {
+            getLikedFilmIds.stop(start);
+        }
+    }
+
+    @Override
+    public Map<Long, long[]> getLikedFilmIds(Collection<Long> userIds) {
+        long start = getLikedFilmIdsBatch.start();
+        try {
+            return delegate.getLikedFilmIds(userIds);
+        } finally {
+            getLikedFilmIdsBatch.stop(start);
+        }
+    }
+
+    // Чтение счётчика дешевле самого счётчика вызовов, поэтому версия не измеряется
+    @Override
+    public long getVersion() {
+        return delegate.getVersion();
+    }
+
+    private void recordLikes(Operation operation, long start, long filmId) {
+        if (operation.sampled(start)) {
+            delegate.getById(filmId).ifPresent(film -> likesSize.record(film.getLikesCount()));
+        }
+    }
+
+    private static List<Film> recordSize(Operation operation, long start, DistributionSummary summary,
+                                         List<Film> films) {
+        if (operation.sampled(start)) {
+            summary.record(films.size());
+        }
+        return films;
+    }
+}
@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Edge;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.PopularFilter;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+
+import java.util.Collection;
+import java.util.List;
+
+// Неблокирующий контракт хранилища фильмов для реактивного профиля; семантика методов та же, что у FilmStorage
+public interface ReactiveFilmStorage {
+
+    // Все фильмы по возрастанию id. Страницы читаются из хранилища по мере спроса подписчика
+    Flux<Film> getAll();
+
+    Mono<List<Film>> getPage(long afterId, int limit);
+
+    Mono<Film> create(Film film);
+
+    Mono<Film> update(Film film);
+
+    // Пустой Mono, если фильма нет
+    Mono<Film> getById(Long id);
+
+    Flux<Film> getByIds(Collection<Long> ids);
+
+    Mono<Void> addLike(Long filmId, Long userId);
+
+    Mono<Void> removeLike(Long filmId, Long userId);
+
+    Mono<Void> addLikes(Collection<Edge> likes);
+
+    Flux<Film> getPopular(int count, PopularFilter filter);
+
+    Flux<Film> getTrending(int count, TrendingWindow window);
+
+    Mono<long[]> getLikedFilmIds(Long userId);
+
+    Mono<Long> getVersion();
+}
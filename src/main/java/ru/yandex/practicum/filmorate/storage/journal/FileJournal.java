@@ -0,0 +1,541 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Журнал в файлах каталога: сегменты {@code <name>-<номер>.journal} и снимок {@code <name>.snapshot}.
+ * Записи копятся в буфере и сбрасываются фоновым потоком одной пачкой с одним {@code force}
+ * (групповая фиксация): пока идёт запись на диск, следующая пачка набирается из новых изменений.
+ * Снимок пишется «на ходу»: сначала журнал переключается на новый сегмент, затем состояние выгружается
+ * параллельно с изменениями. Записи журнала идемпотентны (замена сущности, добавление или удаление
+ * элемента множества), поэтому повтор хвоста поверх такого снимка даёт точное итоговое состояние.
+ */
+@Slf4j
+final class FileJournal implements Journal, AutoCloseable {
+    private static final int SNAPSHOT_MAGIC = 0x464D5331;
+    private static final int SNAPSHOT_HEADER = Integer.BYTES + Long.BYTES;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final ThreadLocal<RecordBuffer> SCRATCH = ThreadLocal.withInitial(() -> new RecordBuffer(256));
+
+    private final Path dir;
+    private final String name;
+    private final boolean sync;
+    // Сколько потоков применяют записи снимка при восстановлении
+    private final int replayThreads;
+    private final Pattern segmentPattern;
+    // Номер последней записи, добавленной потоком; commit() ждёт, пока она станет долговечной
+    private final ThreadLocal<long[]> lastAppended = ThreadLocal.withInitial(() -> new long[1]);
+    private final Object appendLock = new Object();
+    private final ReentrantLock segmentLock = new ReentrantLock();
+    private final ReentrantLock durableLock = new ReentrantLock();
+    private final Condition durableAdvanced = durableLock.newCondition();
+    private final Object snapshotLock = new Object();
+
+    private RecordBuffer pending = new RecordBuffer(BUFFER_SIZE);
+    private RecordBuffer flushing = new RecordBuffer(BUFFER_SIZE);
+    private long appendedSeq;
+    private volatile long durableSeq;
+    private volatile IOException failure;
+    private volatile boolean closed;
+    private FileChannel segment;
+    private long segmentNumber;
+    private Thread flusher;
+
+    FileJournal(Path dir, String name, boolean sync, int replayThreads) {
+        this.dir = dir;
+        this.name = name;
+        this.sync = sync;
+        this.replayThreads = replayThreads;
+        this.segmentPattern = Pattern.compile(Pattern.quote(name) + "-(\\d+)\\.journal");
+    }
+
+    @Override
+    public void append(byte type, RecordWriter writer) {
+        RecordBuffer payload = SCRATCH.get();
+        payload.clear();
+        writer.write(payload);
+        appendFrame(type, payload);
+    }
+
+    @Override
+    public void appendPair(byte type, long first, long second) {
+        RecordBuffer payload = SCRATCH.get();
+        payload.clear();
+        payload.putLong(first);
+        payload.putLong(second);
+        appendFrame(type, payload);
+    }
+
+    @Override
+    public void commit() {
+        if (!sync) {
+            return;
+        }
+        long seq = lastAppended.get()[0];
+        if (durableSeq >= seq) {
+            return;
+        }
+        durableLock.lock();
+        try {
+            while (durableSeq < seq) {
+                checkFailure();
+                durableAdvanced.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ожидание записи журнала " + name + " прервано", e);
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    // Восстанавливает состояние из снимка и последующих сегментов; вызывается до start()
+    void replay(Replayer replayer) throws IOException {
+        Files.createDirectories(dir);
+        long startNanos = System.nanoTime();
+        long firstSegment = 0;
+        long records = 0;
+        Path snapshot = snapshotFile();
+        if (Files.exists(snapshot)) {
+            try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+                ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER);
+                while (header.hasRemaining()) {
+                    if (channel.read(header) < 0) {
+                        break;
+                    }
+                }
+                header.flip();
+                if (header.remaining() < SNAPSHOT_HEADER || header.getInt() != SNAPSHOT_MAGIC) {
+                    throw new IllegalStateException("Повреждён снимок " + snapshot);
+                }
+                firstSegment = header.getLong();
+                records += replaySnapshot(new BlockReader(channel, snapshot), replayer);
+            }
+        }
+        segmentNumber = firstSegment;
+        for (long number : listSegments()) {
+            if (number >= firstSegment) {
+                try (FileChannel channel = FileChannel.open(segmentFile(number), StandardOpenOption.READ)) {
+                    records += new FrameReader(channel, segmentFile(number)).replay(replayer);
+                }
+            }
+            segmentNumber = Math.max(segmentNumber, number);
+        }
+        if (log.isInfoEnabled()) {
+            log.info("Журнал {} восстановлен: {} записей за {} мс", name, records,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+    }
+
+    // Записи снимка независимы (не больше одной записи каждого типа на сущность), поэтому блоки целых записей
+    // проверяются и применяются параллельно; чтение файла остаётся последовательным в этом потоке.
+    // Хвост журнала после снимка применяется строго по порядку
+    private long replaySnapshot(BlockReader reader, Replayer replayer) throws IOException {
+        if (replayThreads <= 1) {
+            long records = 0;
+            for (ByteBuffer block = reader.next(); block != null; block = reader.next()) {
+                records += reader.apply(block, replayer);
+            }
+            return records;
+        }
+        ExecutorService workers = Executors.newFixedThreadPool(replayThreads, Thread.ofPlatform()
+                .name(name + "-replay-", 0)
+                .factory());
+        // Не больше двух блоков на поток в памяти одновременно
+        Semaphore inFlight = new Semaphore(replayThreads * 2);
+        List<Future<Long>> applied = new ArrayList<>();
+        try {
+            for (ByteBuffer block = reader.next(); block != null; block = reader.next()) {
+                inFlight.acquireUninterruptibly();
+                ByteBuffer frames = block;
+                applied.add(workers.submit(() -> {
+                    try {
+                        return reader.apply(frames, replayer);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+            long records = 0;
+            for (Future<Long> blockRecords : applied) {
+                records += blockRecords.get();
+            }
+            return records;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Восстановление снимка " + name + " прервано", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Не удалось восстановить снимок " + name, e.getCause());
+        } finally {
+            applied.forEach(future -> future.cancel(false));
+            workers.shutdown();
+        }
+    }
+
+    // Открывает новый сегмент (хвост прошлого запуска мог оборваться на середине записи) и запускает сброс
+    void start() throws IOException {
+        openSegment(segmentNumber + 1);
+        flusher = Thread.ofPlatform().name(name + "-journal").daemon().start(this::flushLoop);
+    }
+
+    void snapshot(SnapshotSource source) throws IOException {
+        synchronized (snapshotLock) {
+            long startNanos = System.nanoTime();
+            long firstSegment = rotate();
+            Path tmp = dir.resolve(name + ".snapshot.tmp");
+            SnapshotWriter writer;
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                writer = new SnapshotWriter(channel, firstSegment);
+                source.writeTo(writer);
+                writer.flush();
+                channel.force(true);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            Files.move(tmp, snapshotFile(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            for (long number : listSegments()) {
+                if (number < firstSegment) {
+                    Files.deleteIfExists(segmentFile(number));
+                }
+            }
+            if (log.isInfoEnabled()) {
+                log.info("Снимок {} записан: {} записей за {} мс", name, writer.records,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        segmentLock.lock();
+        try {
+            if (segment != null) {
+                if (failure == null) {
+                    flushPending();
+                }
+                segment.close();
+            }
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    private void appendFrame(byte type, RecordBuffer payload) {
+        long seq;
+        synchronized (appendLock) {
+            checkFailure();
+            pending.putFrame(type, payload);
+            seq = ++appendedSeq;
+        }
+        lastAppended.get()[0] = seq;
+        LockSupport.unpark(flusher);
+    }
+
+    private void flushLoop() {
+        while (!closed) {
+            try {
+                if (!flushPending()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            } catch (IOException e) {
+                log.error("Не удалось записать журнал {}", name, e);
+                failure = e;
+                signalDurable();
+                return;
+            }
+        }
+    }
+
+    // Сбрасывает накопленную пачку в текущий сегмент; возвращает false, если сбрасывать нечего
+    private boolean flushPending() throws IOException {
+        segmentLock.lock();
+        try {
+            RecordBuffer batch;
+            long upTo;
+            synchronized (appendLock) {
+                if (pending.size() == 0) {
+                    return false;
+                }
+                batch = pending;
+                pending = flushing;
+                flushing = batch;
+                upTo = appendedSeq;
+            }
+            ByteBuffer bytes = batch.view();
+            while (bytes.hasRemaining()) {
+                segment.write(bytes);
+            }
+            segment.force(false);
+            batch.clear();
+            durableSeq = upTo;
+            signalDurable();
+            return true;
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    // Переключает запись на новый сегмент и возвращает его номер: с него начнётся повтор поверх нового снимка
+    private long rotate() throws IOException {
+        segmentLock.lock();
+        try {
+            flushPending();
+            segment.close();
+            openSegment(segmentNumber + 1);
+            return segmentNumber;
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    private void openSegment(long number) throws IOException {
+        segment = FileChannel.open(segmentFile(number), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segmentNumber = number;
+    }
+
+    private void signalDurable() {
+        durableLock.lock();
+        try {
+            durableAdvanced.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new IllegalStateException("Журнал " + name + " недоступен для записи", failure);
+        }
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(file -> {
+                Matcher matcher = segmentPattern.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    numbers.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    private Path segmentFile(long number) {
+        return dir.resolve(String.format("%s-%010d.journal", name, number));
+    }
+
+    private Path snapshotFile() {
+        return dir.resolve(name + ".snapshot");
+    }
+
+    // Последовательное чтение кадров большими блоками; тело записи передаётся без копирования
+    private static final class FrameReader {
+        private final FileChannel channel;
+        private final Path file;
+        private final CRC32C crc = new CRC32C();
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+
+        FrameReader(FileChannel channel, Path file) {
+            this.channel = channel;
+            this.file = file;
+        }
+
+        long replay(Replayer replayer) throws IOException {
+            long records = 0;
+            while (fill(RecordBuffer.FRAME_HEADER)) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || !fill(length)) {
+                    return torn(records);
+                }
+                int body = buffer.position();
+                crc.reset();
+                crc.update(buffer.array(), body, length);
+                if ((int) crc.getValue() != checksum) {
+                    return torn(records);
+                }
+                int limit = buffer.limit();
+                byte type = buffer.get();
+                buffer.limit(body + length);
+                replayer.apply(type, buffer);
+                buffer.limit(limit).position(body + length);
+                records++;
+            }
+            if (buffer.hasRemaining()) {
+                return torn(records);
+            }
+            return records;
+        }
+
+        // Запись, оборванная сбоем, не была подтверждена вызывающему коду и отбрасывается вместе с остатком файла
+        private long torn(long records) {
+            log.warn("Хвост {} после записи {} поврежден и пропущен", file, records);
+            return records;
+        }
+
+        private boolean fill(int required) throws IOException {
+            if (buffer.remaining() >= required) {
+                return true;
+            }
+            if (buffer.capacity() < required) {
+                buffer = ByteBuffer.allocate(required).put(buffer).flip();
+            }
+            buffer.compact();
+            while (buffer.position() < required) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            return buffer.remaining() >= required;
+        }
+    }
+
+    // Читает снимок блоками целых записей, не разбирая их тела. Снимок пишется целиком до переименования,
+    // поэтому оборванная или испорченная запись в нём — ошибка, а не хвост после сбоя
+    private static final class BlockReader {
+        private final FileChannel channel;
+        private final Path file;
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+        private long records;
+
+        BlockReader(FileChannel channel, Path file) {
+            this.channel = channel;
+            this.file = file;
+        }
+
+        // Следующий блок целых записей или null в конце файла
+        ByteBuffer next() throws IOException {
+            buffer.compact();
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // дочитываем буфер
+            }
+            buffer.flip();
+            if (!buffer.hasRemaining()) {
+                return null;
+            }
+            int end = buffer.position();
+            while (buffer.limit() - end >= RecordBuffer.FRAME_HEADER) {
+                int length = buffer.getInt(end);
+                if (length <= 0) {
+                    throw new IllegalStateException("Повреждена запись " + (records + 1) + " в " + file);
+                }
+                if (buffer.limit() - end - RecordBuffer.FRAME_HEADER < length) {
+                    break;
+                }
+                end += RecordBuffer.FRAME_HEADER + length;
+                records++;
+            }
+            if (end == buffer.position()) {
+                // Запись не помещается в буфер целиком: буфер растёт, если файл не кончился
+                if (buffer.limit() < buffer.capacity()) {
+                    throw new IllegalStateException("Повреждена запись " + (records + 1) + " в " + file);
+                }
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer).flip();
+                return next();
+            }
+            ByteBuffer block = ByteBuffer.allocate(end - buffer.position());
+            block.put(buffer.slice(buffer.position(), block.capacity())).flip();
+            buffer.position(end);
+            return block;
+        }
+
+        // Проверяет и применяет записи блока; вызывается из рабочих потоков
+        long apply(ByteBuffer block, Replayer replayer) {
+            CRC32C crc = new CRC32C();
+            long applied = 0;
+            while (block.hasRemaining()) {
+                int length = block.getInt();
+                int checksum = block.getInt();
+                int body = block.position();
+                crc.reset();
+                crc.update(block.array(), body, length);
+                if ((int) crc.getValue() != checksum) {
+                    throw new IllegalStateException("Повреждена запись в " + file + ": не совпала контрольная сумма");
+                }
+                byte type = block.get();
+                block.limit(body + length);
+                replayer.apply(type, block);
+                block.limit(block.capacity()).position(body + length);
+                applied++;
+            }
+            return applied;
+        }
+    }
+
+    private static final class SnapshotWriter implements RecordSink {
+        private final FileChannel channel;
+        private final RecordBuffer frames = new RecordBuffer(BUFFER_SIZE + BUFFER_SIZE / 4);
+        private final RecordBuffer payload = new RecordBuffer(256);
+        private long records;
+
+        SnapshotWriter(FileChannel channel, long firstSegment) {
+            this.channel = channel;
+            frames.putInt(SNAPSHOT_MAGIC);
+            frames.putLong(firstSegment);
+        }
+
+        @Override
+        public void write(byte type, RecordWriter writer) {
+            payload.clear();
+            writer.write(payload);
+            frames.putFrame(type, payload);
+            records++;
+            if (frames.size() >= BUFFER_SIZE) {
+                try {
+                    flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        void flush() throws IOException {
+            ByteBuffer bytes = frames.view();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            frames.clear();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Журнал изменений хранилища в памяти. Запись добавляется под монитором изменяемой сущности,
+ * поэтому порядок записей одной сущности в журнале совпадает с порядком изменений. {@link #commit()}
+ * вызывается после выхода из монитора и ждёт, пока последняя запись потока окажется на диске.
+ */
+public interface Journal {
+    Journal DISABLED = new Journal() {
+        @Override
+        public void append(byte type, RecordWriter writer) {
+        }
+
+        @Override
+        public void appendPair(byte type, long first, long second) {
+        }
+
+        @Override
+        public void commit() {
+        }
+    };
+
+    void append(byte type, RecordWriter writer);
+
+    // Отдельный метод для самых частых записей (лайк, дружба) без выделения лямбды
+    void appendPair(byte type, long first, long second);
+
+    void commit();
+
+    interface RecordWriter {
+        void write(RecordBuffer out);
+    }
+
+    interface RecordSink {
+        void write(byte type, RecordWriter writer);
+    }
+
+    // Применяет запись снимка или журнала при восстановлении; payload ограничен телом записи. Записи снимка
+    // применяются параллельно из нескольких потоков, записи сегментов — по порядку из одного
+    interface Replayer {
+        void apply(byte type, ByteBuffer payload);
+    }
+
+    // Выгружает текущее состояние хранилища в снимок; вызывается фоновым потоком параллельно с изменениями
+    interface SnapshotSource {
+        void writeTo(RecordSink sink);
+    }
+}
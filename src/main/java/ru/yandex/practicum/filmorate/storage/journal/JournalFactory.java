@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Открывает журналы хранилищ в памяти (filmorate.storage.journal.*) и периодически пишет их снимки
+ * фоновым потоком. При выключенном журнале хранилища получают {@link Journal#DISABLED} и работают как раньше.
+ */
+@Component
+@Profile("!jdbc")
+@Slf4j
+public class JournalFactory {
+    private final boolean enabled;
+    private final Path dir;
+    private final boolean sync;
+    private final Duration snapshotInterval;
+    private final int replayThreads;
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService snapshots;
+
+    @Autowired
+    public JournalFactory(@Value("${filmorate.storage.journal.enabled:false}") boolean enabled,
+                          @Value("${filmorate.storage.journal.dir:data/journal}") Path dir,
+                          @Value("${filmorate.storage.journal.sync:true}") boolean sync,
+                          @Value("${filmorate.storage.journal.snapshot-interval:10m}") Duration snapshotInterval,
+                          @Value("${filmorate.storage.journal.replay-threads:0}") int replayThreads) {
+        this.enabled = enabled;
+        this.dir = dir;
+        this.sync = sync;
+        this.snapshotInterval = snapshotInterval;
+        // 0 — по числу процессоров
+        this.replayThreads = replayThreads > 0 ? replayThreads : Runtime.getRuntime().availableProcessors();
+        if (enabled) {
+            snapshots = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                    .name("storage-snapshot")
+                    .daemon()
+                    .factory());
+            log.info("Включен журнал хранилищ: каталог {}, синхронная фиксация {}, снимок каждые {}",
+                    dir.toAbsolutePath(), sync, snapshotInterval);
+        } else {
+            snapshots = null;
+        }
+    }
+
+    // Восстанавливает состояние через replayer и возвращает журнал для последующих изменений
+    public Journal open(String name, Journal.Replayer replayer, Journal.SnapshotSource source) {
+        if (!enabled) {
+            return Journal.DISABLED;
+        }
+        FileJournal journal = new FileJournal(dir, name, sync, replayThreads);
+        try {
+            journal.replay(replayer);
+            journal.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть журнал " + name, e);
+        }
+        Registration registration = new Registration(name, journal, source);
+        registrations.add(registration);
+        long intervalMillis = snapshotInterval.toMillis();
+        snapshots.scheduleWithFixedDelay(() -> snapshotSafely(registration),
+                intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        return journal;
+    }
+
+    // Немедленный снимок всех журналов, например перед плановой остановкой
+    public void snapshotAll() throws IOException {
+        for (Registration registration : registrations) {
+            registration.journal().snapshot(registration.source());
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (snapshots != null) {
+            // Текущий снимок дописывается: прерывание закрыло бы каналы файлов журнала
+            snapshots.shutdown();
+            try {
+                snapshots.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (Registration registration : registrations) {
+            registration.journal().close();
+        }
+        registrations.clear();
+    }
+
+    private void snapshotSafely(Registration registration) {
+        try {
+            registration.journal().snapshot(registration.source());
+        } catch (Exception e) {
+            log.error("Не удалось записать снимок {}", registration.name(), e);
+        }
+    }
+
+    private record Registration(String name, FileJournal journal, Journal.SnapshotSource source) {
+    }
+}
@@ -0,0 +1,140 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * Растущий буфер для кодирования записей журнала и снимков. Формат кадра:
+ * длина тела ({@code int}), CRC32C тела ({@code int}), тело — тип записи ({@code byte}) и полезная нагрузка.
+ * Статические методы {@code get*} читают поля, записанные соответствующими {@code put*}.
+ */
+public final class RecordBuffer {
+    static final int FRAME_HEADER = 2 * Integer.BYTES;
+
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final int NO_INTEGER = Integer.MIN_VALUE;
+
+    private byte[] bytes;
+    private int size;
+
+    public RecordBuffer(int capacity) {
+        bytes = new byte[capacity];
+    }
+
+    public void putByte(int value) {
+        ensure(1);
+        bytes[size++] = (byte) value;
+    }
+
+    public void putInt(int value) {
+        ensure(Integer.BYTES);
+        INT.set(bytes, size, value);
+        size += Integer.BYTES;
+    }
+
+    public void putLong(long value) {
+        ensure(Long.BYTES);
+        LONG.set(bytes, size, value);
+        size += Long.BYTES;
+    }
+
+    public void putInteger(Integer value) {
+        putInt(value == null ? NO_INTEGER : value);
+    }
+
+    // null кодируется длиной -1, чтобы восстановленная сущность совпадала с исходной
+    public void putString(String value) {
+        if (value == null) {
+            putInt(-1);
+            return;
+        }
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        putInt(encoded.length);
+        ensure(encoded.length);
+        System.arraycopy(encoded, 0, bytes, size, encoded.length);
+        size += encoded.length;
+    }
+
+    public void putDate(LocalDate value) {
+        putLong(value == null ? NO_DATE : value.toEpochDay());
+    }
+
+    public void putLongs(LongHashSet values) {
+        long[] sorted = values.sortedView();
+        putInt(sorted.length);
+        ensure(sorted.length * Long.BYTES);
+        for (long value : sorted) {
+            LONG.set(bytes, size, value);
+            size += Long.BYTES;
+        }
+    }
+
+    public static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    public static Integer getInteger(ByteBuffer in) {
+        int value = in.getInt();
+        return value == NO_INTEGER ? null : value;
+    }
+
+    public static LocalDate getDate(ByteBuffer in) {
+        long epochDay = in.getLong();
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    public static long[] getLongs(ByteBuffer in) {
+        long[] values = new long[in.getInt()];
+        in.asLongBuffer().get(values);
+        in.position(in.position() + values.length * Long.BYTES);
+        return values;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    ByteBuffer view() {
+        return ByteBuffer.wrap(bytes, 0, size);
+    }
+
+    // Добавляет кадр с телом из type и содержимого payload
+    void putFrame(byte type, RecordBuffer payload) {
+        int length = 1 + payload.size;
+        ensure(FRAME_HEADER + length);
+        int body = size + FRAME_HEADER;
+        bytes[body] = type;
+        System.arraycopy(payload.bytes, 0, bytes, body + 1, payload.size);
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, body, length);
+        INT.set(bytes, size, length);
+        INT.set(bytes, size + Integer.BYTES, (int) crc.getValue());
+        size = body + length;
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import ru.yandex.practicum.filmorate.model.Edge;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+// Реактивный фасад над синхронным хранилищем пользователей, устроен так же, как BlockingReactiveFilmStorage
+@Component
+@Profile("reactive")
+public class BlockingReactiveUserStorage implements ReactiveUserStorage {
+    static final int PAGE_SIZE = 500;
+
+    private final UserStorage delegate;
+    private final Scheduler scheduler;
+
+    public BlockingReactiveUserStorage(UserStorage delegate, Scheduler storageScheduler) {
+        this.delegate = delegate;
+        this.scheduler = storageScheduler;
+    }
+
+    @Override
+    public Flux<User> getAll() {
+        return Flux.<List<User>, Long>generate(() -> 0L, (afterId, sink) -> {
+                    List<User> page = delegate.getPage(afterId, PAGE_SIZE);
+                    if (page.isEmpty()) {
+                        sink.complete();
+                        return afterId;
+                    }
+                    sink.next(page);
+                    return page.getLast().getId();
+                })
+                .subscribeOn(scheduler)
+                .flatMapIterable(page -> page, 1);
+    }
+
+    @Override
+    public Mono<List<User>> getPage(long afterId, int limit) {
+        return call(() -> delegate.getPage(afterId, limit));
+    }
+
+    @Override
+    public Mono<User> create(User user) {
+        return call(() -> delegate.create(user));
+    }
+
+    @Override
+    public Mono<User> update(User user) {
+        return call(() -> delegate.update(user));
+    }
+
+    @Override
+    public Mono<User> getById(Long id) {
+        return Mono.fromCallable(() -> delegate.getById(id).orElse(null)).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Flux<User> getByIds(Collection<Long> ids) {
+        return call(() -> delegate.getByIds(ids)).flatMapIterable(users -> users);
+    }
+
+    @Override
+    public Mono<Void> addFriend(Long userId, Long friendId) {
+        return run(() -> delegate.addFriend(userId, friendId));
+    }
+
+    @Override
+    public Mono<Void> removeFriend(Long userId, Long friendId) {
+        return run(() -> delegate.removeFriend(userId, friendId));
+    }
+
+    @Override
+    public Mono<Void> addFriends(Collection<Edge> friendships) {
+        return run(() -> delegate.addFriends(friendships));
+    }
+
+    @Override
+    public Mono<Long> getVersion() {
+        return Mono.fromSupplier(delegate::getVersion);
+    }
+
+    private <T> Mono<T> call(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(scheduler);
+    }
+
+    private Mono<Void> run(Runnable action) {
+        return Mono.fromRunnable(action).subscribeOn(scheduler).then();
+    }
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import ru.yandex.practicum.filmorate.model.Edge;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.EntityCache;
+
+import java.util.*;
+
+// Кэш чтения перед хранилищем пользователей: getById и getByIds обращаются к хранилищу только при промахе
+public class CachingUserStorage implements UserStorage {
+    private final UserStorage delegate;
+    private final EntityCache<User> cache;
+
+    public CachingUserStorage(UserStorage delegate, Cache<Long, User> cache) {
+        this.delegate = delegate;
+        this.cache = new EntityCache<>(cache, User::getId);
+    }
+
+    @Override
+    public List<User> getAll() {
+        return delegate.getAll();
+    }
+
+    @Override
+    public List<User> getPage(long afterId, int limit) {
+        return delegate.getPage(afterId, limit);
+    }
+
+    @Override
+    public User create(User user) {
+        return delegate.create(user);
+    }
+
+    @Override
+    public User update(User user) {
+        try {
+            return delegate.update(user);
+        } finally {
+            cache.invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public Optional<User> getById(Long id) {
+        return cache.get(id, delegate::getById);
+    }
+
+    @Override
+    public List<User> getByIds(Collection<Long> ids) {
+        return cache.getAll(ids, delegate::getByIds);
+    }
+
+    @Override
+    public void addFriend(Long userId, Long friendId) {
+        try {
+            delegate.addFriend(userId, friendId);
+        } finally {
+            cache.invalidateAll(List.of(userId, friendId));
+        }
+    }
+
+    @Override
+    public void removeFriend(Long userId, Long friendId) {
+        try {
+            delegate.removeFriend(userId, friendId);
+        } finally {
+            cache.invalidateAll(List.of(userId, friendId));
+        }
+    }
+
+    @Override
+    public void addFriends(Collection<Edge> friendships) {
+        try {
+            delegate.addFriends(friendships);
+        } finally {
+            Set<Long> userIds = new HashSet<>();
+            for (Edge friendship : friendships) {
+                userIds.add(friendship.from());
+                userIds.add(friendship.to());
+            }
+            cache.invalidateAll(userIds);
+        }
+    }
+
+    @Override
+    public long getVersion() {
+        return delegate.getVersion();
+    }
+}
@@ -1,42 +1,132 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Edge;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.storage.journal.Journal;
+import ru.yandex.practicum.filmorate.storage.journal.JournalFactory;
+import ru.yandex.practicum.filmorate.storage.journal.RecordBuffer;
 
+import java.nio.ByteBuffer;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
 @Component
+@Profile("!jdbc")
 @Slf4j
 public class InMemoryUserStorage implements UserStorage {
-    private final Map<Long, User> users = new HashMap<>();
-    private long userId = 1L;
+    // Типы записей журнала пользователей
+    private static final byte USER_PUT = 1;
+    private static final byte FRIEND_ADD = 2;
+    private static final byte FRIEND_REMOVE = 3;
+
+    private final ConcurrentMap<Long, User> users = new ConcurrentHashMap<>();
+    private final AtomicLong userId = new AtomicLong(1L);
+    // Версия хранилища. Отсчёт от времени запуска, как у фильмов: ETag не повторяются после перезапуска
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis() << 16);
+    private final Journal journal;
+
+    public InMemoryUserStorage() {
+        this(Journal.DISABLED);
+    }
+
+    InMemoryUserStorage(Journal journal) {
+        this.journal = journal;
+    }
+
+    @Autowired
+    public InMemoryUserStorage(JournalFactory journals) {
+        journal = journals.open("users", this::replay, this::writeSnapshot);
+        long maxId = 0;
+        for (User user : users.values()) {
+            maxId = Math.max(maxId, user.getId());
+            user.setVersion(version.incrementAndGet());
+        }
+        userId.set(maxId + 1);
+    }
 
     @Override
     public List<User> getAll() {
-        log.info("Получен запрос на получение всех пользователей. Количество: {}", users.size());
+        if (log.isDebugEnabled()) {
+            log.debug("Получен запрос на получение всех пользователей. Количество: {}", users.size());
+        }
         return new ArrayList<>(users.values());
     }
 
+    @Override
+    public List<User> getPage(long afterId, int limit) {
+        // id выдаются подряд, поэтому страница собирается прямым перебором ключей без сортировки
+        long lastId = userId.get();
+        // Курсор за последним выданным id: afterId + 1 при afterId = Long.MAX_VALUE переполнился бы
+        if (afterId >= lastId - 1) {
+            return new ArrayList<>();
+        }
+        List<User> result = new ArrayList<>(limit);
+        for (long id = afterId + 1; id < lastId && result.size() < limit; id++) {
+            User user = users.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
+
     @Override
     public User create(User user) {
-        user.setId(userId++);
-        users.put(user.getId(), user);
-        log.info("Добавлен пользователь: {} с ID: {}", user.getLogin(), user.getId());
+        user.setId(userId.getAndIncrement());
+        // Монитор упорядочивает запись о создании в журнале раньше записей о дружбе с новым пользователем
+        synchronized (user) {
+            // Версия пользователя проставляется до публикации, версия хранилища растёт после неё
+            // Запись журнала идёт до публикации: отказавший журнал не оставит в памяти незаписанного пользователя
+            journal.append(USER_PUT, out -> writeUser(out, user));
+            user.setVersion(version.incrementAndGet());
+            users.put(user.getId(), user);
+            version.incrementAndGet();
+        }
+        journal.commit();
+        if (log.isInfoEnabled()) {
+            log.info("Добавлен пользователь: {} с ID: {}", user.getLogin(), user.getId());
+        }
         return user;
     }
 
     @Override
     public User update(User user) {
-        if (!users.containsKey(user.getId())) {
-            log.error("Пользователь с ID {} не найден", user.getId());
-            throw new NotFoundException("Пользователь с таким id не найден");
+        while (true) {
+            User oldUser = users.get(user.getId());
+            if (oldUser == null) {
+                log.error("Пользователь с ID {} не найден", user.getId());
+                throw new NotFoundException("Пользователь с таким id не найден");
+            }
+            boolean replaced = false;
+            // Блокируем заменяемый экземпляр, чтобы параллельное изменение дружбы не ушло в устаревший объект
+            synchronized (oldUser) {
+                synchronized (user) {
+                    // Экземпляр заменяется только под его монитором, поэтому проверка остаётся верной до замены
+                    if (users.get(user.getId()) == oldUser) {
+                        journal.append(USER_PUT, out -> writeUser(out, user));
+                        user.setVersion(version.incrementAndGet());
+                        users.put(user.getId(), user);
+                        version.incrementAndGet();
+                        replaced = true;
+                    }
+                }
+            }
+            if (replaced) {
+                journal.commit();
+                if (log.isInfoEnabled()) {
+                    log.info("Обновлен пользователь с ID: {}", user.getId());
+                }
+                return user;
+            }
         }
-        users.put(user.getId(), user);
-        log.info("Обновлен пользователь с ID: {}", user.getId());
-        return user;
     }
 
     @Override
@@ -46,45 +136,145 @@ public class InMemoryUserStorage implements UserStorage {
 
     @Override
     public void addFriend(Long userId, Long friendId) {
-        User user = getUser(userId);
-        User friend = getUser(friendId);
-
-        user.addFriend(friendId);
-        friend.addFriend(userId);
+        updateFriendship(userId, friendId, (user, friend) -> {
+            journal.appendPair(FRIEND_ADD, userId, friendId);
+            user.addFriend(friendId);
+            friend.addFriend(userId);
+        });
+        journal.commit();
 
-        log.info("Пользователь {} и пользователь {} теперь друзья", userId, friendId);
+        if (log.isDebugEnabled()) {
+            log.debug("Пользователь {} и пользователь {} теперь друзья", userId, friendId);
+        }
     }
 
     @Override
     public void removeFriend(Long userId, Long friendId) {
-        User user = getUser(userId);
-        User friend = getUser(friendId);
+        updateFriendship(userId, friendId, (user, friend) -> {
+            journal.appendPair(FRIEND_REMOVE, userId, friendId);
+            user.removeFriend(friendId);
+            friend.removeFriend(userId);
+        });
+        journal.commit();
 
-        user.removeFriend(friendId);
-        friend.removeFriend(userId);
+        if (log.isDebugEnabled()) {
+            log.debug("Пользователь {} и пользователь {} больше не друзья", userId, friendId);
+        }
+    }
 
-        log.info("Пользователь {} и пользователь {} больше не друзья", userId, friendId);
+    @Override
+    public void addFriends(Collection<Edge> friendships) {
+        for (Edge friendship : friendships) {
+            long userId = friendship.from();
+            long friendId = friendship.to();
+            updateFriendship(userId, friendId, (user, friend) -> {
+                journal.appendPair(FRIEND_ADD, userId, friendId);
+                user.addFriend(friendId);
+                friend.addFriend(userId);
+            });
+        }
+        // Вся пачка фиксируется одним ожиданием записи журнала
+        journal.commit();
+        if (log.isDebugEnabled()) {
+            log.debug("Импортировано {} связей дружбы", friendships.size());
+        }
     }
 
     @Override
-    public List<User> getFriends(Long userId) {
-        User user = getUser(userId);
-        return user.getFriends().stream()
-                .map(this::getUser)
-                .collect(Collectors.toList());
+    public List<User> getByIds(Collection<Long> ids) {
+        List<User> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            User user = users.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
     }
 
     @Override
-    public List<User> getCommonFriends(Long userId, Long otherId) {
-        User user1 = getUser(userId);
-        User user2 = getUser(otherId);
+    public long getVersion() {
+        return version.get();
+    }
 
-        Set<Long> commonFriendIds = new HashSet<>(user1.getFriends());
-        commonFriendIds.retainAll(user2.getFriends());
+    private void updateFriendship(Long userId, Long friendId, BiConsumer<User, User> mutation) {
+        while (true) {
+            User user = getUser(userId);
+            User friend = getUser(friendId);
+            // Мониторы берутся в порядке возрастания id, чтобы встречные запросы не приводили к взаимной блокировке
+            User first = userId <= friendId ? user : friend;
+            User second = userId <= friendId ? friend : user;
+            synchronized (first) {
+                synchronized (second) {
+                    if (users.get(userId) != user || users.get(friendId) != friend) {
+                        continue;
+                    }
+                    // Изменение начинается с записи журнала; если оно всё же прервалось на середине,
+                    // версии растут, чтобы ETag не остались прежними при уже изменённых друзьях
+                    try {
+                        mutation.accept(user, friend);
+                    } finally {
+                        user.setVersion(version.incrementAndGet());
+                        friend.setVersion(version.incrementAndGet());
+                    }
+                    return;
+                }
+            }
+        }
+    }
 
-        return commonFriendIds.stream()
-                .map(this::getUser)
-                .collect(Collectors.toList());
+    private void replay(byte type, ByteBuffer in) {
+        // Восстановление идет до публикации бина, поэтому мониторы не нужны. Записи снимка (USER_PUT) могут
+        // применяться из нескольких потоков сразу, записи дружбы идут из хвоста журнала по порядку в одном потоке
+        switch (type) {
+            case USER_PUT -> {
+                User user = readUser(in);
+                users.put(user.getId(), user);
+            }
+            case FRIEND_ADD, FRIEND_REMOVE -> {
+                long userId = in.getLong();
+                long friendId = in.getLong();
+                User user = users.get(userId);
+                User friend = users.get(friendId);
+                if (user != null && friend != null && type == FRIEND_ADD) {
+                    user.addFriend(friendId);
+                    friend.addFriend(userId);
+                } else if (user != null && friend != null) {
+                    user.removeFriend(friendId);
+                    friend.removeFriend(userId);
+                }
+            }
+            default -> throw new IllegalStateException("Неизвестный тип записи журнала пользователей: " + type);
+        }
+    }
+
+    private void writeSnapshot(Journal.RecordSink sink) {
+        for (User user : users.values()) {
+            synchronized (user) {
+                sink.write(USER_PUT, out -> writeUser(out, user));
+            }
+        }
+    }
+
+    private static void writeUser(RecordBuffer out, User user) {
+        out.putLong(user.getId());
+        out.putString(user.getEmail());
+        out.putString(user.getLogin());
+        out.putString(user.getName());
+        out.putDate(user.getBirthday());
+        out.putLongs(user.getFriends());
+    }
+
+    private static User readUser(ByteBuffer in) {
+        User user = new User();
+        user.setId(in.getLong());
+        user.setEmail(RecordBuffer.getString(in));
+        user.setLogin(RecordBuffer.getString(in));
+        user.setName(RecordBuffer.getString(in));
+        user.setBirthday(RecordBuffer.getDate(in));
+        long[] friends = RecordBuffer.getLongs(in);
+        user.getFriends().addAll(friends, 0, friends.length);
+        return user;
     }
 
     private User getUser(Long id) {
@@ -0,0 +1,233 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Edge;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+@Component
+@Profile("jdbc")
+@Slf4j
+public class JdbcUserStorage implements UserStorage {
+    private static final String SELECT_USERS = "SELECT id, email, login, name, birthday FROM users";
+    private static final String MERGE_FRIENDSHIP = "MERGE INTO friendships (user_id, friend_id) "
+            + "KEY (user_id, friend_id) VALUES (:userId, :friendId)";
+    private static final RowMapper<User> USER_MAPPER = JdbcUserStorage::mapUser;
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    @Autowired
+    public JdbcUserStorage(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public List<User> getAll() {
+        List<User> users = jdbc.query(SELECT_USERS + " ORDER BY id", USER_MAPPER);
+        Map<Long, User> usersById = index(users);
+        jdbc.query("SELECT user_id, friend_id FROM friendships", rs -> {
+            User user = usersById.get(rs.getLong("user_id"));
+            if (user != null) {
+                user.addFriend(rs.getLong("friend_id"));
+            }
+        });
+        if (log.isDebugEnabled()) {
+            log.debug("Получен запрос на получение всех пользователей. Количество: {}", users.size());
+        }
+        return users;
+    }
+
+    @Override
+    public List<User> getPage(long afterId, int limit) {
+        List<User> users = jdbc.query(SELECT_USERS + " WHERE id > :afterId ORDER BY id LIMIT :limit",
+                new MapSqlParameterSource()
+                        .addValue("afterId", afterId)
+                        .addValue("limit", limit),
+                USER_MAPPER);
+        return loadFriends(users);
+    }
+
+    @Override
+    @Transactional
+    public User create(User user) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbc.update("INSERT INTO users (email, login, name, birthday) VALUES (:email, :login, :name, :birthday)",
+                userParameters(user), keyHolder, new String[]{"id"});
+        user.setId(Objects.requireNonNull(keyHolder.getKey()).longValue());
+        user.getFriends().clear();
+        if (log.isInfoEnabled()) {
+            log.info("Добавлен пользователь: {} с ID: {}", user.getLogin(), user.getId());
+        }
+        return user;
+    }
+
+    @Override
+    @Transactional
+    public User update(User user) {
+        int updated = jdbc.update("UPDATE users SET email = :email, login = :login, name = :name, "
+                        + "birthday = :birthday WHERE id = :id",
+                userParameters(user).addValue("id", user.getId()));
+        if (updated == 0) {
+            log.error("Пользователь с ID {} не найден", user.getId());
+            throw new NotFoundException("Пользователь с таким id не найден");
+        }
+        if (log.isInfoEnabled()) {
+            log.info("Обновлен пользователь с ID: {}", user.getId());
+        }
+        return getById(user.getId()).orElseThrow();
+    }
+
+    @Override
+    public Optional<User> getById(Long id) {
+        List<User> users = jdbc.query(SELECT_USERS + " WHERE id = :id", Map.of("id", id), USER_MAPPER);
+        return users.stream().findFirst().map(user -> {
+            jdbc.query("SELECT friend_id FROM friendships WHERE user_id = :id", Map.of("id", id),
+                    rs -> {
+                        user.addFriend(rs.getLong("friend_id"));
+                    });
+            return user;
+        });
+    }
+
+    @Override
+    public List<User> getByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // Один запрос с IN вместо отдельного запроса на каждого друга
+        Map<Long, User> usersById = index(loadFriends(jdbc.query(SELECT_USERS + " WHERE id IN (:ids)",
+                Map.of("ids", ids), USER_MAPPER)));
+        List<User> result = new ArrayList<>(usersById.size());
+        for (Long id : ids) {
+            User user = usersById.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional
+    public void addFriend(Long userId, Long friendId) {
+        requireUsers(userId, friendId);
+        // Обе стороны дружбы пишутся одним пакетом в одной транзакции
+        jdbc.batchUpdate(MERGE_FRIENDSHIP, friendshipParameters(userId, friendId));
+        if (log.isDebugEnabled()) {
+            log.debug("Пользователь {} и пользователь {} теперь друзья", userId, friendId);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void removeFriend(Long userId, Long friendId) {
+        requireUsers(userId, friendId);
+        jdbc.batchUpdate("DELETE FROM friendships WHERE user_id = :userId AND friend_id = :friendId",
+                friendshipParameters(userId, friendId));
+        if (log.isDebugEnabled()) {
+            log.debug("Пользователь {} и пользователь {} больше не друзья", userId, friendId);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void addFriends(Collection<Edge> friendships) {
+        if (friendships.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = new SqlParameterSource[friendships.size() * 2];
+        int i = 0;
+        for (Edge friendship : friendships) {
+            SqlParameterSource[] rows = friendshipParameters(friendship.from(), friendship.to());
+            batch[i++] = rows[0];
+            batch[i++] = rows[1];
+        }
+        jdbc.batchUpdate(MERGE_FRIENDSHIP, batch);
+        if (log.isDebugEnabled()) {
+            log.debug("Импортировано {} связей дружбы", friendships.size());
+        }
+    }
+
+    // Сквозного счётчика изменений в базе нет: условные GET для этого хранилища не обрабатываются
+    @Override
+    public long getVersion() {
+        return UNVERSIONED;
+    }
+
+    private List<User> loadFriends(List<User> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        Map<Long, User> usersById = index(users);
+        jdbc.query("SELECT user_id, friend_id FROM friendships WHERE user_id IN (:ids)",
+                Map.of("ids", usersById.keySet()),
+                rs -> {
+                    usersById.get(rs.getLong("user_id")).addFriend(rs.getLong("friend_id"));
+                });
+        return users;
+    }
+
+    private void requireUsers(Long userId, Long friendId) {
+        for (Long id : List.of(userId, friendId)) {
+            Integer found = jdbc.queryForObject("SELECT COUNT(*) FROM users WHERE id = :id",
+                    Map.of("id", id), Integer.class);
+            if (found == null || found == 0) {
+                log.error("Пользователь с ID {} не найден", id);
+                throw new NotFoundException("Пользователь с таким id не найден");
+            }
+        }
+    }
+
+    private static Map<Long, User> index(List<User> users) {
+        Map<Long, User> usersById = new HashMap<>();
+        for (User user : users) {
+            usersById.put(user.getId(), user);
+        }
+        return usersById;
+    }
+
+    private static SqlParameterSource[] friendshipParameters(Long userId, Long friendId) {
+        return new SqlParameterSource[]{
+                new MapSqlParameterSource()
+                        .addValue("userId", userId)
+                        .addValue("friendId", friendId),
+                new MapSqlParameterSource()
+                        .addValue("userId", friendId)
+                        .addValue("friendId", userId)
+        };
+    }
+
+    private static MapSqlParameterSource userParameters(User user) {
+        return new MapSqlParameterSource()
+                .addValue("email", user.getEmail())
+                .addValue("login", user.getLogin())
+                .addValue("name", user.getName())
+                .addValue("birthday", user.getBirthday());
+    }
+
+    private static User mapUser(ResultSet rs, int rowNum) throws SQLException {
+        User user = new User();
+        user.setId(rs.getLong("id"));
+        user.setEmail(rs.getString("email"));
+        user.setLogin(rs.getString("login"));
+        user.setName(rs.getString("name"));
+        Date birthday = rs.getDate("birthday");
+        user.setBirthday(birthday == null ? null : birthday.toLocalDate());
+        return user;
+    }
+}
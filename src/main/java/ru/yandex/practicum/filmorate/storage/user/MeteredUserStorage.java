@@ -0,0 +1,174 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import ru.yandex.practicum.filmorate.model.Edge;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.StorageMeters;
+import ru.yandex.practicum.filmorate.storage.StorageMeters.Operation;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+// Счётчики вызовов каждого метода хранилища пользователей, таймеры и размеры списочных ответов по выборке.
+// Число друзей записывается после попавшей в выборку записи дружбы, для обоих пользователей
+public class MeteredUserStorage implements UserStorage {
+    private static final String STORAGE = "users";
+
+    private final UserStorage delegate;
+    private final Operation getAll;
+    private final Operation getPage;
+    private final Operation create;
+    private final Operation update;
+    private final Operation getById;
+    private final Operation getByIds;
+    private final Operation addFriend;
+    private final Operation removeFriend;
+    private final Operation addFriends;
+    private final DistributionSummary getAllSize;
+    private final DistributionSummary getPageSize;
+    private final DistributionSummary getByIdsSize;
+    private final DistributionSummary friendsSize;
+
+    // Измеряет каждый вызов
+    public MeteredUserStorage(UserStorage delegate, MeterRegistry registry) {
+        this(delegate, registry, 1);
+    }
+
+    public MeteredUserStorage(UserStorage delegate, MeterRegistry registry, int sampleEvery) {
+        this.delegate = delegate;
+        getAll = StorageMeters.operation(registry, STORAGE, "getAll", sampleEvery);
+        getPage = StorageMeters.operation(registry, STORAGE, "getPage", sampleEvery);
+        create = StorageMeters.operation(registry, STORAGE, "create", sampleEvery);
+        update = StorageMeters.operation(registry, STORAGE, "update", sampleEvery);
+        getById = StorageMeters.operation(registry, STORAGE, "getById", sampleEvery);
+        getByIds = StorageMeters.operation(registry, STORAGE, "getByIds", sampleEvery);
+        addFriend = StorageMeters.operation(registry, STORAGE, "addFriend", sampleEvery);
+        removeFriend = StorageMeters.operation(registry, STORAGE, "removeFriend", sampleEvery);
+        addFriends = StorageMeters.operation(registry, STORAGE, "addFriends", sampleEvery);
+        getAllSize = StorageMeters.resultSize(registry, STORAGE, "getAll");
+        getPageSize = StorageMeters.resultSize(registry, STORAGE, "getPage");
+        getByIdsSize = StorageMeters.resultSize(registry, STORAGE, "getByIds");
+        friendsSize = StorageMeters.relationSize(registry, STORAGE, "friends");
+    }
+
+    @Override
+    public List<User> getAll() {
+        long start = getAll.start();
+        try {
+            return recordSize(getAll, start, getAllSize, delegate.getAll());
+        } finally {
+            getAll.stop(start);
+        }
+    }
+
+    @Override
+    public List<User> getPage(long afterId, int limit) {
+        long start = getPage.start();
+        try {
+            return recordSize(getPage, start, getPageSize, delegate.getPage(afterId, limit));
+        } finally {
+            getPage.stop(start);
+        }
+    }
+
+    @Override
+    public User create(User user) {
+        long start = create.start();
+        try {
+            return delegate.create(user);
+        } finally {
+            create.stop(start);
+        }
+    }
+
+    @Override
+    public User update(User user) {
+        long start = update.start();
+        try {
+            return delegate.update(user);
+        } finally {
+            update.stop(start);
+        }
+    }
+
+    @Override
+    public Optional<User> getById(Long id) {
+        long start = getById.start();
+        try {
+            return delegate.getById(id);
+        } finally {
+            getById.stop(start);
+        }
+    }
+
+    @Override
+    public List<User> getByIds(Collection<Long> ids) {
+        long start = getByIds.start();
+        try {
+            return recordSize(getByIds, start, getByIdsSize, delegate.getByIds(ids));
+        } finally {
+            getByIds.stop(start);
+        }
+    }
+
+    @Override
+    public void addFriend(Long userId, Long friendId) {
+        long start = addFriend.start();
+        try {
+            delegate.addFriend(userId, friendId);
+        } finally {
+            addFriend.stop(start);
+        }
+        recordFriends(addFriend, start, userId, friendId);
+    }
+
+    @Override
+    public void removeFriend(Long userId, Long friendId) {
+        long start = removeFriend.start();
+        try {
+            delegate.removeFriend(userId, friendId);
+        } finally {
+            removeFriend.stop(start);
+        }
+        recordFriends(removeFriend, start, userId, friendId);
+    }
+
+    // Пачки дружб идут от импорта; из пачки в выборку попадает первая пара
+    @Override
+    public void addFriends(Collection<Edge> friendships) {
+        long start = addFriends.start();
+        try {
+            delegate.addFriends(friendships);
+        } finally {
+            addFriends.stop(start);
+        }
+        if (!friendships.isEmpty()) {
+            Edge first = friendships.iterator().next();
+            recordFriends(addFriends, start, first.from(), first.to());
+        }
+    }
+
+    // Чтение счётчика дешевле самого счётчика вызовов, поэтому версия не измеряется
+    @Override
+    public long getVersion() {
+        return delegate.getVersion();
+    }
+
+    private void recordFriends(Operation operation, long start, long userId, long friendId) {
+        if (operation.sampled(start)) {
+            for (User user : delegate.getByIds(List.of(userId, friendId))) {
+                friendsSize.record(user.getFriends().size());
+            }
+        }
+    }
+
+    private static List<User> recordSize(Operation operation, long start, DistributionSummary summary,
+                                         List<User> users) {
+        if (operation.sampled(start)) {
+            summary.record(users.size());
+        }
+        return users;
+    }
+}
@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Edge;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.Collection;
+import java.util.List;
+
+// Неблокирующий контракт хранилища пользователей для реактивного профиля; семантика методов та же, что у UserStorage
+public interface ReactiveUserStorage {
+
+    // Все пользователи по возрастанию id. Страницы читаются из хранилища по мере спроса подписчика
+    Flux<User> getAll();
+
+    Mono<List<User>> getPage(long afterId, int limit);
+
+    Mono<User> create(User user);
+
+    Mono<User> update(User user);
+
+    // Пустой Mono, если пользователя нет
+    Mono<User> getById(Long id);
+
+    Flux<User> getByIds(Collection<Long> ids);
+
+    Mono<Void> addFriend(Long userId, Long friendId);
+
+    Mono<Void> removeFriend(Long userId, Long friendId);
+
+    Mono<Void> addFriends(Collection<Edge> friendships);
+
+    Mono<Long> getVersion();
+}
@@ -1,24 +1,35 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import ru.yandex.practicum.filmorate.model.Edge;
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface UserStorage {
+    // Значение getVersion у хранилищ, которые не ведут версий: условные GET тогда не обрабатываются
+    long UNVERSIONED = 0;
+
     List<User> getAll();
 
+    List<User> getPage(long afterId, int limit);
+
     User create(User user);
 
     User update(User user);
 
     Optional<User> getById(Long id);
 
+    List<User> getByIds(Collection<Long> ids);
+
     void addFriend(Long userId, Long friendId);
 
     void removeFriend(Long userId, Long friendId);
 
-    List<User> getFriends(Long userId);
+    // Пакетная запись дружбы: from - id пользователя, to - id друга. Существование id проверяет вызывающий
+    void addFriends(Collection<Edge> friendships);
 
-    List<User> getCommonFriends(Long userId, Long otherId);
+    // Версия данных хранилища: растёт после каждой записи, когда изменение уже видно читателям
+    long getVersion();
 }
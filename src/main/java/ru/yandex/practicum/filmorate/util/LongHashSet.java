@@ -0,0 +1,248 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.LongConsumer;
+
+/**
+ * Множество идентификаторов на примитивном {@code long[]} с открытой адресацией.
+ * Одна связь занимает 8–16 байт в хеш-таблице вместо упакованного {@code Long} и узла {@code HashMap}.
+ * Методы синхронизированы на самом множестве; итерация идёт по отсортированному снимку,
+ * поэтому порядок элементов в JSON стабилен и не зависит от параллельных изменений.
+ * Снимок сохраняется только у множеств, прочитанных повторно без изменений между чтениями, и тогда
+ * добавляет ещё 8 байт на связь; первое чтение после изменения строит снимок и не удерживает его.
+ */
+public class LongHashSet extends AbstractSet<Long> {
+    private static final int MIN_CAPACITY = 4;
+    private static final long EMPTY = 0L;
+
+    private long[] table = new long[MIN_CAPACITY];
+    private int size;
+    private boolean containsZero;
+    private volatile long[] sorted;
+    // Снимок уже строился после последнего изменения: следующий сохраняется
+    private boolean readSinceChange;
+
+    public synchronized boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            return modified();
+        }
+        int mask = table.length - 1;
+        int index = hash(value) & mask;
+        while (table[index] != EMPTY) {
+            if (table[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        table[index] = value;
+        if (++size * 4 > table.length * 3) {
+            resize(table.length * 2);
+        }
+        return modified();
+    }
+
+    // Пакетное добавление с одним расширением таблицы, например при восстановлении из журнала
+    public synchronized void addAll(long[] values, int from, int to) {
+        int capacity = table.length;
+        while ((size + to - from) * 4 > capacity * 3) {
+            capacity *= 2;
+        }
+        if (capacity != table.length) {
+            resize(capacity);
+        }
+        for (int i = from; i < to; i++) {
+            add(values[i]);
+        }
+    }
+
+    public synchronized boolean remove(long value) {
+        if (value == EMPTY) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            return modified();
+        }
+        int mask = table.length - 1;
+        int index = hash(value) & mask;
+        while (table[index] != value) {
+            if (table[index] == EMPTY) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        shiftBack(index, mask);
+        size--;
+        if (table.length > MIN_CAPACITY && size * 8 < table.length) {
+            resize(table.length / 2);
+        }
+        return modified();
+    }
+
+    public synchronized boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsZero;
+        }
+        int mask = table.length - 1;
+        int index = hash(value) & mask;
+        while (table[index] != EMPTY) {
+            if (table[index] == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean add(Long value) {
+        return add(value.longValue());
+    }
+
+    @Override
+    public boolean remove(Object value) {
+        return value instanceof Long id && remove(id.longValue());
+    }
+
+    @Override
+    public boolean contains(Object value) {
+        return value instanceof Long id && contains(id.longValue());
+    }
+
+    @Override
+    public synchronized int size() {
+        return containsZero ? size + 1 : size;
+    }
+
+    @Override
+    public synchronized void clear() {
+        table = new long[MIN_CAPACITY];
+        size = 0;
+        containsZero = false;
+        modified();
+    }
+
+    // Обход без построения отсортированного снимка; порядок элементов не определён
+    public synchronized void forEachValue(LongConsumer action) {
+        if (containsZero) {
+            action.accept(EMPTY);
+        }
+        for (long value : table) {
+            if (value != EMPTY) {
+                action.accept(value);
+            }
+        }
+    }
+
+    /**
+     * Возвращает копию элементов в порядке возрастания.
+     */
+    public long[] toSortedArray() {
+        return sortedView().clone();
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        long[] snapshot = sortedView();
+        return new Iterator<>() {
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                return position < snapshot.length;
+            }
+
+            @Override
+            public Long next() {
+                if (position >= snapshot.length) {
+                    throw new NoSuchElementException();
+                }
+                return snapshot[position++];
+            }
+        };
+    }
+
+    /**
+     * Элементы в порядке возрастания без копирования. Массив может быть общим для всех читателей
+     * до следующего изменения множества, поэтому вызывающий код не должен его менять.
+     */
+    public long[] sortedView() {
+        long[] snapshot = sorted;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (this) {
+            if (sorted == null) {
+                long[] values = new long[size()];
+                int position = 0;
+                if (containsZero) {
+                    values[position++] = EMPTY;
+                }
+                for (long value : table) {
+                    if (value != EMPTY) {
+                        values[position++] = value;
+                    }
+                }
+                Arrays.sort(values);
+                if (!readSinceChange) {
+                    readSinceChange = true;
+                    return values;
+                }
+                sorted = values;
+            }
+            return sorted;
+        }
+    }
+
+    private boolean modified() {
+        sorted = null;
+        readSinceChange = false;
+        return true;
+    }
+
+    private void resize(int capacity) {
+        long[] oldTable = table;
+        table = new long[capacity];
+        int mask = capacity - 1;
+        for (long value : oldTable) {
+            if (value != EMPTY) {
+                int index = hash(value) & mask;
+                while (table[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = value;
+            }
+        }
+    }
+
+    // Удаление без «надгробий»: сдвигаем назад элементы цепочки, которые могут занять освободившуюся ячейку
+    private void shiftBack(int freed, int mask) {
+        int index = freed;
+        while (true) {
+            index = (index + 1) & mask;
+            long value = table[index];
+            if (value == EMPTY) {
+                break;
+            }
+            int home = hash(value) & mask;
+            boolean canMove = freed <= index ? (home <= freed || home > index) : (home <= freed && home > index);
+            if (canMove) {
+                table[freed] = value;
+                freed = index;
+            }
+        }
+        table[freed] = EMPTY;
+    }
+
+    private static int hash(long value) {
+        long mixed = value * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
@@ -0,0 +1,243 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.function.LongPredicate;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Счётчик вхождений идентификаторов на примитивных массивах с открытой адресацией: без упаковки ключей
+ * и без объектов-узлов на каждый элемент. Не потокобезопасен — при параллельном подсчёте каждый поток
+ * ведёт свой счётчик, а результаты объединяются через {@link #addAll(LongIntCounter)}.
+ */
+public class LongIntCounter {
+    private static final int MIN_CAPACITY = 16;
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private int[] counts;
+    private int size;
+    private int zeroCount;
+
+    public LongIntCounter() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongIntCounter(int expectedSize) {
+        int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize) * 4 / 3) << 1);
+        keys = new long[capacity];
+        counts = new int[capacity];
+    }
+
+    /**
+     * Подсчёт по элементам {@code 0..size-1}, разбитым на порции не меньше {@code minChunk}: каждая порция
+     * считает в собственный счётчик в общем fork-join пуле, затем счётчики сливаются. Небольшие объёмы
+     * считаются в вызывающем потоке, чтобы не платить за распараллеливание.
+     */
+    public static LongIntCounter countInParallel(int size, int minChunk, ObjIntConsumer<LongIntCounter> counter) {
+        if (size < minChunk) {
+            LongIntCounter result = new LongIntCounter();
+            for (int i = 0; i < size; i++) {
+                counter.accept(result, i);
+            }
+            return result;
+        }
+        int chunks = Math.min(Runtime.getRuntime().availableProcessors(), (size + minChunk - 1) / minChunk);
+        int chunkSize = (size + chunks - 1) / chunks;
+        return IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(chunk -> {
+                    LongIntCounter partial = new LongIntCounter();
+                    for (int i = chunk * chunkSize; i < Math.min(size, (chunk + 1) * chunkSize); i++) {
+                        counter.accept(partial, i);
+                    }
+                    return partial;
+                })
+                .reduce((left, right) -> {
+                    left.addAll(right);
+                    return left;
+                })
+                .orElseGet(LongIntCounter::new);
+    }
+
+    public void increment(long key) {
+        add(key, 1);
+    }
+
+    public void add(long key, int delta) {
+        if (key == EMPTY) {
+            zeroCount += delta;
+            return;
+        }
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                counts[index] += delta;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        counts[index] = delta;
+        if (++size * 4 > keys.length * 3) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /**
+     * Увеличивает счётчик каждого элемента множества, но не более чем для {@code limit} элементов
+     * (см. {@link LongSets#sample(LongHashSet, int)}).
+     */
+    public void incrementAll(LongHashSet set, int limit) {
+        // Выборка читается прямо из снимка, без промежуточного массива, как в LongSets.sample
+        long[] values = set.sortedView();
+        if (values.length <= limit) {
+            for (long value : values) {
+                increment(value);
+            }
+            return;
+        }
+        double step = (double) values.length / limit;
+        for (int i = 0; i < limit; i++) {
+            increment(values[(int) (i * step)]);
+        }
+    }
+
+    public void addAll(LongIntCounter other) {
+        if (other.zeroCount != 0) {
+            zeroCount += other.zeroCount;
+        }
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != EMPTY) {
+                add(other.keys[i], other.counts[i]);
+            }
+        }
+    }
+
+    public int get(long key) {
+        if (key == EMPTY) {
+            return zeroCount;
+        }
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                return counts[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return 0;
+    }
+
+    public int size() {
+        return zeroCount != 0 ? size + 1 : size;
+    }
+
+    /**
+     * Возвращает до {@code k} ключей с наибольшими счётчиками: по убыванию счётчика, при равенстве — по возрастанию
+     * ключа. Отбор идёт через двоичную кучу из {@code k} элементов, поэтому стоит O(n log k) и не сортирует всё.
+     */
+    public long[] topK(int k, LongPredicate excluded) {
+        long[] heapKeys = new long[k];
+        int[] heapCounts = new int[k];
+        int heapSize = 0;
+        if (zeroCount > 0 && !excluded.test(EMPTY) && k > 0) {
+            heapKeys[0] = EMPTY;
+            heapCounts[0] = zeroCount;
+            heapSize = 1;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            long key = keys[i];
+            if (key == EMPTY || excluded.test(key)) {
+                continue;
+            }
+            int count = counts[i];
+            if (heapSize < k) {
+                heapKeys[heapSize] = key;
+                heapCounts[heapSize] = count;
+                siftUp(heapKeys, heapCounts, heapSize++);
+            } else if (k > 0 && ranksHigher(count, key, heapCounts[0], heapKeys[0])) {
+                heapKeys[0] = key;
+                heapCounts[0] = count;
+                siftDown(heapKeys, heapCounts, heapSize);
+            }
+        }
+        // Корень кучи — худший из отобранных, поэтому извлекаем элементы с конца результата
+        long[] result = new long[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            result[i] = heapKeys[0];
+            heapKeys[0] = heapKeys[i];
+            heapCounts[0] = heapCounts[i];
+            siftDown(heapKeys, heapCounts, i);
+        }
+        return result;
+    }
+
+    private static boolean ranksHigher(int count, long key, int otherCount, long otherKey) {
+        return count != otherCount ? count > otherCount : key < otherKey;
+    }
+
+    private static void siftUp(long[] heapKeys, int[] heapCounts, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksHigher(heapCounts[parent], heapKeys[parent], heapCounts[index], heapKeys[index])) {
+                break;
+            }
+            swap(heapKeys, heapCounts, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(long[] heapKeys, int[] heapCounts, int heapSize) {
+        int index = 0;
+        while (true) {
+            int worst = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < heapSize && ranksHigher(heapCounts[worst], heapKeys[worst], heapCounts[left], heapKeys[left])) {
+                worst = left;
+            }
+            if (right < heapSize
+                    && ranksHigher(heapCounts[worst], heapKeys[worst], heapCounts[right], heapKeys[right])) {
+                worst = right;
+            }
+            if (worst == index) {
+                return;
+            }
+            swap(heapKeys, heapCounts, worst, index);
+            index = worst;
+        }
+    }
+
+    private static void swap(long[] heapKeys, int[] heapCounts, int i, int j) {
+        long key = heapKeys[i];
+        heapKeys[i] = heapKeys[j];
+        heapKeys[j] = key;
+        int count = heapCounts[i];
+        heapCounts[i] = heapCounts[j];
+        heapCounts[j] = count;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[capacity];
+        counts = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = hash(oldKeys[i]) & mask;
+                while (keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                counts[index] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int hash(long value) {
+        long mixed = value * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
@@ -0,0 +1,144 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Пересечение множеств идентификаторов без упаковки в {@code Long}.
+ * Стратегия выбирается по соотношению размеров: линейное слияние отсортированных снимков
+ * для соизмеримых множеств, галопирующий поиск при заметном перекосе и поиск в хеш-таблице
+ * большего множества при сильном перекосе, когда строить его снимок дороже самого пересечения.
+ */
+public final class LongSets {
+    static final int GALLOP_RATIO = 8;
+    static final int PROBE_RATIO = 64;
+
+    private LongSets() {
+    }
+
+    public static long[] intersect(LongHashSet first, LongHashSet second) {
+        LongHashSet smaller = first.size() <= second.size() ? first : second;
+        LongHashSet larger = smaller == first ? second : first;
+        long[] small = smaller.sortedView();
+        if (small.length == 0) {
+            return small;
+        }
+        long ratio = larger.size() / small.length;
+        if (ratio >= PROBE_RATIO) {
+            return probe(small, larger);
+        }
+        long[] large = larger.sortedView();
+        return ratio >= GALLOP_RATIO ? gallop(small, large) : merge(small, large);
+    }
+
+    /**
+     * Представление массива в виде неизменяемого списка без копирования, например для {@code getByIds}.
+     */
+    public static List<Long> asList(long[] values) {
+        return new LongArrayList(values);
+    }
+
+    /**
+     * Не более {@code limit} элементов множества в порядке возрастания: равномерная выборка с постоянным шагом,
+     * если элементов больше. Без выборки возвращается общий снимок множества, его нельзя изменять.
+     */
+    public static long[] sample(LongHashSet set, int limit) {
+        return sample(set.sortedView(), limit);
+    }
+
+    /**
+     * То же для отсортированного массива; без выборки возвращается сам массив.
+     */
+    public static long[] sample(long[] values, int limit) {
+        if (values.length <= limit) {
+            return values;
+        }
+        long[] result = new long[limit];
+        double step = (double) values.length / limit;
+        for (int i = 0; i < limit; i++) {
+            result[i] = values[(int) (i * step)];
+        }
+        return result;
+    }
+
+    static long[] probe(long[] small, LongHashSet large) {
+        long[] result = new long[small.length];
+        int count = 0;
+        for (long value : small) {
+            if (large.contains(value)) {
+                result[count++] = value;
+            }
+        }
+        return trim(result, count);
+    }
+
+    static long[] merge(long[] first, long[] second) {
+        long[] result = new long[Math.min(first.length, second.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                result[count++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return trim(result, count);
+    }
+
+    static long[] gallop(long[] small, long[] large) {
+        long[] result = new long[small.length];
+        int count = 0;
+        int from = 0;
+        for (long value : small) {
+            // Экспоненциально расширяем окно, затем ищем в нём двоичным поиском
+            int step = 1;
+            int to = from;
+            while (to < large.length && large[to] < value) {
+                from = to + 1;
+                to += step;
+                step <<= 1;
+            }
+            int index = Arrays.binarySearch(large, from, Math.min(to + 1, large.length), value);
+            if (index >= 0) {
+                result[count++] = value;
+                from = index + 1;
+            } else {
+                from = -index - 1;
+            }
+            if (from >= large.length) {
+                break;
+            }
+        }
+        return trim(result, count);
+    }
+
+    private static long[] trim(long[] values, int length) {
+        return length == values.length ? values : Arrays.copyOf(values, length);
+    }
+
+    private static final class LongArrayList extends AbstractList<Long> implements RandomAccess {
+        private final long[] values;
+
+        private LongArrayList(long[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public Long get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+
+/**
+ * Счётчик событий за последние {@code buckets} интервалов длиной {@code bucketMillis}: кольцо корзин
+ * фиксированного размера и сумма по нему. Запись и чтение суммы стоят O(1) амортизированно — устаревшие
+ * корзины обнуляются при сдвиге кольца, один раз на интервал. Память не зависит от числа событий.
+ * Не потокобезопасен: вызывающий код держит один монитор на счётчик.
+ */
+public class SlidingWindowCounter {
+    private final int[] counts;
+    private final long bucketMillis;
+    // Номер самой новой корзины (время / bucketMillis); корзина номер n лежит в ячейке n % counts.length
+    private long head = Long.MIN_VALUE;
+    private int total;
+
+    public SlidingWindowCounter(int buckets, long bucketMillis) {
+        this.counts = new int[buckets];
+        this.bucketMillis = bucketMillis;
+    }
+
+    public void add(long timeMillis, int delta) {
+        long bucket = Math.floorDiv(timeMillis, bucketMillis);
+        advance(bucket);
+        // Событие старше окна (например, при восстановлении журнала) на счётчик не влияет
+        if (head - bucket >= counts.length) {
+            return;
+        }
+        counts[slot(bucket)] += delta;
+        total += delta;
+    }
+
+    /**
+     * Снимает до {@code delta} событий, записанных в момент {@code eventMillis}: только из их собственной корзины
+     * и только пока она в окне. Событие, уже выпавшее из окна, сумму не меняет, корзина не уходит ниже нуля.
+     */
+    public void remove(long timeMillis, long eventMillis, int delta) {
+        advance(Math.floorDiv(timeMillis, bucketMillis));
+        long bucket = Math.floorDiv(eventMillis, bucketMillis);
+        if (bucket > head || head - bucket >= counts.length) {
+            return;
+        }
+        int slot = slot(bucket);
+        int removed = Math.min(delta, counts[slot]);
+        counts[slot] -= removed;
+        total -= removed;
+    }
+
+    public int sum(long timeMillis) {
+        advance(Math.floorDiv(timeMillis, bucketMillis));
+        return total;
+    }
+
+    // Номер самой новой корзины и содержимое кольца от старых корзин к новым — для снимка журнала
+    public long head() {
+        return head;
+    }
+
+    public int[] countsOldestFirst() {
+        int[] result = new int[counts.length];
+        for (int age = 0; age < counts.length; age++) {
+            result[counts.length - 1 - age] = head == Long.MIN_VALUE ? 0 : counts[slot(head - age)];
+        }
+        return result;
+    }
+
+    public void restore(long head, int[] countsOldestFirst) {
+        if (countsOldestFirst.length != counts.length) {
+            throw new IllegalArgumentException("Ожидалось корзин: " + counts.length + ", получено: "
+                    + countsOldestFirst.length);
+        }
+        this.head = head;
+        total = 0;
+        for (int age = 0; age < counts.length; age++) {
+            int count = countsOldestFirst[counts.length - 1 - age];
+            counts[slot(head - age)] = count;
+            total += count;
+        }
+    }
+
+    private void advance(long bucket) {
+        if (bucket <= head) {
+            return;
+        }
+        if (head == Long.MIN_VALUE || bucket - head >= counts.length) {
+            Arrays.fill(counts, 0);
+            total = 0;
+        } else {
+            for (long expired = head + 1; expired <= bucket; expired++) {
+                int slot = slot(expired);
+                total -= counts[slot];
+                counts[slot] = 0;
+            }
+        }
+        head = bucket;
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) counts.length);
+    }
+}
@@ -0,0 +1,45 @@
+CREATE TABLE IF NOT EXISTS films (
+    id           BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name         VARCHAR(255) NOT NULL,
+    description  VARCHAR(200),
+    release_date DATE         NOT NULL,
+    duration     INTEGER,
+    likes_count  INTEGER      NOT NULL DEFAULT 0
+);
+
+-- Счётчик лайков денормализован, чтобы популярные фильмы читались по индексу без группировки
+CREATE INDEX IF NOT EXISTS films_popularity_idx ON films (likes_count DESC, id);
+-- Фильтры популярных фильмов по году выхода и продолжительности
+CREATE INDEX IF NOT EXISTS films_release_date_idx ON films (release_date, likes_count DESC);
+CREATE INDEX IF NOT EXISTS films_duration_idx ON films (duration);
+
+CREATE TABLE IF NOT EXISTS users (
+    id       BIGINT AUTO_INCREMENT PRIMARY KEY,
+    email    VARCHAR(255) NOT NULL,
+    login    VARCHAR(255) NOT NULL,
+    name     VARCHAR(255),
+    birthday DATE
+);
+
+CREATE TABLE IF NOT EXISTS likes (
+    film_id BIGINT NOT NULL REFERENCES films (id),
+    user_id BIGINT NOT NULL REFERENCES users (id),
+    PRIMARY KEY (film_id, user_id)
+);
+
+-- Время лайка для трендов. Настоящее время лайков из баз прежних версий неизвестно, поэтому им проставляется
+-- начало эпохи и в окна трендов они не попадают; новые лайки всегда пишутся с явным created_at
+ALTER TABLE likes ADD COLUMN IF NOT EXISTS created_at TIMESTAMP NOT NULL DEFAULT TIMESTAMP '1970-01-01 00:00:00';
+
+CREATE INDEX IF NOT EXISTS likes_user_idx ON likes (user_id);
+-- Тренды группируют только лайки из окна, не читая всю таблицу
+CREATE INDEX IF NOT EXISTS likes_created_idx ON likes (created_at, film_id);
+
+-- Дружба симметрична и хранится двумя строками, чтобы список друзей читался по первичному ключу
+CREATE TABLE IF NOT EXISTS friendships (
+    user_id   BIGINT NOT NULL REFERENCES users (id),
+    friend_id BIGINT NOT NULL REFERENCES users (id),
+    PRIMARY KEY (user_id, friend_id)
+);
+
+CREATE INDEX IF NOT EXISTS friendships_friend_idx ON friendships (friend_id);
@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.junit.jupiter.api.Test;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HttpLoggingConfigTest {
+    private final HttpLoggingConfig config = new HttpLoggingConfig();
+
+    @Test
+    void shouldLogEveryRequestExceptActuatorAndImportsByDefault() {
+        Predicate<HttpRequest> condition = config.requestCondition(1.0);
+
+        assertTrue(condition.test(request("/films/1")));
+        assertFalse(condition.test(request("/actuator/prometheus")));
+        assertFalse(condition.test(request("/films/likes/import")));
+    }
+
+    @Test
+    void shouldSampleRequests() {
+        Predicate<HttpRequest> condition = config.requestCondition(0.1);
+        HttpRequest request = request("/films/1");
+
+        long logged = IntStream.range(0, 10_000).filter(i -> condition.test(request)).count();
+
+        assertTrue(logged > 500 && logged < 1_500, "Залогировано " + logged + " из 10000");
+    }
+
+    @Test
+    void shouldDisableLoggingWithZeroRate() {
+        assertFalse(config.requestCondition(0.0).test(request("/films/1")));
+    }
+
+    private static HttpRequest request(String path) {
+        HttpRequest request = mock(HttpRequest.class);
+        when(request.getPath()).thenReturn(path);
+        return request;
+    }
+}
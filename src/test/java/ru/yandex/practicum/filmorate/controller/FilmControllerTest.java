@@ -5,12 +5,18 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.yandex.practicum.filmorate.model.Film;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -94,4 +100,222 @@ class FilmControllerTest {
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldSerializeLikesAsSortedArray() throws Exception {
+        String film = "{\"name\":\"Фильм\",\"description\":\"Описание\",\"releaseDate\":\"2000-01-01\","
+                + "\"duration\":120,\"likes\":[3,1,2]}";
+
+        mockMvc.perform(post("/films")
+                        .content(film)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.likes").value(contains(1, 2, 3)))
+                .andExpect(jsonPath("$.likesCount").value(3));
+    }
+
+    @Test
+    void shouldReturnFilmsPageByCursor() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            createFilm("Фильм для страницы " + i);
+        }
+
+        String firstPage = mockMvc.perform(get("/films").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/films").param("after", firstPage).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(Long.parseLong(firstPage) + 1));
+    }
+
+    @Test
+    void shouldRejectInvalidPageLimit() throws Exception {
+        mockMvc.perform(get("/films").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldReturnEmptyPageAfterLastPossibleId() throws Exception {
+        createFilm("Фильм");
+
+        mockMvc.perform(get("/films").param("after", "9223372036854775807").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    void shouldRejectInvertedDurationRange() throws Exception {
+        mockMvc.perform(get("/films/popular").param("minDuration", "120").param("maxDuration", "90"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldRejectUnknownTrendingWindow() throws Exception {
+        mockMvc.perform(get("/films/trending").param("window", "30d"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldReturnJsonArrayForAnyAcceptHeader() throws Exception {
+        createFilm("Фильм");
+
+        mockMvc.perform(get("/films").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void shouldStreamFilmsAsNdjson() throws Exception {
+        createFilm("Потоковый фильм");
+
+        MvcResult result = mockMvc.perform(get("/films").accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        String[] lines = body.split("\n");
+        assertTrue(lines.length >= 1);
+        for (String line : lines) {
+            assertNotNull(objectMapper.readValue(line, Film.class).getId());
+        }
+    }
+
+    @Test
+    void shouldServeFreshJsonAfterLikeAndUpdate() throws Exception {
+        long film = createFilm("Фильм до правки");
+        long userId = createUser("fragments");
+        mockMvc.perform(get("/films/{id}", film))
+                .andExpect(jsonPath("$.likes").isEmpty())
+                .andExpect(jsonPath("$.version").doesNotExist());
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", film, userId))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/films/{id}", film))
+                .andExpect(jsonPath("$.likes").value(contains((int) userId)));
+
+        String updated = "{\"id\":" + film + ",\"name\":\"Фильм после правки\",\"description\":\"Описание\","
+                + "\"releaseDate\":\"2000-01-01\",\"duration\":120}";
+        mockMvc.perform(put("/films")
+                        .content(updated)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/films").param("after", String.valueOf(film - 1)).param("limit", "1"))
+                .andExpect(jsonPath("$[0].name").value("Фильм после правки"));
+    }
+
+    @Test
+    void shouldAnswerNotModifiedUntilFilmChanges() throws Exception {
+        long film = createFilm("Фильм с ETag");
+        long userId = createUser("etag");
+        String etag = mockMvc.perform(get("/films/{id}", film))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/films/{id}", film).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", film, userId));
+        mockMvc.perform(get("/films/{id}", film).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.likes").value(contains((int) userId)));
+    }
+
+    @Test
+    void shouldAnswerNotModifiedForUnchangedPopularFilms() throws Exception {
+        createFilm("Популярный фильм");
+        String etag = mockMvc.perform(get("/films/popular"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/films/popular").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        createFilm("Новый фильм");
+        mockMvc.perform(get("/films/popular").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldCheckPopularParametersBeforeETag() throws Exception {
+        createFilm("Популярный фильм");
+        String etag = mockMvc.perform(get("/films/popular"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/films/popular").param("count", "-1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/films/popular").param("count", "1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/films/popular").param("year", "2000").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldImportLikesFromCsvWithLineErrors() throws Exception {
+        long film = createFilm("Фильм для импорта");
+        long userId = createUser("importer");
+        String csv = "filmId,userId\n"
+                + film + "," + userId + "\n"
+                + film + ",9999\n"
+                + "не число\n";
+
+        mockMvc.perform(post("/films/likes/import")
+                        .content(csv)
+                        .contentType("text/csv"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.rejected").value(2))
+                .andExpect(jsonPath("$.errors[0].line").value(3))
+                .andExpect(jsonPath("$.errors[1].line").value(4));
+
+        mockMvc.perform(get("/films/{id}", film))
+                .andExpect(jsonPath("$.likes").value(contains((int) userId)));
+    }
+
+    @Test
+    void shouldTreatSignedFirstCsvLineAsData() throws Exception {
+        long film = createFilm("Фильм без заголовка");
+        long userId = createUser("signed");
+        String csv = "-1," + userId + "\n"
+                + "+" + film + "," + userId + "\n";
+
+        mockMvc.perform(post("/films/likes/import")
+                        .content(csv)
+                        .contentType("text/csv"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(1));
+    }
+
+    private long createFilm(String name) throws Exception {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+
+        String response = mockMvc.perform(post("/films")
+                        .content(objectMapper.writeValueAsString(film))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, Film.class).getId();
+    }
+
+    private long createUser(String login) throws Exception {
+        String user = "{\"email\":\"" + login + "@mail.com\",\"login\":\"" + login + "\",\"birthday\":\"2000-01-01\"}";
+        String response = mockMvc.perform(post("/users")
+                        .content(user)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("id").asLong();
+    }
+}
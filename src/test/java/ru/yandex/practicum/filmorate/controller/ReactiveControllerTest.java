@@ -0,0 +1,167 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("reactive")
+class ReactiveControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void shouldRejectInvalidUser() {
+        User user = new User();
+        user.setEmail("invalid-email");
+        user.setLogin("login");
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+
+        webTestClient.post().uri("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(user)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.error").exists();
+    }
+
+    @Test
+    void shouldAnswerNotModifiedUntilFriendsChange() {
+        long first = createUser("reactiveFirst");
+        long second = createUser("reactiveSecond");
+        long third = createUser("reactiveThird");
+        webTestClient.put().uri("/users/{id}/friends/{friendId}", first, second).exchange().expectStatus().isOk();
+
+        String etag = webTestClient.get().uri("/users/{id}/friends", first)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].id").isEqualTo(second)
+                .returnResult().getResponseHeaders().getETag();
+        assertNotNull(etag);
+
+        webTestClient.get().uri("/users/{id}/friends", first)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        webTestClient.put().uri("/users/{id}/friends/{friendId}", first, third).exchange().expectStatus().isOk();
+        webTestClient.get().uri("/users/{id}/friends", first)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.length()").isEqualTo(2);
+        webTestClient.get().uri("/users/{id}/friends", 999999)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void shouldStreamAllUsersAsNdjson() {
+        long created = createUser("reactiveStream");
+
+        List<User> users = webTestClient.get().uri("/users")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(User.class).getResponseBody()
+                .collectList()
+                .block();
+
+        assertNotNull(users);
+        assertTrue(users.stream().anyMatch(user -> user.getId() == created));
+    }
+
+    @Test
+    void shouldImportFriendsFromStreamedBody() {
+        long first = createUser("reactiveImportFirst");
+        long second = createUser("reactiveImportSecond");
+        String body = first + "," + second + "\n"
+                + first + ",9999\n";
+
+        webTestClient.post().uri("/users/friends/import")
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.accepted").isEqualTo(1)
+                .jsonPath("$.rejected").isEqualTo(1);
+
+        webTestClient.get().uri("/users/{id}/friends", second)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].id").isEqualTo(first);
+    }
+
+    @Test
+    void shouldImportLikesStreamedInSeveralChunks() {
+        long user = createUser("reactiveImportLikes");
+        Film film = new Film();
+        film.setName("Реактивный импорт");
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(90);
+        Film created = webTestClient.post().uri("/films")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(film)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Film.class)
+                .returnResult().getResponseBody();
+        assertNotNull(created);
+        int unknown = 25_000;
+        // Тело уходит множеством частей, строки режутся на границах частей
+        Flux<String> body = Flux.concat(
+                Flux.just("filmId,user", "Id\n", created.getId() + "," + user + "\n"),
+                Flux.range(0, unknown).map(i -> "9999," + user + "\n"));
+
+        webTestClient.post().uri("/films/likes/import")
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .body(body, String.class)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.accepted").isEqualTo(1)
+                .jsonPath("$.rejected").isEqualTo(unknown)
+                .jsonPath("$.errors[0].line").isEqualTo(3);
+
+        webTestClient.get().uri("/films/{id}", created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.likes[0]").isEqualTo(user);
+    }
+
+    private long createUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.com");
+        user.setLogin(login);
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+
+        User created = webTestClient.post().uri("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(user)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(User.class)
+                .returnResult().getResponseBody();
+        assertNotNull(created);
+        return created.getId();
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.yandex.practicum.filmorate.model.User;
@@ -104,4 +105,197 @@ class UserControllerTest {
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    void shouldReturnFriendsAndCommonFriends() throws Exception {
+        long first = createUser("first");
+        long second = createUser("second");
+        long common = createUser("common");
+
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", first, common)).andExpect(status().isOk());
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", second, common)).andExpect(status().isOk());
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", first, second)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/users/{id}/friends", first))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+        mockMvc.perform(get("/users/{id}/friends/common/{otherId}", first, second))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(common));
+    }
+
+    @Test
+    void shouldNotAddUserToOwnFriends() throws Exception {
+        long user = createUser("self");
+
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", user, user))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/users/{id}/friends", user))
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void shouldAnswerNotModifiedUntilFriendsChange() throws Exception {
+        long user = createUser("etagUser");
+        long friend = createUser("etagFriend");
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", user, friend)).andExpect(status().isOk());
+        String etag = mockMvc.perform(get("/users/{id}/friends", user))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/users/{id}/friends", user).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(delete("/users/{id}/friends/{friendId}", user, friend)).andExpect(status().isOk());
+        mockMvc.perform(get("/users/{id}/friends", user).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void shouldCheckUsersBeforeFriendsETag() throws Exception {
+        long user = createUser("etagOwner");
+        long other = createUser("etagOther");
+        String etag = mockMvc.perform(get("/users/{id}/friends", user))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/users/{id}/friends", 999999).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/users/{id}/friends", other).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users/{id}/friends/common/{otherId}", user, 999999)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldReturnEmptyPageAfterLastPossibleId() throws Exception {
+        createUser("lastPage");
+
+        mockMvc.perform(get("/users").param("after", "9223372036854775807").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    void shouldNotReturnFriendsOfUnknownUser() throws Exception {
+        mockMvc.perform(get("/users/{id}/friends", 9_999))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldRecommendFriendsOfFriendsByMutualCount() throws Exception {
+        long user = createUser("recommendUser");
+        long firstFriend = createUser("recommendFirst");
+        long secondFriend = createUser("recommendSecond");
+        long twoMutual = createUser("recommendTwoMutual");
+        long oneMutual = createUser("recommendOneMutual");
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", user, firstFriend)).andExpect(status().isOk());
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", user, secondFriend)).andExpect(status().isOk());
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", firstFriend, secondFriend)).andExpect(status().isOk());
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", firstFriend, twoMutual)).andExpect(status().isOk());
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", secondFriend, twoMutual)).andExpect(status().isOk());
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", secondFriend, oneMutual)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/users/{id}/recommendations", user))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].user.id").value(twoMutual))
+                .andExpect(jsonPath("$[0].mutualFriends").value(2))
+                .andExpect(jsonPath("$[1].user.id").value(oneMutual))
+                .andExpect(jsonPath("$[1].mutualFriends").value(1));
+        mockMvc.perform(get("/users/{id}/recommendations", user).param("count", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldReturnFilmsLikedByUser() throws Exception {
+        long user = createUser("likedFilmsUser");
+        long first = createFilm();
+        long second = createFilm();
+        long removed = createFilm();
+        mockMvc.perform(put("/films/{id}/like/{userId}", second, user)).andExpect(status().isOk());
+        mockMvc.perform(put("/films/{id}/like/{userId}", first, user)).andExpect(status().isOk());
+        mockMvc.perform(put("/films/{id}/like/{userId}", removed, user)).andExpect(status().isOk());
+        mockMvc.perform(delete("/films/{id}/like/{userId}", removed, user)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/users/{id}/liked-films", user))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(first))
+                .andExpect(jsonPath("$[1].id").value(second));
+        mockMvc.perform(get("/users/{id}/liked-films", 9_999))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldRecommendFilmsLikedBySimilarUsers() throws Exception {
+        long user = createUser("filmsUser");
+        long similar = createUser("filmsSimilar");
+        long other = createUser("filmsOther");
+        long shared = createFilm();
+        long recommended = createFilm();
+        long unrelated = createFilm();
+        mockMvc.perform(put("/films/{id}/like/{userId}", shared, user)).andExpect(status().isOk());
+        mockMvc.perform(put("/films/{id}/like/{userId}", shared, similar)).andExpect(status().isOk());
+        mockMvc.perform(put("/films/{id}/like/{userId}", recommended, similar)).andExpect(status().isOk());
+        mockMvc.perform(put("/films/{id}/like/{userId}", unrelated, other)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/users/{id}/recommended-films", user))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(recommended));
+    }
+
+    @Test
+    void shouldImportFriendsFromNdjsonWithLineErrors() throws Exception {
+        long first = createUser("importFirst");
+        long second = createUser("importSecond");
+        String body = "{\"userId\":" + first + ",\"friendId\":" + second + "}\n"
+                + "{\"userId\":" + first + ",\"friendId\":" + first + "}\n"
+                + "\n"
+                + "{\"userId\":" + first + "\n"
+                + "{\"userId\":" + first + ",\"friendId\":9999}\n";
+
+        mockMvc.perform(post("/users/friends/import")
+                        .content(body)
+                        .contentType("application/x-ndjson"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.rejected").value(3))
+                .andExpect(jsonPath("$.errors[0].line").value(2))
+                .andExpect(jsonPath("$.errors[1].line").value(4))
+                .andExpect(jsonPath("$.errors[2].line").value(5));
+
+        mockMvc.perform(get("/users/{id}/friends", second))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(first));
+    }
+
+    private long createFilm() throws Exception {
+        String film = "{\"name\":\"Фильм\",\"description\":\"Описание\",\"releaseDate\":\"2000-01-01\","
+                + "\"duration\":120}";
+        String response = mockMvc.perform(post("/films")
+                        .content(film)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("id").asLong();
+    }
+
+    private long createUser(String login) throws Exception {
+        User user = new User();
+        user.setEmail(login + "@mail.com");
+        user.setLogin(login);
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+
+        String response = mockMvc.perform(post("/users")
+                        .content(objectMapper.writeValueAsString(user))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, User.class).getId();
+    }
 }
\ No newline at end of file
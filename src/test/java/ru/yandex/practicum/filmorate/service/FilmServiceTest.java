@@ -0,0 +1,137 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.LongSets;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilmServiceTest {
+    private final ThreadRecordingFilmStorage filmStorage = new ThreadRecordingFilmStorage();
+    private final InMemoryUserStorage userStorage = new InMemoryUserStorage();
+    private final FilmService filmService = new FilmService(filmStorage, userStorage,
+            new LikeWriteBuffer(filmStorage, false, 10, Duration.ofHours(1)),
+            new SingleFlight(false, Duration.ofSeconds(1)));
+
+    @Test
+    void shouldSampleLikesOfNeighboursWhoLikedWholeCatalogue() {
+        long user = userStorage.create(user("user")).getId();
+        // Соседей больше порога распараллеливания, чтобы второй проход шел в fork-join пуле
+        long[] fans = new long[64];
+        for (int i = 0; i < fans.length; i++) {
+            fans[i] = userStorage.create(user("fan" + i)).getId();
+        }
+        long[] catalogue = new long[FilmService.MAX_FAN_OUT * 3];
+        for (int i = 0; i < catalogue.length; i++) {
+            catalogue[i] = filmStorage.create(film()).getId();
+            for (long fan : fans) {
+                filmStorage.addLike(catalogue[i], fan);
+            }
+        }
+        filmStorage.addLike(catalogue[0], user);
+        filmStorage.threads.clear();
+
+        List<Film> recommended = filmService.getRecommendedFilms(user, FilmService.MAX_RECOMMENDATIONS);
+
+        long[] sampled = LongSets.sample(catalogue, FilmService.MAX_FAN_OUT);
+        assertEquals(FilmService.MAX_RECOMMENDATIONS, recommended.size());
+        for (Film film : recommended) {
+            assertTrue(Arrays.binarySearch(sampled, film.getId()) >= 0,
+                    "Фильм " + film.getId() + " не входит в выборку лайков соседей");
+        }
+        // Хранилище не вызывается из потоков общего fork-join пула
+        assertEquals(Set.of(Thread.currentThread().getName()), filmStorage.threads);
+    }
+
+    @Test
+    void shouldReadLikesOfAllNeighboursInOneCall() {
+        long user = userStorage.create(user("user")).getId();
+        long shared = filmStorage.create(film()).getId();
+        filmStorage.addLike(shared, user);
+        for (int i = 0; i < 50; i++) {
+            long fan = userStorage.create(user("fan" + i)).getId();
+            filmStorage.addLike(shared, fan);
+            filmStorage.addLike(filmStorage.create(film()).getId(), fan);
+        }
+        filmStorage.likedFilmIdsCalls.set(0);
+
+        List<Film> recommended = filmService.getRecommendedFilms(user, 10);
+
+        assertEquals(10, recommended.size());
+        // Лайки самого пользователя и одним обращением лайки всех соседей
+        assertEquals(2, filmStorage.likedFilmIdsCalls.get());
+    }
+
+    @Test
+    void shouldShowDeferredLikeInPopularFilmsRightAfterIt() {
+        LikeWriteBuffer buffer = new LikeWriteBuffer(filmStorage, true, 100, Duration.ofHours(1));
+        FilmService service = new FilmService(filmStorage, userStorage, buffer,
+                new SingleFlight(true, Duration.ofSeconds(1)));
+        long user = userStorage.create(user("user")).getId();
+        long first = filmStorage.create(film()).getId();
+        long second = filmStorage.create(film()).getId();
+        long versionBefore = service.getVersion().orElseThrow();
+
+        service.addLike(second, user);
+
+        assertEquals(1, buffer.getPendingCount());
+        assertNotEquals(versionBefore, service.getVersion().orElseThrow());
+        assertEquals(List.of(second, first), service.getPopular(2).stream().map(Film::getId).toList());
+        assertEquals(0, buffer.getPendingCount());
+    }
+
+    private static Film film() {
+        Film film = new Film();
+        film.setName("Фильм");
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(90);
+        return film;
+    }
+
+    private static User user(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.com");
+        user.setLogin(login);
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return user;
+    }
+
+    // Запоминает потоки, из которых читаются лайки пользователей, и число таких обращений
+    private static final class ThreadRecordingFilmStorage extends InMemoryFilmStorage {
+        private final Set<String> threads = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger likedFilmIdsCalls = new AtomicInteger();
+
+        @Override
+        public long[] getLikedFilmIds(Long userId) {
+            threads.add(Thread.currentThread().getName());
+            likedFilmIdsCalls.incrementAndGet();
+            return super.getLikedFilmIds(userId);
+        }
+
+        @Override
+        public Map<Long, long[]> getLikedFilmIds(Collection<Long> userIds) {
+            threads.add(Thread.currentThread().getName());
+            likedFilmIdsCalls.incrementAndGet();
+            Map<Long, long[]> result = new HashMap<>();
+            for (Long userId : userIds) {
+                result.put(userId, super.getLikedFilmIds(userId));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Edge;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LikeWriteBufferTest {
+    private final CountingFilmStorage storage = new CountingFilmStorage();
+    private LikeWriteBuffer buffer;
+
+    @AfterEach
+    void tearDown() {
+        buffer.shutdown();
+    }
+
+    @Test
+    void shouldApplyLikesImmediatelyWhenDisabled() {
+        buffer = new LikeWriteBuffer(storage, false, 10, Duration.ofHours(1));
+        Film film = storage.create(film());
+
+        buffer.addLike(film.getId(), 1L);
+
+        assertEquals(1, film.getLikesCount());
+        assertEquals(0, buffer.getPendingCount());
+    }
+
+    @Test
+    void shouldDeferLikesUntilFlush() {
+        buffer = new LikeWriteBuffer(storage, true, 100, Duration.ofHours(1));
+        Film film = storage.create(film());
+
+        buffer.addLike(film.getId(), 1L);
+        buffer.addLike(film.getId(), 2L);
+
+        assertEquals(0, film.getLikesCount());
+        assertEquals(2, buffer.getPendingCount());
+
+        buffer.flush();
+
+        assertEquals(2, film.getLikesCount());
+        assertEquals(0, buffer.getPendingCount());
+    }
+
+    @Test
+    void shouldWriteLikesInBatchesGroupedByFilm() {
+        buffer = new LikeWriteBuffer(storage, true, 100, Duration.ofHours(1));
+        Film first = storage.create(film());
+        Film second = storage.create(film());
+        storage.addLike(first.getId(), 3L);
+        int writesBefore = storage.writes.get();
+
+        buffer.addLike(second.getId(), 1L);
+        buffer.addLike(first.getId(), 1L);
+        buffer.removeLike(first.getId(), 3L);
+        buffer.addLike(second.getId(), 2L);
+        buffer.flush();
+
+        assertEquals(writesBefore, storage.writes.get());
+        assertEquals(List.of(List.of(new Edge(first.getId(), 1L), new Edge(second.getId(), 1L),
+                new Edge(second.getId(), 2L))), storage.addedBatches);
+        assertEquals(List.of(List.of(new Edge(first.getId(), 3L))), storage.removedBatches);
+        assertEquals(1, first.getLikesCount());
+        assertEquals(2, second.getLikesCount());
+    }
+
+    @Test
+    void shouldCoalesceChangesOfSameLike() {
+        buffer = new LikeWriteBuffer(storage, true, 100, Duration.ofHours(1));
+        Film film = storage.create(film());
+        storage.addLike(film.getId(), 1L);
+
+        buffer.removeLike(film.getId(), 1L);
+        buffer.addLike(film.getId(), 1L);
+        buffer.removeLike(film.getId(), 1L);
+        assertEquals(3, buffer.getPendingCount());
+        buffer.flush();
+
+        assertEquals(0, film.getLikesCount());
+        assertEquals(List.of(), storage.addedBatches);
+        assertEquals(List.of(List.of(new Edge(film.getId(), 1L))), storage.removedBatches);
+        assertEquals(0, buffer.getPendingCount());
+    }
+
+    @Test
+    void shouldRetryFailedBatchAndRejectLikesUntilItIsWritten() {
+        buffer = new LikeWriteBuffer(storage, true, 100, Duration.ofHours(1));
+        Film film = storage.create(film());
+        buffer.addLike(film.getId(), 1L);
+        storage.failing = true;
+
+        assertThrows(IllegalStateException.class, () -> buffer.flush());
+        assertEquals(1, buffer.getPendingCount());
+        assertThrows(IllegalStateException.class, () -> buffer.addLike(film.getId(), 2L));
+
+        storage.failing = false;
+        buffer.flush();
+
+        assertEquals(1, film.getLikesCount());
+        assertEquals(0, buffer.getPendingCount());
+        buffer.addLike(film.getId(), 2L);
+        assertEquals(1, buffer.getPendingCount());
+    }
+
+    @Test
+    void shouldFlushInCallerThreadWhenCapacityReached() {
+        buffer = new LikeWriteBuffer(storage, true, 3, Duration.ofHours(1));
+        Film film = storage.create(film());
+
+        for (long userId = 1; userId <= 3; userId++) {
+            buffer.addLike(film.getId(), userId);
+        }
+
+        assertEquals(3, film.getLikesCount());
+        assertEquals(0, buffer.getPendingCount());
+    }
+
+    @Test
+    void shouldFlushInBackground() throws InterruptedException {
+        buffer = new LikeWriteBuffer(storage, true, 100, Duration.ofMillis(10));
+        buffer.start();
+        Film film = storage.create(film());
+
+        buffer.addLike(film.getId(), 1L);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (film.getLikesCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, film.getLikesCount());
+    }
+
+    // Считает одиночные записи лайков и запоминает пачки, дошедшие до хранилища
+    private static class CountingFilmStorage extends InMemoryFilmStorage {
+        private final AtomicInteger writes = new AtomicInteger();
+        private final List<List<Edge>> addedBatches = new ArrayList<>();
+        private final List<List<Edge>> removedBatches = new ArrayList<>();
+        private volatile boolean failing;
+
+        @Override
+        public void addLike(Long filmId, Long userId) {
+            writes.incrementAndGet();
+            super.addLike(filmId, userId);
+        }
+
+        @Override
+        public void removeLike(Long filmId, Long userId) {
+            writes.incrementAndGet();
+            super.removeLike(filmId, userId);
+        }
+
+        @Override
+        public void addLikes(Collection<Edge> likes) {
+            if (failing) {
+                throw new IllegalStateException("Хранилище недоступно");
+            }
+            addedBatches.add(List.copyOf(likes));
+            super.addLikes(likes);
+        }
+
+        @Override
+        public void removeLikes(Collection<Edge> likes) {
+            if (failing) {
+                throw new IllegalStateException("Хранилище недоступно");
+            }
+            removedBatches.add(List.copyOf(likes));
+            super.removeLikes(likes);
+        }
+    }
+
+    private Film film() {
+        Film film = new Film();
+        film.setName("Фильм");
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+        return film;
+    }
+}
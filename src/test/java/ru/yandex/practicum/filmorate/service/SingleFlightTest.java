@@ -0,0 +1,141 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+    private static final int FOLLOWERS = 8;
+
+    @Test
+    void shouldShareOneComputationBetweenConcurrentCalls() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(true, Duration.ofSeconds(10));
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Object shared = new Object();
+        ExecutorService executor = Executors.newFixedThreadPool(FOLLOWERS + 1);
+        try {
+            Future<Object> leader = executor.submit(() -> singleFlight.execute("op", 1, () -> {
+                computations.incrementAndGet();
+                started.countDown();
+                await(release);
+                return shared;
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            List<Future<Object>> followers = new ArrayList<>();
+            for (int i = 0; i < FOLLOWERS; i++) {
+                followers.add(executor.submit(() -> singleFlight.execute("op", 1, () -> {
+                    computations.incrementAndGet();
+                    return new Object();
+                })));
+            }
+            // Ключ с другим значением вычисляется отдельно и не ждет первого вычисления
+            assertNotSame(shared, singleFlight.execute("op", 2, Object::new));
+
+            waitForFollowersToBlock(FOLLOWERS);
+            release.countDown();
+
+            assertSame(shared, leader.get(5, TimeUnit.SECONDS));
+            for (Future<Object> follower : followers) {
+                assertSame(shared, follower.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, computations.get());
+            assertEquals(FOLLOWERS, singleFlight.getCoalescedCount("op"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldComputeItselfAfterWaitTimeout() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(true, Duration.ofMillis(50));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> singleFlight.execute("op", 1, () -> {
+                started.countDown();
+                await(release);
+                return "медленный";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertEquals("свой", singleFlight.execute("op", 1, () -> "свой"));
+            assertEquals(0, singleFlight.getCoalescedCount("op"));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldPropagateLeaderFailureToFollowers() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(true, Duration.ofSeconds(10));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> leader = executor.submit(() -> singleFlight.execute("op", 1, () -> {
+                started.countDown();
+                await(release);
+                throw new NotFoundException("Пользователь с таким id не найден");
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<Object> follower = executor.submit(() -> singleFlight.execute("op", 1, Object::new));
+            waitForFollowersToBlock(1);
+            release.countDown();
+
+            Exception leaderError = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(NotFoundException.class, leaderError.getCause());
+            Exception followerError = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(NotFoundException.class, followerError.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Ведомые потоки ждут общий результат в CompletableFuture.get с таймаутом
+    private static void waitForFollowersToBlock(int followers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            long blocked = Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.getState() == Thread.State.TIMED_WAITING)
+                    .filter(thread -> isInSingleFlight(thread.getStackTrace()))
+                    .count();
+            if (blocked >= followers) {
+                return;
+            }
+            Thread.sleep(5);
+        }
+        fail("Ведомые запросы не дошли до ожидания общего результата");
+    }
+
+    private static boolean isInSingleFlight(StackTraceElement[] stack) {
+        for (StackTraceElement element : stack) {
+            if (element.getClassName().equals(SingleFlight.class.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
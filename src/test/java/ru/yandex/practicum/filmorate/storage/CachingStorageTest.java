@@ -0,0 +1,174 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.CachingUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingStorageTest {
+
+    @Test
+    void shouldServeRepeatedReadsFromCache() {
+        CountingFilmStorage delegate = new CountingFilmStorage();
+        Cache<Long, Film> cache = Caffeine.newBuilder().recordStats().build();
+        CachingFilmStorage storage = new CachingFilmStorage(delegate, cache);
+        Film film = storage.create(film());
+
+        storage.getById(film.getId());
+        storage.getById(film.getId());
+        storage.getById(film.getId());
+
+        assertEquals(1, delegate.reads.get());
+        assertEquals(2, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    @Test
+    void shouldInvalidateFilmOnUpdateAndLike() {
+        CountingFilmStorage delegate = new CountingFilmStorage();
+        CachingFilmStorage storage = new CachingFilmStorage(delegate, Caffeine.newBuilder().build());
+        Film film = storage.create(film());
+        storage.getById(film.getId());
+
+        storage.addLike(film.getId(), 1L);
+        int readsBeforeLikeReload = delegate.reads.get();
+        assertEquals(1, storage.getById(film.getId()).orElseThrow().getLikesCount());
+        assertEquals(readsBeforeLikeReload + 1, delegate.reads.get());
+
+        Film updated = film();
+        updated.setId(film.getId());
+        storage.update(updated);
+        int readsBeforeUpdateReload = delegate.reads.get();
+
+        assertSame(updated, storage.getById(film.getId()).orElseThrow());
+        assertEquals(readsBeforeUpdateReload + 1, delegate.reads.get());
+    }
+
+    @Test
+    void shouldInvalidateBothUsersOnFriendship() {
+        InMemoryUserStorage delegate = new InMemoryUserStorage();
+        Cache<Long, User> cache = Caffeine.newBuilder().build();
+        CachingUserStorage storage = new CachingUserStorage(delegate, cache);
+        User first = storage.create(user());
+        User second = storage.create(user());
+        storage.getByIds(List.of(first.getId(), second.getId()));
+        assertEquals(2, cache.estimatedSize());
+
+        storage.addFriend(first.getId(), second.getId());
+
+        assertNull(cache.getIfPresent(first.getId()));
+        assertNull(cache.getIfPresent(second.getId()));
+    }
+
+    @Test
+    void shouldNotCacheBulkLoadStartedBeforeInvalidation() throws Exception {
+        SnapshotFilmStorage delegate = new SnapshotFilmStorage();
+        Cache<Long, Film> cache = Caffeine.newBuilder().build();
+        CachingFilmStorage storage = new CachingFilmStorage(delegate, cache);
+        Film film = storage.create(film());
+
+        CompletableFuture<List<Film>> bulk = CompletableFuture.supplyAsync(() -> storage.getByIds(List.of(film.getId())));
+        assertTrue(delegate.loaded.await(5, TimeUnit.SECONDS));
+        // Лайк записывается и инвалидирует кэш, пока пакетная загрузка держит снимок до записи
+        storage.addLike(film.getId(), 1L);
+        delegate.release.countDown();
+
+        assertEquals(0, bulk.get(5, TimeUnit.SECONDS).getFirst().getLikesCount());
+        assertNull(cache.getIfPresent(film.getId()));
+        assertEquals(1, storage.getById(film.getId()).orElseThrow().getLikesCount());
+    }
+
+    @Test
+    void shouldCacheBulkLoadWhileOtherFilmIsInvalidated() throws Exception {
+        SnapshotFilmStorage delegate = new SnapshotFilmStorage();
+        Cache<Long, Film> cache = Caffeine.newBuilder().build();
+        CachingFilmStorage storage = new CachingFilmStorage(delegate, cache);
+        Film film = storage.create(film());
+        Film other = storage.create(film());
+
+        CompletableFuture<List<Film>> bulk = CompletableFuture.supplyAsync(() -> storage.getByIds(List.of(film.getId())));
+        assertTrue(delegate.loaded.await(5, TimeUnit.SECONDS));
+        // Запись другого фильма не мешает положить в кэш загруженный
+        storage.addLike(other.getId(), 1L);
+        delegate.release.countDown();
+
+        assertEquals(1, bulk.get(5, TimeUnit.SECONDS).size());
+        assertNotNull(cache.getIfPresent(film.getId()));
+    }
+
+    private Film film() {
+        Film film = new Film();
+        film.setName("Фильм");
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+        return film;
+    }
+
+    private User user() {
+        User user = new User();
+        user.setEmail("user@mail.com");
+        user.setLogin("login");
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return user;
+    }
+
+    // Отдаёт копии фильмов, как хранилище в базе, и останавливает пакетную загрузку после чтения
+    private static class SnapshotFilmStorage extends InMemoryFilmStorage {
+        private final CountDownLatch loaded = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public List<Film> getByIds(Collection<Long> ids) {
+            List<Film> copies = super.getByIds(ids).stream().map(SnapshotFilmStorage::copy).toList();
+            loaded.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return copies;
+        }
+
+        private static Film copy(Film film) {
+            Film copy = new Film();
+            copy.setId(film.getId());
+            copy.setName(film.getName());
+            copy.setReleaseDate(film.getReleaseDate());
+            film.getLikes().forEach(copy::addLike);
+            return copy;
+        }
+    }
+
+    private static class CountingFilmStorage extends InMemoryFilmStorage {
+        private final AtomicInteger reads = new AtomicInteger();
+
+        @Override
+        public Optional<Film> getById(Long id) {
+            reads.incrementAndGet();
+            return super.getById(id);
+        }
+
+        @Override
+        public List<Film> getByIds(Collection<Long> ids) {
+            reads.incrementAndGet();
+            return super.getByIds(ids);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryStorageConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 5_000;
+
+    @Test
+    void shouldAssignUniqueIdsUnderConcurrentCreation() throws Exception {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+
+        runConcurrently(random -> storage.create(user()));
+
+        Set<Long> ids = new HashSet<>();
+        storage.getAll().forEach(user -> ids.add(user.getId()));
+        assertEquals(THREADS * OPERATIONS_PER_THREAD, ids.size());
+        assertEquals(THREADS * OPERATIONS_PER_THREAD, storage.getAll().size());
+    }
+
+    @Test
+    void shouldKeepFriendshipSymmetricUnderConcurrentUpdates() throws Exception {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        int userCount = 20;
+        for (int i = 0; i < userCount; i++) {
+            storage.create(user());
+        }
+
+        runConcurrently(random -> {
+            long userId = random.nextInt(userCount) + 1L;
+            long friendId = random.nextInt(userCount) + 1L;
+            if (userId == friendId) {
+                return;
+            }
+            if (random.nextBoolean()) {
+                storage.addFriend(userId, friendId);
+            } else {
+                storage.removeFriend(userId, friendId);
+            }
+        });
+
+        for (User user : storage.getAll()) {
+            for (Long friendId : user.getFriends()) {
+                User friend = storage.getById(friendId).orElseThrow();
+                assertTrue(friend.getFriends().contains(user.getId()),
+                        "Дружба " + user.getId() + " -> " + friendId + " не симметрична");
+            }
+        }
+    }
+
+    @Test
+    void shouldKeepPopularityIndexConsistentUnderConcurrentLikes() throws Exception {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        int filmCount = 10;
+        for (int i = 0; i < filmCount; i++) {
+            storage.create(film());
+        }
+
+        runConcurrently(random -> {
+            long filmId = random.nextInt(filmCount) + 1L;
+            long userId = random.nextInt(100) + 1L;
+            if (random.nextInt(3) > 0) {
+                storage.addLike(filmId, userId);
+            } else {
+                storage.removeLike(filmId, userId);
+            }
+        });
+
+        List<Film> popular = storage.getPopular(filmCount);
+        assertEquals(filmCount, popular.size());
+        assertEquals(filmCount, popular.stream().map(Film::getId).distinct().count());
+        for (int i = 1; i < popular.size(); i++) {
+            assertTrue(popular.get(i - 1).getLikesCount() >= popular.get(i).getLikesCount());
+        }
+    }
+
+    private void runConcurrently(ThrowingTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            long seed = i;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                start.await();
+                for (int j = 0; j < OPERATIONS_PER_THREAD; j++) {
+                    task.run(random);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private User user() {
+        User user = new User();
+        user.setEmail("user@mail.com");
+        user.setLogin("login");
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return user;
+    }
+
+    private Film film() {
+        Film film = new Film();
+        film.setName("Фильм");
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+        return film;
+    }
+
+    @FunctionalInterface
+    private interface ThrowingTask {
+        void run(Random random) throws Exception;
+    }
+}
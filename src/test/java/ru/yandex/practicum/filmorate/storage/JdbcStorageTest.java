@@ -0,0 +1,281 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Edge;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.PopularFilter;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikeWriteBuffer;
+import ru.yandex.practicum.filmorate.service.SingleFlight;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.JdbcFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.JdbcUserStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest
+@ActiveProfiles("jdbc")
+@Import({JdbcFilmStorage.class, JdbcUserStorage.class})
+class JdbcStorageTest {
+
+    @Autowired
+    private JdbcFilmStorage filmStorage;
+
+    @Autowired
+    private JdbcUserStorage userStorage;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+
+    @Test
+    void shouldCreateAndUpdateFilm() {
+        Film film = filmStorage.create(film("Фильм"));
+
+        film.setName("Новое название");
+        filmStorage.update(film);
+
+        assertEquals("Новое название", filmStorage.getById(film.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void shouldThrowWhenUpdatingUnknownUser() {
+        User user = user("unknown");
+        user.setId(9_999L);
+
+        assertThrows(NotFoundException.class, () -> userStorage.update(user));
+    }
+
+    @Test
+    void shouldKeepFriendshipSymmetric() {
+        User first = userStorage.create(user("first"));
+        User second = userStorage.create(user("second"));
+
+        userStorage.addFriend(first.getId(), second.getId());
+
+        assertTrue(userStorage.getById(second.getId()).orElseThrow().getFriends().contains(first.getId()));
+
+        userStorage.removeFriend(second.getId(), first.getId());
+
+        assertTrue(userStorage.getById(first.getId()).orElseThrow().getFriends().isEmpty());
+    }
+
+    @Test
+    void shouldOrderPopularFilmsByLikes() {
+        User first = userStorage.create(user("first"));
+        User second = userStorage.create(user("second"));
+        Film unpopular = filmStorage.create(film("Непопулярный"));
+        Film popular = filmStorage.create(film("Популярный"));
+
+        filmStorage.addLike(popular.getId(), first.getId());
+        filmStorage.addLike(popular.getId(), second.getId());
+        filmStorage.addLike(popular.getId(), second.getId());
+        filmStorage.addLike(unpopular.getId(), first.getId());
+        filmStorage.removeLike(unpopular.getId(), first.getId());
+
+        List<Film> films = filmStorage.getPopular(2);
+
+        assertEquals(List.of(popular.getId(), unpopular.getId()), films.stream().map(Film::getId).toList());
+        assertEquals(2, films.getFirst().getLikesCount());
+        assertEquals(0, films.get(1).getLikesCount());
+        assertEquals(List.of(popular.getId(), unpopular.getId()), filmStorage.getPopular(10, new PopularFilter(2000, 100, 120)).stream()
+                .map(Film::getId).toList());
+        assertTrue(filmStorage.getPopular(10, new PopularFilter(2001, null, null)).isEmpty());
+        assertTrue(filmStorage.getPopular(10, new PopularFilter(null, null, 119)).isEmpty());
+    }
+
+    @Test
+    void shouldOrderTrendingFilmsByLikesInWindow() {
+        User first = userStorage.create(user("first"));
+        User second = userStorage.create(user("second"));
+        Film quiet = filmStorage.create(film("Без лайков"));
+        Film trending = filmStorage.create(film("В тренде"));
+        Film liked = filmStorage.create(film("С лайком"));
+
+        filmStorage.addLike(trending.getId(), first.getId());
+        filmStorage.addLike(trending.getId(), second.getId());
+        filmStorage.addLike(liked.getId(), first.getId());
+
+        List<Film> films = filmStorage.getTrending(10, TrendingWindow.HOUR);
+
+        assertEquals(List.of(trending.getId(), liked.getId()), films.stream().map(Film::getId).toList());
+        assertEquals(2, films.getFirst().getLikesCount());
+        assertFalse(films.stream().anyMatch(film -> film.getId().equals(quiet.getId())));
+    }
+
+    @Test
+    void shouldKeepLikesWithoutTimeOutOfTrending() {
+        User user = userStorage.create(user("legacy"));
+        Film film = filmStorage.create(film("Старый лайк"));
+
+        // Так выглядят лайки из баз, где колонки created_at еще не было
+        jdbc.update("INSERT INTO likes (film_id, user_id) VALUES (:filmId, :userId)",
+                Map.of("filmId", film.getId(), "userId", user.getId()));
+
+        assertTrue(filmStorage.getTrending(10, TrendingWindow.WEEK).isEmpty());
+    }
+
+    // Без транзакции теста: каждый addLike коммитится сам, как параллельные запросы в приложении
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void shouldCountConcurrentDuplicateLikesOnce() throws Exception {
+        User user = userStorage.create(user("concurrent"));
+        Film film = filmStorage.create(film("Параллельные лайки"));
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 20; round++) {
+                filmStorage.removeLike(film.getId(), user.getId());
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> likes = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    likes.add(executor.submit(() -> {
+                        start.await();
+                        filmStorage.addLike(film.getId(), user.getId());
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> like : likes) {
+                    like.get(10, TimeUnit.SECONDS);
+                }
+                assertEquals(1, filmStorage.getById(film.getId()).orElseThrow().getLikesCount());
+                assertEquals(1, jdbc.queryForObject("SELECT likes_count FROM films WHERE id = :id",
+                        Map.of("id", film.getId()), Integer.class));
+            }
+        } finally {
+            executor.shutdownNow();
+            jdbc.update("DELETE FROM likes WHERE film_id = :id", Map.of("id", film.getId()));
+            jdbc.update("DELETE FROM films WHERE id = :id", Map.of("id", film.getId()));
+            jdbc.update("DELETE FROM users WHERE id = :id", Map.of("id", user.getId()));
+        }
+    }
+
+    @Test
+    void shouldImportLikesAndFriendshipsInBatches() {
+        User first = userStorage.create(user("first"));
+        User second = userStorage.create(user("second"));
+        Film film = filmStorage.create(film("Фильм"));
+        filmStorage.addLike(film.getId(), first.getId());
+
+        filmStorage.addLikes(List.of(new Edge(film.getId(), first.getId()), new Edge(film.getId(), second.getId())));
+        userStorage.addFriends(List.of(new Edge(first.getId(), second.getId())));
+
+        assertEquals(2, filmStorage.getPopular(1).getFirst().getLikesCount());
+        assertArrayEquals(new long[]{film.getId()}, filmStorage.getLikedFilmIds(second.getId()));
+        assertTrue(userStorage.getById(second.getId()).orElseThrow().getFriends().contains(first.getId()));
+    }
+
+    @Test
+    void shouldRemoveLikesInBatch() {
+        User first = userStorage.create(user("first"));
+        User second = userStorage.create(user("second"));
+        Film film = filmStorage.create(film("Фильм"));
+        filmStorage.addLikes(List.of(new Edge(film.getId(), first.getId()), new Edge(film.getId(), second.getId())));
+
+        filmStorage.removeLikes(List.of(new Edge(film.getId(), first.getId()), new Edge(film.getId(), 999L)));
+
+        assertEquals(1, filmStorage.getPopular(1).getFirst().getLikesCount());
+        assertArrayEquals(new long[0], filmStorage.getLikedFilmIds(first.getId()));
+        assertArrayEquals(new long[]{film.getId()}, filmStorage.getLikedFilmIds(second.getId()));
+    }
+
+    @Test
+    void shouldReadLikedFilmsOfSeveralUsersAtOnce() {
+        User first = userStorage.create(user("first"));
+        User second = userStorage.create(user("second"));
+        User third = userStorage.create(user("third"));
+        Film film = filmStorage.create(film("Фильм"));
+        Film other = filmStorage.create(film("Другой"));
+        filmStorage.addLikes(List.of(new Edge(other.getId(), first.getId()), new Edge(film.getId(), first.getId()),
+                new Edge(film.getId(), second.getId())));
+
+        Map<Long, long[]> liked = filmStorage.getLikedFilmIds(List.of(first.getId(), second.getId(), third.getId()));
+
+        assertEquals(3, liked.size());
+        assertArrayEquals(new long[]{film.getId(), other.getId()}, liked.get(first.getId()));
+        assertArrayEquals(new long[]{film.getId()}, liked.get(second.getId()));
+        assertArrayEquals(new long[0], liked.get(third.getId()));
+    }
+
+    // JDBC-хранилища версий не ведут, поэтому сервисы читают их напрямую, минуя схлопывание
+    @Test
+    void shouldNotCoalesceReadsWithoutStorageVersion() {
+        AtomicInteger flights = new AtomicInteger();
+        SingleFlight singleFlight = new SingleFlight(true, Duration.ofSeconds(1)) {
+            @Override
+            public <T> T execute(String operation, Object key, Supplier<T> loader) {
+                flights.incrementAndGet();
+                return super.execute(operation, key, loader);
+            }
+        };
+        UserService userService = new UserService(userStorage, singleFlight);
+        FilmService filmService = new FilmService(filmStorage, userStorage,
+                new LikeWriteBuffer(filmStorage, false, 10, Duration.ofHours(1)), singleFlight);
+        User first = userStorage.create(user("first"));
+        User second = userStorage.create(user("second"));
+        User common = userStorage.create(user("common"));
+        Film film = filmStorage.create(film("Фильм"));
+        userService.addFriend(first.getId(), common.getId());
+        userService.addFriend(second.getId(), common.getId());
+        filmService.addLike(film.getId(), first.getId());
+
+        assertEquals(List.of(common.getId()), userService.getFriends(first.getId()).stream()
+                .map(User::getId).toList());
+        assertEquals(List.of(common.getId()), userService.getCommonFriends(first.getId(), second.getId()).stream()
+                .map(User::getId).toList());
+        assertEquals(film.getId(), filmService.getPopular(10, PopularFilter.NONE).getFirst().getId());
+        assertEquals(film.getId(), filmService.getTrending(10, TrendingWindow.HOUR).getFirst().getId());
+        assertEquals(0, flights.get());
+    }
+
+    @Test
+    void shouldLoadUsersByIdsInRequestedOrder() {
+        User first = userStorage.create(user("first"));
+        User second = userStorage.create(user("second"));
+
+        List<User> users = userStorage.getByIds(List.of(second.getId(), 9_999L, first.getId()));
+
+        assertEquals(List.of(second.getId(), first.getId()), users.stream().map(User::getId).toList());
+    }
+
+    private Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+        return film;
+    }
+
+    private User user(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.com");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return user;
+    }
+}
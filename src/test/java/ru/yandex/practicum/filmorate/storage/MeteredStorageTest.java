@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.MeteredFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.MeteredUserStorage;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MeteredStorageTest {
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldTimeFilmStorageCallsAndRecordSizes() {
+        MeteredFilmStorage storage = new MeteredFilmStorage(new InMemoryFilmStorage(), registry);
+        Film film = storage.create(film());
+        storage.addLike(film.getId(), 1L);
+        storage.getById(film.getId());
+        storage.getPopular(10);
+
+        assertEquals(1, timerCount("films", "create"));
+        assertEquals(1, timerCount("films", "addLike"));
+        assertEquals(1, timerCount("films", "getPopular"));
+        assertEquals(1.0, registry.get(StorageMeters.RESULT_SIZE)
+                .tag("storage", "films")
+                .tag("method", "getPopular")
+                .summary().totalAmount());
+    }
+
+    @Test
+    void shouldTimeFailedCalls() {
+        MeteredUserStorage storage = new MeteredUserStorage(new InMemoryUserStorage(), registry);
+
+        assertThrows(RuntimeException.class, () -> storage.addFriend(1L, 2L));
+
+        assertEquals(1, timerCount("users", "addFriend"));
+    }
+
+    @Test
+    void shouldRecordBatchSizes() {
+        MeteredUserStorage storage = new MeteredUserStorage(new InMemoryUserStorage(), registry);
+        User first = storage.create(user());
+        User second = storage.create(user());
+        storage.addFriend(first.getId(), second.getId());
+
+        storage.getByIds(first.getFriends());
+
+        assertEquals(1.0, registry.get(StorageMeters.RESULT_SIZE)
+                .tag("storage", "users")
+                .tag("method", "getByIds")
+                .summary().max());
+    }
+
+    @Test
+    void shouldRecordRelationSizesOnWrite() {
+        MeteredFilmStorage films = new MeteredFilmStorage(new InMemoryFilmStorage(), registry);
+        MeteredUserStorage users = new MeteredUserStorage(new InMemoryUserStorage(), registry);
+        Film film = films.create(film());
+        films.addLike(film.getId(), 1L);
+        films.addLike(film.getId(), 2L);
+        User first = users.create(user());
+        User second = users.create(user());
+        users.addFriend(first.getId(), second.getId());
+
+        assertEquals(2.0, registry.get(StorageMeters.RELATION_SIZE)
+                .tag("storage", "films")
+                .tag("relation", "likes")
+                .summary().max());
+        assertEquals(2, registry.get(StorageMeters.RELATION_SIZE)
+                .tag("storage", "users")
+                .tag("relation", "friends")
+                .summary().count());
+    }
+
+    @Test
+    void shouldCountEveryCallButTimeOnlySample() {
+        MeteredFilmStorage storage = new MeteredFilmStorage(new InMemoryFilmStorage(), registry, 64);
+        Film film = storage.create(film());
+
+        for (int i = 0; i < 6400; i++) {
+            storage.getById(film.getId());
+        }
+
+        assertEquals(6400.0, registry.get(StorageMeters.INVOCATIONS)
+                .tag("storage", "films")
+                .tag("method", "getById")
+                .counter().count());
+        long timed = timerCount("films", "getById");
+        assertTrue(timed > 0 && timed < 640, "Измерено вызовов: " + timed);
+    }
+
+    private long timerCount(String storage, String method) {
+        return registry.get(StorageMeters.CALLS)
+                .tag("storage", storage)
+                .tag("method", method)
+                .timer().count();
+    }
+
+    private Film film() {
+        Film film = new Film();
+        film.setName("Фильм");
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+        return film;
+    }
+
+    private User user() {
+        User user = new User();
+        user.setEmail("user@mail.com");
+        user.setLogin("login");
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return user;
+    }
+}
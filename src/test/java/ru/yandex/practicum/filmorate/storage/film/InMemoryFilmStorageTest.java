@@ -0,0 +1,331 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Edge;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.PopularFilter;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import ru.yandex.practicum.filmorate.storage.journal.Journal;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryFilmStorageTest {
+
+    private InMemoryFilmStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryFilmStorage();
+    }
+
+    @Test
+    void shouldReturnPopularFilmsOrderedByLikes() {
+        Film first = storage.create(film("Первый"));
+        Film second = storage.create(film("Второй"));
+        Film third = storage.create(film("Третий"));
+
+        storage.addLike(second.getId(), 1L);
+        storage.addLike(second.getId(), 2L);
+        storage.addLike(third.getId(), 1L);
+
+        List<Film> popular = storage.getPopular(10);
+
+        assertEquals(List.of(second.getId(), third.getId(), first.getId()),
+                popular.stream().map(Film::getId).toList());
+    }
+
+    @Test
+    void shouldLimitPopularFilmsByCount() {
+        for (int i = 0; i < 5; i++) {
+            storage.create(film("Фильм " + i));
+        }
+
+        assertEquals(2, storage.getPopular(2).size());
+    }
+
+    @Test
+    void shouldReorderPopularFilmsAfterLikeRemoval() {
+        Film first = storage.create(film("Первый"));
+        Film second = storage.create(film("Второй"));
+
+        storage.addLike(first.getId(), 1L);
+        storage.addLike(second.getId(), 1L);
+        storage.addLike(second.getId(), 2L);
+        storage.removeLike(second.getId(), 1L);
+        storage.removeLike(second.getId(), 2L);
+
+        assertEquals(first.getId(), storage.getPopular(1).getFirst().getId());
+    }
+
+    @Test
+    void shouldKeepPopularityIndexConsistentAfterUpdate() {
+        Film first = storage.create(film("Первый"));
+        Film second = storage.create(film("Второй"));
+        storage.addLike(first.getId(), 1L);
+
+        Film updated = film("Первый, обновленный");
+        updated.setId(first.getId());
+        storage.update(updated);
+
+        List<Film> popular = storage.getPopular(10);
+
+        assertEquals(2, popular.size());
+        assertSame(updated, popular.getFirst());
+        assertEquals(second.getId(), popular.get(1).getId());
+    }
+
+    @Test
+    void shouldFilterPopularFilmsByYearAndDuration() {
+        Film short1999 = storage.create(film("Короткий 1999", 1999, 85));
+        Film long1999 = storage.create(film("Длинный 1999", 1999, 150));
+        Film short2005 = storage.create(film("Короткий 2005", 2005, 60));
+        storage.addLike(long1999.getId(), 1L);
+        storage.addLike(long1999.getId(), 2L);
+        storage.addLike(short2005.getId(), 1L);
+
+        assertEquals(List.of(long1999.getId(), short1999.getId()),
+                ids(storage.getPopular(10, new PopularFilter(1999, null, null))));
+        assertEquals(List.of(short2005.getId(), short1999.getId()),
+                ids(storage.getPopular(10, new PopularFilter(null, null, 89))));
+        assertEquals(List.of(short1999.getId()), ids(storage.getPopular(10, new PopularFilter(1999, 80, 90))));
+
+        // Обновление переносит фильм между корзинами года и продолжительности
+        Film moved = film("Длинный, перемонтированный", 2005, 88);
+        moved.setId(long1999.getId());
+        storage.update(moved);
+
+        assertEquals(List.of(short1999.getId()), ids(storage.getPopular(10, new PopularFilter(1999, null, null))));
+        assertEquals(List.of(short2005.getId(), long1999.getId()),
+                ids(storage.getPopular(10, new PopularFilter(2005, 60, 90))));
+    }
+
+    @Test
+    void shouldMaintainLikedFilmsIndex() {
+        Film first = storage.create(film("Первый"));
+        Film second = storage.create(film("Второй"));
+        Film withLikes = film("С лайками");
+        withLikes.addLike(7L);
+        storage.create(withLikes);
+
+        storage.addLike(second.getId(), 1L);
+        storage.addLike(first.getId(), 1L);
+        storage.addLikes(List.of(new Edge(withLikes.getId(), 1L)));
+        storage.removeLike(second.getId(), 1L);
+
+        assertArrayEquals(new long[]{first.getId(), withLikes.getId()}, storage.getLikedFilmIds(1L));
+        assertArrayEquals(new long[]{withLikes.getId()}, storage.getLikedFilmIds(7L));
+
+        Film updated = film("Первый, обновленный");
+        updated.setId(first.getId());
+        updated.addLike(2L);
+        storage.update(updated);
+
+        assertArrayEquals(new long[]{withLikes.getId()}, storage.getLikedFilmIds(1L));
+        assertArrayEquals(new long[]{first.getId()}, storage.getLikedFilmIds(2L));
+        assertArrayEquals(new long[0], storage.getLikedFilmIds(99L));
+    }
+
+    @Test
+    void shouldAdvanceVersionsOnEveryWrite() {
+        Film film = storage.create(film("Фильм"));
+        long created = storage.getVersion();
+        long filmVersion = film.getVersion();
+
+        storage.addLike(film.getId(), 1L);
+        assertTrue(storage.getVersion() > created);
+        assertTrue(film.getVersion() > filmVersion);
+
+        long liked = storage.getVersion();
+        storage.getPopular(10);
+        assertEquals(liked, storage.getVersion());
+
+        Film updated = film("Фильм, обновленный");
+        updated.setId(film.getId());
+        storage.update(updated);
+        assertTrue(storage.getVersion() > liked);
+        assertTrue(updated.getVersion() > film.getVersion());
+    }
+
+    @Test
+    void shouldRankTrendingFilmsByLikesInWindow() {
+        MutableClock clock = new MutableClock();
+        InMemoryFilmStorage trending = new InMemoryFilmStorage(clock);
+        Film old = trending.create(film("Старый"));
+        Film fresh = trending.create(film("Новый"));
+        for (long user = 1; user <= 5; user++) {
+            trending.addLike(old.getId(), user);
+        }
+
+        clock.advance(Duration.ofHours(2));
+        trending.addLike(fresh.getId(), 1L);
+        trending.addLike(fresh.getId(), 2L);
+
+        // За последний час у старого фильма лайков нет, за сутки он по-прежнему впереди
+        assertEquals(List.of(fresh.getId()), ids(trending.getTrending(10, TrendingWindow.HOUR)));
+        assertEquals(List.of(old.getId(), fresh.getId()), ids(trending.getTrending(10, TrendingWindow.DAY)));
+        assertEquals(List.of(old.getId()), ids(trending.getPopular(1)));
+
+        clock.advance(Duration.ofDays(1));
+        trending.addLike(old.getId(), 6L);
+
+        assertEquals(List.of(old.getId()), ids(trending.getTrending(10, TrendingWindow.DAY)));
+        assertEquals(List.of(old.getId(), fresh.getId()), ids(trending.getTrending(10, TrendingWindow.WEEK)));
+    }
+
+    @Test
+    void shouldRemoveUnlikedFilmFromTrending() {
+        MutableClock clock = new MutableClock();
+        InMemoryFilmStorage trending = new InMemoryFilmStorage(clock);
+        Film first = trending.create(film("Первый"));
+        Film second = trending.create(film("Второй"));
+        trending.addLike(first.getId(), 1L);
+        trending.addLike(first.getId(), 2L);
+        trending.addLike(second.getId(), 1L);
+
+        clock.advance(Duration.ofMinutes(10));
+        trending.removeLike(first.getId(), 1L);
+        trending.removeLike(first.getId(), 2L);
+
+        assertEquals(List.of(second.getId()), ids(trending.getTrending(10, TrendingWindow.HOUR)));
+        assertEquals(1, trending.getTrending(1, TrendingWindow.WEEK).size());
+
+        clock.advance(Duration.ofDays(8));
+        assertTrue(trending.getTrending(10, TrendingWindow.WEEK).isEmpty());
+    }
+
+    @Test
+    void shouldKeepCurrentWindowsWhenOldLikeIsRemoved() {
+        MutableClock clock = new MutableClock();
+        InMemoryFilmStorage trending = new InMemoryFilmStorage(clock);
+        Film first = trending.create(film("Первый"));
+        Film second = trending.create(film("Второй"));
+        trending.addLike(first.getId(), 1L);
+
+        clock.advance(Duration.ofDays(2));
+        trending.addLike(first.getId(), 2L);
+        trending.addLike(second.getId(), 3L);
+        // Снимается лайк двухдневной давности: часовое и суточное окна его не содержали
+        trending.removeLike(first.getId(), 1L);
+
+        assertEquals(List.of(first.getId(), second.getId()), ids(trending.getTrending(10, TrendingWindow.HOUR)));
+        assertEquals(List.of(first.getId(), second.getId()), ids(trending.getTrending(10, TrendingWindow.DAY)));
+        assertEquals(List.of(first.getId(), second.getId()), ids(trending.getTrending(10, TrendingWindow.WEEK)));
+
+        // Лайк, снятый вместе с обновлением фильма, убирается из окна, в которое попал
+        Film updated = film("Первый, обновленный");
+        updated.setId(first.getId());
+        trending.update(updated);
+        assertEquals(List.of(second.getId()), ids(trending.getTrending(10, TrendingWindow.HOUR)));
+    }
+
+    @Test
+    void shouldLeaveFilmUnchangedWhenJournalRejectsLike() {
+        FailingJournal journal = new FailingJournal();
+        storage = new InMemoryFilmStorage(Clock.systemUTC(), journal);
+        Film first = storage.create(film("Первый"));
+        Film second = storage.create(film("Второй"));
+        storage.addLike(first.getId(), 1L);
+        long versionBefore = storage.getVersion();
+
+        journal.appendsLeft = 0;
+
+        assertThrows(IllegalStateException.class, () -> storage.addLike(second.getId(), 1L));
+        Film edited = film("Правка");
+        edited.setId(first.getId());
+        assertThrows(IllegalStateException.class, () -> storage.update(edited));
+        assertEquals(0, second.getLikesCount());
+        assertEquals("Первый", storage.getById(first.getId()).orElseThrow().getName());
+        assertEquals(versionBefore, storage.getVersion());
+        assertEquals(List.of(first.getId(), second.getId()), ids(storage.getPopular(10)));
+    }
+
+    @Test
+    void shouldIndexAppliedPartOfBatchWhenJournalFailsMidway() {
+        FailingJournal journal = new FailingJournal();
+        storage = new InMemoryFilmStorage(Clock.systemUTC(), journal);
+        Film first = storage.create(film("Первый"));
+        Film second = storage.create(film("Второй"));
+        storage.addLike(first.getId(), 1L);
+        long filmVersion = second.getVersion();
+
+        journal.appendsLeft = 2;
+
+        assertThrows(IllegalStateException.class, () -> storage.addLikes(List.of(
+                new Edge(second.getId(), 1L), new Edge(second.getId(), 2L), new Edge(second.getId(), 3L))));
+        assertEquals(2, second.getLikesCount());
+        assertNotEquals(filmVersion, second.getVersion());
+        assertEquals(List.of(second.getId(), first.getId()), ids(storage.getPopular(10)));
+        assertArrayEquals(new long[]{second.getId()}, storage.getLikedFilmIds(2L));
+    }
+
+    private Film film(String name) {
+        return film(name, 2000, 120);
+    }
+
+    private Film film(String name, int year, int duration) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(year, 1, 1));
+        film.setDuration(duration);
+        return film;
+    }
+
+    private static List<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    // Журнал, который принимает appendsLeft записей и затем отказывает, как FileJournal после ошибки записи
+    private static final class FailingJournal implements Journal {
+        private int appendsLeft = Integer.MAX_VALUE;
+
+        @Override
+        public void append(byte type, RecordWriter writer) {
+            if (appendsLeft-- <= 0) {
+                throw new IllegalStateException("Журнал недоступен для записи");
+            }
+        }
+
+        @Override
+        public void appendPair(byte type, long first, long second) {
+            append(type, out -> {
+            });
+        }
+
+        @Override
+        public void commit() {
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LikeTimesTest {
+
+    @Test
+    void shouldMatchHashMapUnderRandomPutsAndRemovals() {
+        LikeTimes times = new LikeTimes();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            // Небольшой диапазон ключей дает длинные цепочки пробирования и частые сдвиги при удалении
+            long userId = random.nextInt(512);
+            if (random.nextBoolean()) {
+                int minute = random.nextInt(1_000_000);
+                times.put(userId, minute);
+                expected.put(userId, minute);
+            } else {
+                Integer minute = expected.remove(userId);
+                assertEquals(minute == null ? LikeTimes.ABSENT : minute, times.remove(userId));
+            }
+            assertEquals(expected.size(), times.size());
+        }
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), times.remove(entry.getKey()));
+        }
+        assertEquals(0, times.size());
+    }
+
+    @Test
+    void shouldDropLikesOlderThanBound() {
+        LikeTimes times = new LikeTimes();
+        for (long userId = 0; userId < 100; userId++) {
+            times.put(userId, (int) userId);
+        }
+
+        times.removeOlderThan(60);
+
+        assertEquals(40, times.size());
+        assertEquals(LikeTimes.ABSENT, times.remove(0));
+        assertEquals(LikeTimes.ABSENT, times.remove(59));
+        assertEquals(60, times.remove(60));
+        assertEquals(99, times.remove(99));
+    }
+}
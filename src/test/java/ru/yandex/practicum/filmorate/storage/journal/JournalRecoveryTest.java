@@ -0,0 +1,159 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.model.Edge;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalRecoveryTest {
+    @TempDir
+    Path dir;
+
+    private JournalFactory factory;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        factory.close();
+    }
+
+    @Test
+    void shouldRestoreStateFromSnapshotAndJournalTail() throws IOException {
+        factory = open();
+        InMemoryFilmStorage films = new InMemoryFilmStorage(factory);
+        InMemoryUserStorage users = new InMemoryUserStorage(factory);
+        for (int i = 0; i < 3; i++) {
+            users.create(user("user" + i));
+        }
+        Film first = films.create(film("Первый"));
+        Film second = films.create(film("Второй"));
+        Film third = films.create(film("Третий"));
+        films.addLike(first.getId(), 1L);
+        films.addLike(third.getId(), 1L);
+        users.addFriend(1L, 2L);
+
+        factory.snapshotAll();
+
+        Film updated = film("Второй, режиссерская версия");
+        updated.setId(second.getId());
+        films.update(updated);
+        films.addLikes(List.of(new Edge(second.getId(), 2L), new Edge(second.getId(), 3L)));
+        films.removeLike(first.getId(), 1L);
+        users.addFriend(2L, 3L);
+        users.removeFriend(1L, 2L);
+        factory.close();
+
+        factory = open();
+        InMemoryFilmStorage restoredFilms = new InMemoryFilmStorage(factory);
+        InMemoryUserStorage restoredUsers = new InMemoryUserStorage(factory);
+
+        Film restored = restoredFilms.getById(second.getId()).orElseThrow();
+        assertEquals("Второй, режиссерская версия", restored.getName());
+        assertEquals(LocalDate.of(2000, 1, 1), restored.getReleaseDate());
+        assertEquals(List.of(2L, 3L), List.copyOf(restored.getLikes()));
+        assertTrue(restoredFilms.getById(first.getId()).orElseThrow().getLikes().isEmpty());
+        assertEquals(second.getId(), restoredFilms.getPopular(1).getFirst().getId());
+        assertArrayEquals(new long[]{second.getId()}, restoredFilms.getLikedFilmIds(3L));
+        // Окна трендов восстанавливаются из снимка и временных записей лайков в хвосте журнала
+        assertEquals(List.of(second.getId(), third.getId()),
+                restoredFilms.getTrending(10, TrendingWindow.DAY).stream().map(Film::getId).toList());
+        assertEquals(List.of(3L), List.copyOf(restoredUsers.getById(2L).orElseThrow().getFriends()));
+        assertTrue(restoredUsers.getById(1L).orElseThrow().getFriends().isEmpty());
+        assertEquals(4L, restoredFilms.create(film("Четвертый")).getId());
+        assertEquals(4L, restoredUsers.create(user("user3")).getId());
+    }
+
+    @Test
+    void shouldSkipTornTailOfJournal() throws IOException {
+        factory = open();
+        InMemoryFilmStorage films = new InMemoryFilmStorage(factory);
+        Film film = films.create(film("Фильм"));
+        films.addLike(film.getId(), 1L);
+        factory.close();
+        // Имитируем сбой посреди записи: заголовок кадра без тела
+        try (Stream<Path> files = Files.list(dir)) {
+            Path segment = files.filter(file -> file.toString().endsWith(".journal")).sorted().toList().getLast();
+            Files.write(segment, new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+        }
+
+        factory = open();
+        InMemoryFilmStorage restored = new InMemoryFilmStorage(factory);
+
+        assertEquals(List.of(1L), List.copyOf(restored.getById(film.getId()).orElseThrow().getLikes()));
+        restored.addLike(film.getId(), 2L);
+        assertEquals(2, restored.getById(film.getId()).orElseThrow().getLikesCount());
+    }
+
+    @Test
+    void shouldLoadSnapshotOfSeveralBlocksInParallel() throws IOException {
+        factory = open(1);
+        InMemoryFilmStorage films = new InMemoryFilmStorage(factory);
+        // Снимок в несколько мегабайт, чтобы он читался несколькими блоками
+        int filmCount = 3000;
+        for (int i = 0; i < filmCount; i++) {
+            long id = films.create(film("Фильм " + i)).getId();
+            List<Edge> likes = new ArrayList<>();
+            for (long user = 1; user <= i % 200; user++) {
+                likes.add(new Edge(id, user));
+            }
+            films.addLikes(likes);
+        }
+        factory.snapshotAll();
+        factory.close();
+
+        factory = open(4);
+        InMemoryFilmStorage restored = new InMemoryFilmStorage(factory);
+
+        assertEquals(filmCount, restored.getAll().size());
+        for (Film film : films.getAll()) {
+            assertEquals(film.getLikes(), restored.getById(film.getId()).orElseThrow().getLikes());
+        }
+        assertEquals(films.getPopular(50).stream().map(Film::getId).toList(),
+                restored.getPopular(50).stream().map(Film::getId).toList());
+        assertEquals(films.getTrending(50, TrendingWindow.HOUR).stream().map(Film::getId).toList(),
+                restored.getTrending(50, TrendingWindow.HOUR).stream().map(Film::getId).toList());
+        assertArrayEquals(films.getLikedFilmIds(1L), restored.getLikedFilmIds(1L));
+    }
+
+    private JournalFactory open() {
+        return open(1);
+    }
+
+    private JournalFactory open(int replayThreads) {
+        return new JournalFactory(true, dir, true, Duration.ofHours(1), replayThreads);
+    }
+
+    private static Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return film;
+    }
+
+    private static User user(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.ru");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.journal.Journal;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryUserStorageTest {
+
+    @Test
+    void shouldLeaveFriendshipUnchangedWhenJournalRejectsIt() {
+        FailingJournal journal = new FailingJournal();
+        InMemoryUserStorage storage = new InMemoryUserStorage(journal);
+        User user = storage.create(user("user"));
+        User friend = storage.create(user("friend"));
+
+        journal.failing = true;
+
+        assertThrows(IllegalStateException.class, () -> storage.addFriend(user.getId(), friend.getId()));
+        assertThrows(IllegalStateException.class, () -> storage.create(user("other")));
+        assertTrue(user.getFriends().isEmpty());
+        assertTrue(friend.getFriends().isEmpty());
+        assertEquals(2, storage.getAll().size());
+    }
+
+    private static User user(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.com");
+        user.setLogin(login);
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return user;
+    }
+
+    // Журнал, отказывающий в записи, как FileJournal после ошибки записи на диск
+    private static final class FailingJournal implements Journal {
+        private boolean failing;
+
+        @Override
+        public void append(byte type, RecordWriter writer) {
+            if (failing) {
+                throw new IllegalStateException("Журнал недоступен для записи");
+            }
+        }
+
+        @Override
+        public void appendPair(byte type, long first, long second) {
+            append(type, out -> {
+            });
+        }
+
+        @Override
+        public void commit() {
+        }
+    }
+}
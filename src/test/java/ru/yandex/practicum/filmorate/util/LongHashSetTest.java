@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashSetTest {
+
+    @Test
+    void shouldBehaveLikeHashSetUnderRandomOperations() {
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextInt(2_000) - 10;
+            if (random.nextInt(3) > 0) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+        }
+
+        assertEquals(expected.size(), set.size());
+        for (long value = -10; value < 1_990; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+
+    @Test
+    void shouldIterateInAscendingOrder() {
+        LongHashSet set = new LongHashSet();
+        set.add(30L);
+        set.add(1L);
+        set.add(20L);
+        set.add(0L);
+
+        assertEquals(List.of(0L, 1L, 20L, 30L), new ArrayList<>(set));
+        assertArrayEquals(new long[]{0L, 1L, 20L, 30L}, set.toSortedArray());
+    }
+
+    @Test
+    void shouldRefreshSnapshotAfterModification() {
+        LongHashSet set = new LongHashSet();
+        set.add(1L);
+        Iterator<Long> before = set.iterator();
+
+        set.add(2L);
+
+        assertEquals(List.of(1L), toList(before));
+        assertEquals(List.of(1L, 2L), new ArrayList<>(set));
+    }
+
+    @Test
+    void shouldKeepSnapshotOnlyForRepeatedReads() {
+        LongHashSet set = new LongHashSet();
+        set.add(1L);
+
+        long[] once = set.sortedView();
+        long[] twice = set.sortedView();
+
+        assertNotSame(once, twice);
+        assertSame(twice, set.sortedView());
+
+        set.add(2L);
+        long[] afterChange = set.sortedView();
+        assertArrayEquals(new long[]{1L, 2L}, afterChange);
+        assertNotSame(afterChange, set.sortedView());
+    }
+
+    private List<Long> toList(Iterator<Long> iterator) {
+        List<Long> values = new ArrayList<>();
+        iterator.forEachRemaining(values::add);
+        return values;
+    }
+}
@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntCounterTest {
+
+    @Test
+    void shouldSelectTopKeysByCountThenById() {
+        Random random = new Random(5);
+        LongIntCounter counter = new LongIntCounter();
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            long key = 1 + random.nextInt(2_000);
+            counter.increment(key);
+            expected.merge(key, 1, Integer::sum);
+        }
+
+        long[] top = counter.topK(20, key -> key % 10 == 0);
+
+        long[] reference = expected.entrySet().stream()
+                .filter(entry -> entry.getKey() % 10 != 0)
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(20)
+                .mapToLong(Map.Entry::getKey)
+                .toArray();
+        assertArrayEquals(reference, top);
+        assertEquals(expected.get(top[0]), counter.get(top[0]));
+    }
+
+    @Test
+    void shouldMergeCounters() {
+        LongIntCounter left = new LongIntCounter();
+        LongIntCounter right = new LongIntCounter();
+        left.increment(1);
+        left.increment(2);
+        right.increment(2);
+        right.increment(3);
+
+        left.addAll(right);
+
+        assertEquals(3, left.size());
+        assertEquals(2, left.get(2));
+        assertArrayEquals(new long[]{2, 1, 3}, left.topK(5, key -> false));
+    }
+
+    @Test
+    void shouldCapElementsTakenFromLargeSet() {
+        LongHashSet set = new LongHashSet();
+        for (long i = 1; i <= 10_000; i++) {
+            set.add(i);
+        }
+        LongIntCounter counter = new LongIntCounter();
+
+        counter.incrementAll(set, 100);
+
+        assertEquals(100, counter.size());
+        assertEquals(1, counter.get(1));
+        assertArrayEquals(LongSets.sample(set, 100), counter.topK(100, key -> false));
+    }
+
+    @Test
+    void shouldCountInParallelChunksLikeSequentially() {
+        long[] keys = new Random(3).longs(10_000, 1, 500).toArray();
+
+        LongIntCounter parallel = LongIntCounter.countInParallel(keys.length, 100,
+                (counter, i) -> counter.increment(keys[i]));
+        LongIntCounter sequential = LongIntCounter.countInParallel(keys.length, keys.length + 1,
+                (counter, i) -> counter.increment(keys[i]));
+
+        assertEquals(sequential.size(), parallel.size());
+        assertArrayEquals(sequential.topK(50, key -> false), parallel.topK(50, key -> false));
+    }
+}
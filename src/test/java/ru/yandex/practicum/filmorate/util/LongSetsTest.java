@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongSetsTest {
+
+    @Test
+    void shouldIntersectSetsOfAnySizeRatio() {
+        Random random = new Random(7);
+        int[][] sizes = {{0, 10}, {10, 10}, {100, 300}, {50, 1_000}, {20, 5_000}, {5_000, 20}};
+
+        for (int[] size : sizes) {
+            LongHashSet first = randomSet(random, size[0]);
+            LongHashSet second = randomSet(random, size[1]);
+            TreeSet<Long> expected = new TreeSet<>(first);
+            expected.retainAll(second);
+
+            long[] actual = LongSets.intersect(first, second);
+
+            assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), actual,
+                    "Размеры " + size[0] + " и " + size[1]);
+        }
+    }
+
+    @Test
+    void shouldProduceSameResultWithEveryStrategy() {
+        Random random = new Random(11);
+        LongHashSet small = randomSet(random, 200);
+        LongHashSet large = randomSet(random, 4_000);
+
+        long[] merged = LongSets.merge(small.toSortedArray(), large.toSortedArray());
+
+        assertArrayEquals(merged, LongSets.gallop(small.toSortedArray(), large.toSortedArray()));
+        assertArrayEquals(merged, LongSets.probe(small.toSortedArray(), large));
+    }
+
+    private LongHashSet randomSet(Random random, int size) {
+        LongHashSet set = new LongHashSet();
+        while (set.size() < size) {
+            set.add(random.nextInt(10_000) + 1L);
+        }
+        return set;
+    }
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowCounterTest {
+    private static final long MINUTE = 60_000;
+
+    @Test
+    void shouldForgetEventsOlderThanWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(60, MINUTE);
+        counter.add(0, 3);
+        counter.add(30 * MINUTE, 2);
+
+        assertEquals(5, counter.sum(59 * MINUTE));
+        assertEquals(2, counter.sum(60 * MINUTE));
+        assertEquals(0, counter.sum(90 * MINUTE));
+
+        // Событие старше окна не учитывается
+        counter.add(10 * MINUTE, 4);
+        assertEquals(0, counter.sum(90 * MINUTE));
+    }
+
+    @Test
+    void shouldRemoveEventsOnlyFromTheirOwnBucket() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(60, MINUTE);
+        counter.add(0, 1);
+        counter.add(50 * MINUTE, 2);
+
+        // Отмена события из первой минуты не трогает более новые корзины
+        counter.remove(50 * MINUTE, 0, 1);
+        assertEquals(2, counter.sum(50 * MINUTE));
+
+        // Корзина не уходит ниже нуля
+        counter.remove(50 * MINUTE, 0, 1);
+        counter.remove(55 * MINUTE, 50 * MINUTE, 5);
+        assertEquals(0, counter.sum(55 * MINUTE));
+
+        // Событие, выпавшее из окна, на сумму не влияет, даже если его ячейку кольца заняла новая корзина
+        counter.add(110 * MINUTE, 1);
+        counter.remove(130 * MINUTE, 50 * MINUTE, 1);
+        assertEquals(1, counter.sum(130 * MINUTE));
+    }
+
+    @Test
+    void shouldRestoreFromSnapshot() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(24, 60 * MINUTE);
+        counter.add(0, 1);
+        counter.add(5 * 60 * MINUTE, 2);
+
+        SlidingWindowCounter restored = new SlidingWindowCounter(24, 60 * MINUTE);
+        restored.restore(counter.head(), counter.countsOldestFirst());
+
+        assertEquals(3, restored.sum(23 * 60 * MINUTE));
+        assertEquals(2, restored.sum(24 * 60 * MINUTE));
+        assertThrows(IllegalArgumentException.class, () -> restored.restore(0, new int[3]));
+    }
+}